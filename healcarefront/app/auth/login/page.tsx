@@ -10,6 +10,7 @@ import { Input } from "@/components/ui/input"
 import { Label } from "@/components/ui/label"
 import { Heart, ArrowLeft, Eye, EyeOff } from "lucide-react"
 import Link from "next/link"
+import { guardarTokenSesion } from "@/lib/api"
 
 export default function LoginPage() {
   const router = useRouter()
@@ -58,6 +59,7 @@ export default function LoginPage() {
 
       const usuario = await response.json()
       localStorage.setItem("currentUser", JSON.stringify(usuario))
+      guardarTokenSesion(response)
       router.push("/dashboard")
     } catch (err) {
       setError("Error al conectar con el servidor")
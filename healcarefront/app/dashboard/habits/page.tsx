@@ -90,6 +90,7 @@ export default function HabitsPage() {
 
   const handleLogout = () => {
     localStorage.removeItem("currentUser")
+    localStorage.removeItem("sessionToken")
     router.push("/")
   }
 
@@ -9,6 +9,9 @@ import { ArrowLeft, Heart, LogOut, Trash2, Pencil } from "lucide-react"
 import Link from "next/link"
 import { NotificacionesPanel } from "@/components/notificaciones-panel"
 import { toast } from "sonner"
+import { suscribirNotificaciones } from "@/lib/notificacionesStream"
+import { notificacionAPI } from "@/lib/api"
+import { Badge } from "@/components/ui/badge"
 
 export default function NotificationsPage() {
   const router = useRouter()
@@ -18,6 +21,7 @@ export default function NotificationsPage() {
   const [habitos, setHabitos] = useState<{ id: number; nombre: string }[]>([])
   const [notificaciones, setNotificaciones] = useState<any[]>([])
   const [loadingNotificaciones, setLoadingNotificaciones] = useState(false)
+  const [noLeidas, setNoLeidas] = useState(0)
   const [form, setForm] = useState<{ id?: number; habitoId: string; titulo: string; mensaje: string; enviadaEn: string }>({
     habitoId: "",
     titulo: "",
@@ -41,6 +45,7 @@ export default function NotificationsPage() {
 
   const handleLogout = () => {
     localStorage.removeItem("currentUser")
+    localStorage.removeItem("sessionToken")
     router.push("/")
   }
 
@@ -131,6 +136,25 @@ export default function NotificationsPage() {
     setForm({ habitoId: "", titulo: "", mensaje: "", enviadaEn: "" })
   }
 
+  const fetchNoLeidas = async () => {
+    if (!currentUser) return
+    try {
+      setNoLeidas(await notificacionAPI.contarNoLeidas(currentUser.id))
+    } catch {
+      setNoLeidas(0)
+    }
+  }
+
+  // Cambios hechos en otra pestaña o por el servidor: llegan por el stream y se recarga el listado
+  useEffect(() => {
+    if (!currentUser) return
+    fetchNoLeidas()
+    return suscribirNotificaciones(currentUser.id, () => {
+      fetchNotificaciones()
+      fetchNoLeidas()
+    })
+  }, [currentUser])
+
   // Mostrar notificación cuando llega la hora
   useEffect(() => {
     if (!notificaciones.length) return
@@ -148,11 +172,7 @@ export default function NotificationsPage() {
             action: {
               label: "Marcar como leída",
               onClick: async () => {
-                await fetch(`http://localhost:8080/api/notificaciones/${n.id}`, {
-                  method: "PUT",
-                  headers: { "Content-Type": "application/json" },
-                  body: JSON.stringify({ ...n, estado: "LEIDA", leidaEn: new Date().toISOString() }),
-                })
+                setNoLeidas(await notificacionAPI.marcarLeidas(currentUser.id, [n.id]))
                 fetchNotificaciones()
               },
             },
@@ -208,7 +228,14 @@ export default function NotificationsPage() {
       <div className="max-w-6xl mx-auto px-4 sm:px-6 lg:px-8 py-8">
         <Tabs defaultValue="nuevas" className="space-y-6">
           <TabsList className="grid w-full grid-cols-3">
-            <TabsTrigger value="nuevas">Nuevas</TabsTrigger>
+            <TabsTrigger value="nuevas">
+              Nuevas
+              {noLeidas > 0 && (
+                <Badge variant="secondary" className="ml-2">
+                  {noLeidas}
+                </Badge>
+              )}
+            </TabsTrigger>
             <TabsTrigger value="todas">Todas</TabsTrigger>
             <TabsTrigger value="recordatorios">Recordatorios por Hábito</TabsTrigger>
           </TabsList>
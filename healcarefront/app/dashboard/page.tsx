@@ -42,6 +42,7 @@ export default function DashboardPage() {
 
   const handleLogout = () => {
     localStorage.removeItem("currentUser")
+    localStorage.removeItem("sessionToken")
     router.push("/")
   }
 
@@ -44,6 +44,7 @@ export default function ProfilePage() {
 
   const handleLogout = () => {
     localStorage.removeItem("currentUser")
+    localStorage.removeItem("sessionToken")
     router.push("/")
   }
 
@@ -56,6 +56,7 @@ export default function RecordHabitsPage() {
 
   const handleLogout = () => {
     localStorage.removeItem("currentUser")
+    localStorage.removeItem("sessionToken")
     router.push("/")
   }
 
@@ -47,7 +47,7 @@ export function NotificacionesPanel({ usuarioId, mostrarSoloNoLeidas = false, cl
 
   const marcarComoLeida = async (notificacionId: number) => {
     try {
-      await notificacionAPI.marcarComoLeida(notificacionId, "WEB")
+      await notificacionAPI.marcarLeidas(usuarioId, [notificacionId])
 
       // Actualizar estado local
       setNotificaciones((prev) =>
@@ -62,6 +62,19 @@ export function NotificacionesPanel({ usuarioId, mostrarSoloNoLeidas = false, cl
     }
   }
 
+  // Un único UPDATE en el servidor en lugar de una petición por notificación
+  const marcarTodasComoLeidas = async () => {
+    try {
+      await notificacionAPI.marcarLeidas(usuarioId)
+      const ahora = new Date().toISOString()
+      setNotificaciones((prev) =>
+        mostrarSoloNoLeidas ? [] : prev.map((notif) => (notif.leidaEn ? notif : { ...notif, leidaEn: ahora, leidaEnWeb: ahora })),
+      )
+    } catch (err) {
+      console.error("Error al marcar todas como leídas:", err)
+    }
+  }
+
   const obtenerIcono = (tipo: string) => {
     switch (tipo) {
       case "RECORDATORIO_HABITO":
@@ -253,6 +266,14 @@ export function NotificacionesPanel({ usuarioId, mostrarSoloNoLeidas = false, cl
           </ScrollArea>
         )}
 
+        {mostrarSoloNoLeidas && notificaciones.length > 0 && (
+          <div className="mt-4 pt-4 border-t">
+            <Button variant="outline" size="sm" onClick={marcarTodasComoLeidas} className="w-full bg-transparent">
+              Marcar todas como leídas
+            </Button>
+          </div>
+        )}
+
         {!mostrarSoloNoLeidas && notificaciones.length > 0 && (
           <div className="mt-4 pt-4 border-t">
             <Button variant="outline" size="sm" onClick={cargarNotificaciones} className="w-full bg-transparent">
@@ -1,12 +1,14 @@
 "use client"
-import { useEffect, useRef, useState } from "react";
+import { useEffect, useRef } from "react";
 import { Toaster, toast } from "sonner"; // Instala con: npm install sonner
+import { suscribirNotificaciones } from "@/lib/notificacionesStream";
 
 type Notificacion = {
   id: number;
   titulo: string;
   mensaje: string;
   enviadaEn: string;
+  leidaEn?: string | null;
 };
 
 interface Props {
@@ -14,26 +16,31 @@ interface Props {
 }
 
 export default function ActiveNotificationToast({ usuarioId }: Props) {
-  const [lastId, setLastId] = useState<number | null>(null);
-  const polling = useRef<NodeJS.Timeout>();
+  const mostradas = useRef<Set<number>>(new Set());
 
   useEffect(() => {
-    const fetchNotifications = async () => {
+    const mostrar = (n: Notificacion) => {
+      if (!n.leidaEn && !mostradas.current.has(n.id)) {
+        toast(`${n.titulo}: ${n.mensaje}`);
+        mostradas.current.add(n.id);
+      }
+    };
+    // Carga inicial y tras un hueco en el stream; el resto llega por SSE
+    const cargarActivas = async () => {
       try {
         const res = await fetch(`http://localhost:8080/api/notificaciones/activas/${usuarioId}`);
         const data: Notificacion[] = await res.json();
-        if (data.length > 0 && data[0].id !== lastId) {
-          toast(`${data[0].titulo}: ${data[0].mensaje}`);
-          setLastId(data[0].id);
-        }
+        if (data.length > 0) mostrar(data[0]);
       } catch (e) {
         // Silenciar error de red
       }
     };
-    fetchNotifications();
-    polling.current = setInterval(fetchNotifications, 15000);
-    return () => polling.current && clearInterval(polling.current);
-  }, [usuarioId, lastId]);
+    cargarActivas();
+    return suscribirNotificaciones(usuarioId, (evento, datos) => {
+      if (evento === "notificacion") mostrar(datos);
+      else if (evento === "resincronizar") cargarActivas();
+    });
+  }, [usuarioId]);
 
   return <Toaster position="top-right" />;
-}
\ No newline at end of file
+}
@@ -77,30 +77,17 @@ export function useHealthcare() {
       console.log("📝 Registros de hoy:", registrosHoy?.length || 0)
       setRegistros(registrosHoy || [])
 
-      // Load statistics
+      // Load statistics, progress and categories in one request
       try {
-        const estadisticasUsuario = await estadisticasAPI.obtenerEstadisticasUsuario(usuarioId)
-        setEstadisticas(estadisticasUsuario)
-        console.log("📈 Estadísticas cargadas:", estadisticasUsuario)
+        const dashboard = await estadisticasAPI.obtenerDashboard(usuarioId)
+        setEstadisticas(dashboard.estadisticas)
+        setProgresoSemanal(dashboard.progresoSemanal)
+        setProgresoMensual(dashboard.progresoMensual)
+        setDatosCategorias(dashboard.categorias)
+        console.log("📈 Estadísticas cargadas:", dashboard.estadisticas)
       } catch (err) {
         console.warn("⚠️ No se pudieron cargar las estadísticas:", err)
       }
-
-      // Load weekly progress
-      try {
-        const progreso = await estadisticasAPI.obtenerProgresoSemanal(usuarioId)
-        setProgresoSemanal(progreso)
-      } catch (err) {
-        console.warn("⚠️ No se pudo cargar el progreso semanal:", err)
-      }
-
-      // Load data by categories
-      try {
-        const categorias = await estadisticasAPI.obtenerPorCategorias(usuarioId)
-        setDatosCategorias(categorias)
-      } catch (err) {
-        console.warn("⚠️ No se pudieron cargar los datos por categorías:", err)
-      }
     } catch (err) {
       const errorMessage = err instanceof Error ? err.message : "Error desconocido"
       setError(errorMessage)
@@ -185,8 +172,7 @@ export function useHealthcare() {
         throw new Error("Hábito no encontrado")
       }
 
-      const registroCompleto = { ...nuevoRegistro, habito }
-      const registroCreado = await registroAPI.crear(registroCompleto)
+      const registroCreado = await registroAPI.guardarDelDia(habitoId, nuevoRegistro.fecha, nuevoRegistro)
 
       // Update local registros
       setRegistros((prev) => {
@@ -247,15 +233,12 @@ export function useHealthcare() {
 
   const cargarEstadisticas = async (usuarioId: number) => {
     try {
-      const [estadisticasData, progresoSemanalData, categorias] = await Promise.all([
-        estadisticasAPI.obtenerEstadisticasUsuario(usuarioId),
-        estadisticasAPI.obtenerProgresoSemanal(usuarioId),
-        estadisticasAPI.obtenerPorCategorias(usuarioId),
-      ])
-
-      setEstadisticas(estadisticasData)
-      setProgresoSemanal(progresoSemanalData)
-      setDatosCategorias(categorias)
+      const dashboard = await estadisticasAPI.obtenerDashboard(usuarioId)
+
+      setEstadisticas(dashboard.estadisticas)
+      setProgresoSemanal(dashboard.progresoSemanal)
+      setProgresoMensual(dashboard.progresoMensual)
+      setDatosCategorias(dashboard.categorias)
     } catch (err) {
       console.warn("⚠️ Error cargando estadísticas:", err)
     }
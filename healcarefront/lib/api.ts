@@ -1,5 +1,27 @@
 // Configuración de la API
-const API_BASE_URL = "http://localhost:8080/api"
+export const API_BASE_URL = "http://localhost:8080/api"
+
+// Token de sesión emitido por el login y el alta de usuario (cabecera X-Token-Sesion)
+export const TOKEN_SESION = "sessionToken"
+
+const cabeceraSesion = (): Record<string, string> => {
+  const token = typeof window !== "undefined" ? localStorage.getItem(TOKEN_SESION) : null
+  return token ? { Authorization: `Bearer ${token}` } : {}
+}
+
+export const guardarTokenSesion = (response: Response) => {
+  const token = response.headers.get("X-Token-Sesion")
+  if (token) localStorage.setItem(TOKEN_SESION, token)
+}
+
+export const cerrarSesionCaducada = () => {
+  if (typeof window === "undefined") return
+  localStorage.removeItem(TOKEN_SESION)
+  localStorage.removeItem("currentUser")
+  if (!window.location.pathname.startsWith("/auth/")) {
+    window.location.href = "/auth/login"
+  }
+}
 
 // Función helper para manejar errores de fetch
 const handleFetch = async (url: string, options?: RequestInit) => {
@@ -10,11 +32,18 @@ const handleFetch = async (url: string, options?: RequestInit) => {
       ...options,
       headers: {
         "Content-Type": "application/json",
+        ...cabeceraSesion(),
         ...options?.headers,
       },
     })
 
     console.log(`📡 Respuesta recibida: ${response.status} ${response.statusText}`)
+    guardarTokenSesion(response)
+
+    if (response.status === 401) {
+      // Token caducado o firmado con otro secreto: se descarta y se vuelve a iniciar sesión
+      cerrarSesionCaducada()
+    }
 
     if (!response.ok) {
       throw new Error(`HTTP error! status: ${response.status} - ${response.statusText}`)
@@ -34,6 +63,24 @@ const handleFetch = async (url: string, options?: RequestInit) => {
   }
 }
 
+// Listados paginados por cursor: siguienteCursor es null en la última página
+export interface Pagina<T> {
+  elementos: T[]
+  siguienteCursor: string | null
+}
+
+const obtenerPagina = async <T,>(url: string, despuesDe?: string | number, limite?: number): Promise<Pagina<T>> => {
+  const params = new URLSearchParams()
+  if (despuesDe !== undefined) params.set("despuesDe", String(despuesDe))
+  if (limite !== undefined) params.set("limite", String(limite))
+  const query = params.toString()
+  const response = await handleFetch(query ? `${url}?${query}` : url)
+  return {
+    elementos: await response.json(),
+    siguienteCursor: response.headers.get("X-Siguiente-Cursor"),
+  }
+}
+
 // Tipos para el backend
 export interface Usuario {
   id?: number
@@ -91,6 +138,17 @@ export interface DatoProgreso {
   porcentaje: number
 }
 
+export type Granularidad = "DAY" | "WEEK" | "MONTH"
+
+export interface DatoProgresoPeriodo {
+  inicio: string
+  fin: string
+  completados: number
+  diasActivos: number
+  dias: number
+  porcentaje: number
+}
+
 export interface DatoCategoria {
   categoria: string
   total: number
@@ -98,6 +156,13 @@ export interface DatoCategoria {
   porcentaje: number
 }
 
+export interface DashboardEstadisticas {
+  estadisticas: EstadisticasUsuario
+  progresoSemanal: DatoProgreso[]
+  progresoMensual: DatoProgreso[]
+  categorias: DatoCategoria[]
+}
+
 // Interfaces para notificaciones
 export interface Notificacion {
   id?: number
@@ -145,9 +210,8 @@ export interface ConfiguracionNotificacion {
 
 // Funciones para usuarios
 export const usuarioAPI = {
-  obtenerTodos: async (): Promise<Usuario[]> => {
-    const response = await handleFetch(`${API_BASE_URL}/usuarios`)
-    return response.json()
+  obtenerTodos: async (despuesDe?: number, limite?: number): Promise<Pagina<Usuario>> => {
+    return obtenerPagina<Usuario>(`${API_BASE_URL}/usuarios`, despuesDe, limite)
   },
 
   obtenerPorId: async (id: number): Promise<Usuario> => {
@@ -227,9 +291,8 @@ export const registroAPI = {
     return response.json()
   },
 
-  obtenerPorHabito: async (habitoId: number): Promise<RegistroHabito[]> => {
-    const response = await handleFetch(`${API_BASE_URL}/registros/habito/${habitoId}`)
-    return response.json()
+  obtenerPorHabito: async (habitoId: number, despuesDe?: string, limite?: number): Promise<Pagina<RegistroHabito>> => {
+    return obtenerPagina<RegistroHabito>(`${API_BASE_URL}/registros/habito/${habitoId}`, despuesDe, limite)
   },
 
   crear: async (registro: RegistroHabito): Promise<RegistroHabito> => {
@@ -240,6 +303,15 @@ export const registroAPI = {
     return response.json()
   },
 
+  // Crea o sobrescribe el registro del día: repetir la llamada no genera duplicados
+  guardarDelDia: async (habitoId: number, fecha: string, registro: Partial<RegistroHabito>): Promise<RegistroHabito> => {
+    const response = await handleFetch(`${API_BASE_URL}/registros/habito/${habitoId}/fecha/${fecha}`, {
+      method: "PUT",
+      body: JSON.stringify(registro),
+    })
+    return response.json()
+  },
+
   actualizar: async (id: number, registro: Partial<RegistroHabito>): Promise<RegistroHabito> => {
     const response = await handleFetch(`${API_BASE_URL}/registros/${id}`, {
       method: "PUT",
@@ -257,11 +329,28 @@ export const registroAPI = {
 
 // Funciones para estadísticas
 export const estadisticasAPI = {
+  obtenerDashboard: async (usuarioId: number): Promise<DashboardEstadisticas> => {
+    const response = await handleFetch(`${API_BASE_URL}/estadisticas/usuario/${usuarioId}/dashboard`)
+    return response.json()
+  },
+
   obtenerEstadisticasUsuario: async (usuarioId: number): Promise<EstadisticasUsuario> => {
     const response = await handleFetch(`${API_BASE_URL}/estadisticas/usuario/${usuarioId}`)
     return response.json()
   },
 
+  obtenerProgreso: async (
+    usuarioId: number,
+    desde: string,
+    hasta: string,
+    granularidad: Granularidad = "DAY",
+  ): Promise<DatoProgresoPeriodo[]> => {
+    const response = await handleFetch(
+      `${API_BASE_URL}/estadisticas/usuario/${usuarioId}/progreso?desde=${desde}&hasta=${hasta}&granularidad=${granularidad}`,
+    )
+    return response.json()
+  },
+
   obtenerProgresoSemanal: async (usuarioId: number): Promise<DatoProgreso[]> => {
     const response = await handleFetch(`${API_BASE_URL}/estadisticas/usuario/${usuarioId}/progreso-semanal`)
     return response.json()
@@ -304,11 +393,20 @@ export const notificacionAPI = {
     const response = await handleFetch(`${API_BASE_URL}/notificaciones/usuario/${usuarioId}/no-leidas`)
     return response.json()
   },
-  marcarComoLeida: async (notificacionId: number, canal: string): Promise<void> => {
-    await handleFetch(`${API_BASE_URL}/notificaciones/${notificacionId}/marcar-leida`, {
+  // Contador mantenido en el servidor: no hace falta descargar el listado para saber cuántas hay
+  contarNoLeidas: async (usuarioId: number): Promise<number> => {
+    const response = await handleFetch(`${API_BASE_URL}/notificaciones/usuario/${usuarioId}/no-leidas/count`)
+    const datos: { noLeidas: number } = await response.json()
+    return datos.noLeidas
+  },
+  // Sin ids marca todas las no leídas del usuario; devuelve cuántas quedan sin leer
+  marcarLeidas: async (usuarioId: number, ids?: number[]): Promise<number> => {
+    const response = await handleFetch(`${API_BASE_URL}/notificaciones/usuario/${usuarioId}/marcar-leidas`, {
       method: "POST",
-      body: JSON.stringify({ canal }),
+      body: ids ? JSON.stringify(ids) : undefined,
     })
+    const datos: { marcadas: number; noLeidas: number } = await response.json()
+    return datos.noLeidas
   },
 
   obtenerConfiguracionNotificacion: async (usuarioId: number): Promise<ConfiguracionNotificacion> => {
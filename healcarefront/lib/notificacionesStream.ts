@@ -0,0 +1,43 @@
+import { API_BASE_URL, TOKEN_SESION } from "./api"
+
+// Un único EventSource por pestaña compartido por todos los componentes que escuchan cambios de
+// notificaciones. El navegador reconecta solo y envía Last-Event-ID; si el servidor ya no tiene
+// los eventos perdidos manda "resincronizar" y hay que volver a pedir el listado.
+type Oyente = (evento: string, datos: any) => void
+
+const EVENTOS = ["notificacion", "notificacion-eliminada", "notificaciones-leidas", "resincronizar"]
+
+let fuente: EventSource | null = null
+let usuarioFuente: number | null = null
+const oyentes = new Set<Oyente>()
+
+const abrir = (usuarioId: number) => {
+  const token = localStorage.getItem(TOKEN_SESION)
+  // EventSource no admite cabeceras: el token va en la URL
+  const url = `${API_BASE_URL}/notificaciones/stream/${usuarioId}${token ? `?token=${encodeURIComponent(token)}` : ""}`
+  fuente = new EventSource(url)
+  usuarioFuente = usuarioId
+  EVENTOS.forEach((nombre) =>
+    fuente!.addEventListener(nombre, (e) => {
+      const datos = (e as MessageEvent).data ? JSON.parse((e as MessageEvent).data) : null
+      oyentes.forEach((oyente) => oyente(nombre, datos))
+    }),
+  )
+}
+
+const cerrar = () => {
+  fuente?.close()
+  fuente = null
+  usuarioFuente = null
+}
+
+// Devuelve la función para dejar de escuchar; el stream se cierra con el último oyente
+export const suscribirNotificaciones = (usuarioId: number, oyente: Oyente) => {
+  if (fuente && usuarioFuente !== usuarioId) cerrar()
+  if (!fuente) abrir(usuarioId)
+  oyentes.add(oyente)
+  return () => {
+    oyentes.delete(oyente)
+    if (oyentes.size === 0) cerrar()
+  }
+}
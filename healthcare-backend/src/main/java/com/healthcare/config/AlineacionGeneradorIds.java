@@ -0,0 +1,47 @@
+package com.healthcare.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// Estas tablas usaban AUTO_INCREMENT: el generador por tabla debe empezar por encima del id más alto.
+// Con el optimizador "pooled" el siguiente bloque es (valor - 49 .. valor), así que valor >= MAX(id) + 50.
+// Corre con el esquema ya actualizado y antes de arrancar Tomcat, para que ningún INSERT use un id viejo.
+@Component
+@Order(1)
+@RequiredArgsConstructor
+@Slf4j
+public class AlineacionGeneradorIds implements TareaArranque {
+
+    // El nombre del generador coincide con la tabla (pkColumnValue de @TableGenerator)
+    private static final List<String> TABLAS = List.of("registros_habitos", "resumenes_diarios");
+    private static final long TAMANO_BLOQUE = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void ejecutar() {
+        TABLAS.forEach(this::alinear);
+    }
+
+    private void alinear(String tabla) {
+        Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + tabla, Long.class);
+        if (maxId == null || maxId == 0) {
+            return;
+        }
+
+        long minimo = maxId + TAMANO_BLOQUE;
+        List<Long> actual = jdbcTemplate.queryForList("SELECT valor FROM generadores_ids WHERE nombre = ?", Long.class, tabla);
+        if (actual.isEmpty()) {
+            jdbcTemplate.update("INSERT INTO generadores_ids (nombre, valor) VALUES (?, ?)", tabla, minimo);
+            log.info("Generador de ids de {} inicializado en {}", tabla, minimo);
+        } else if (actual.get(0) < minimo) {
+            jdbcTemplate.update("UPDATE generadores_ids SET valor = ? WHERE nombre = ? AND valor < ?", minimo, tabla, minimo);
+            log.info("Generador de ids de {} adelantado de {} a {}", tabla, actual.get(0), minimo);
+        }
+    }
+}
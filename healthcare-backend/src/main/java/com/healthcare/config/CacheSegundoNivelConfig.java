@@ -0,0 +1,61 @@
+package com.healthcare.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import com.healthcare.model.Habito;
+import com.healthcare.model.Usuario;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+import java.net.URI;
+import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+// Regiones de la caché de segundo nivel con tamaño acotado. Hibernate falla al arrancar si
+// una entidad o consulta cacheable usa una región que no esté declarada aquí.
+@Configuration
+public class CacheSegundoNivelConfig {
+
+    public static final String REGION_CONSULTAS = "default-query-results-region";
+    static final String REGION_MARCAS_TIEMPO = "default-update-timestamps-region";
+
+    @Bean(destroyMethod = "close")
+    public CacheManager cacheManagerSegundoNivel(@Value("${healthcare.cache.entidades.usuarios.tamano-maximo:10000}") long usuarios,
+                                                 @Value("${healthcare.cache.entidades.habitos.tamano-maximo:50000}") long habitos,
+                                                 @Value("${healthcare.cache.entidades.consultas.tamano-maximo:20000}") long consultas,
+                                                 @Value("${healthcare.cache.entidades.ttl:1h}") Duration ttl) {
+        // Un gestor propio por contexto: el de por defecto es compartido por todo el classloader
+        CachingProvider proveedor = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+        CacheManager cacheManager = proveedor.getCacheManager(
+                URI.create("healthcare:segundo-nivel:" + UUID.randomUUID()), getClass().getClassLoader());
+        cacheManager.createCache(Usuario.class.getName(), region(usuarios, ttl));
+        cacheManager.createCache(Habito.class.getName(), region(habitos, ttl));
+        cacheManager.createCache(REGION_CONSULTAS, region(consultas, ttl));
+        // Sin límite ni caducidad: una marca perdida dejaría servir resultados de consultas obsoletos
+        cacheManager.createCache(REGION_MARCAS_TIEMPO, new CaffeineConfiguration<>().setStatisticsEnabled(true));
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer cacheSegundoNivelCustomizer(CacheManager cacheManagerSegundoNivel) {
+        return propiedades -> {
+            propiedades.put(ConfigSettings.CACHE_MANAGER, cacheManagerSegundoNivel);
+            propiedades.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+        };
+    }
+
+    private static CaffeineConfiguration<Object, Object> region(long tamanoMaximo, Duration ttl) {
+        CaffeineConfiguration<Object, Object> configuracion = new CaffeineConfiguration<>();
+        configuracion.setMaximumSize(OptionalLong.of(tamanoMaximo));
+        configuracion.setExpireAfterWrite(OptionalLong.of(ttl.toNanos()));
+        configuracion.setStatisticsEnabled(true);
+        return configuracion;
+    }
+}
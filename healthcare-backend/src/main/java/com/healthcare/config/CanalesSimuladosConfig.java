@@ -0,0 +1,71 @@
+package com.healthcare.config;
+
+import com.healthcare.model.ConfiguracionNotificacion;
+import com.healthcare.service.CanalNotificacion;
+import com.healthcare.service.CanalSimulado;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Optional;
+
+// Canales locales mientras no haya integración con FCM/APNs, Alexa, correo ni SMS. Un proveedor
+// real se añade como otro bean CanalNotificacion con el mismo nombre y simulados=false
+@Configuration
+@ConditionalOnProperty(name = "healthcare.notificaciones.canales.simulados", havingValue = "true", matchIfMissing = true)
+public class CanalesSimuladosConfig {
+
+    @Bean
+    public CanalNotificacion canalPush(@Value("${healthcare.notificaciones.canales.push.latencia-ms:80}") long latenciaMs,
+                                       @Value("${healthcare.notificaciones.canales.push.probabilidad-fallo:0.01}") double fallo,
+                                       @Value("${healthcare.notificaciones.canales.push.probabilidad-invalido:0.005}") double invalido) {
+        return new CanalSimulado("push", configuracion -> {
+            if (!Boolean.TRUE.equals(configuracion.getPushHabilitado())) {
+                return Optional.empty();
+            }
+            if (tieneValor(configuracion.getFcmToken())) {
+                return Optional.of("fcm:" + configuracion.getFcmToken());
+            }
+            if (tieneValor(configuracion.getApnsToken())) {
+                return Optional.of("apns:" + configuracion.getApnsToken());
+            }
+            return Optional.empty();
+        }, latenciaMs, fallo, invalido);
+    }
+
+    @Bean
+    public CanalNotificacion canalAlexa(@Value("${healthcare.notificaciones.canales.alexa.latencia-ms:300}") long latenciaMs,
+                                        @Value("${healthcare.notificaciones.canales.alexa.probabilidad-fallo:0.02}") double fallo,
+                                        @Value("${healthcare.notificaciones.canales.alexa.probabilidad-invalido:0.0}") double invalido) {
+        return new CanalSimulado("alexa", configuracion ->
+                Boolean.TRUE.equals(configuracion.getAlexaHabilitado()) && tieneValor(configuracion.getAlexaDeviceId())
+                        ? Optional.of(configuracion.getAlexaDeviceId()) : Optional.empty(),
+                latenciaMs, fallo, invalido);
+    }
+
+    @Bean
+    public CanalNotificacion canalEmail(@Value("${healthcare.notificaciones.canales.email.latencia-ms:150}") long latenciaMs,
+                                        @Value("${healthcare.notificaciones.canales.email.probabilidad-fallo:0.01}") double fallo,
+                                        @Value("${healthcare.notificaciones.canales.email.probabilidad-invalido:0.0}") double invalido) {
+        return new CanalSimulado("email", configuracion ->
+                Boolean.TRUE.equals(configuracion.getEmailHabilitado()) && configuracion.getUsuario() != null
+                        && tieneValor(configuracion.getUsuario().getEmail())
+                        ? Optional.of(configuracion.getUsuario().getEmail()) : Optional.empty(),
+                latenciaMs, fallo, invalido);
+    }
+
+    @Bean
+    public CanalNotificacion canalSms(@Value("${healthcare.notificaciones.canales.sms.latencia-ms:500}") long latenciaMs,
+                                      @Value("${healthcare.notificaciones.canales.sms.probabilidad-fallo:0.05}") double fallo,
+                                      @Value("${healthcare.notificaciones.canales.sms.probabilidad-invalido:0.01}") double invalido) {
+        return new CanalSimulado("sms", configuracion ->
+                Boolean.TRUE.equals(configuracion.getSmsHabilitado()) && tieneValor(configuracion.getTelefono())
+                        ? Optional.of(configuracion.getTelefono()) : Optional.empty(),
+                latenciaMs, fallo, invalido);
+    }
+
+    private static boolean tieneValor(String valor) {
+        return valor != null && !valor.isBlank();
+    }
+}
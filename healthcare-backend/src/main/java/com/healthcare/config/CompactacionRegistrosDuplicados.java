@@ -0,0 +1,140 @@
+package com.healthcare.config;
+
+import com.healthcare.event.RegistrosHabitoLoteEvent;
+import com.healthcare.model.RegistroHabito;
+import com.healthcare.repository.RegistroHabitoRepository;
+import com.healthcare.service.RachaService;
+import com.healthcare.service.ResumenDiarioService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Fusiona los registros repetidos por (habito_id, fecha) y crea uk_registro_habito_fecha.
+// ddl-auto=update no puede crear la restricción mientras haya duplicados, así que se ejecuta
+// automáticamente si falta, o a mano con: java -jar healthcare-backend.jar --compactar-registros.
+// Termina antes de arrancar Tomcat: sin la restricción, los INSERT ... ON DUPLICATE KEY UPDATE de
+// upsert e incrementar crearían filas repetidas en lugar de actualizar la existente
+@Component
+@Order(3)
+@Slf4j
+public class CompactacionRegistrosDuplicados implements TareaArranque {
+
+    private final RegistroHabitoRepository registroHabitoRepository;
+    private final RachaService rachaService;
+    private final ResumenDiarioService resumenDiarioService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaccion;
+    private final ApplicationArguments argumentos;
+
+    public CompactacionRegistrosDuplicados(RegistroHabitoRepository registroHabitoRepository,
+                                           RachaService rachaService,
+                                           ResumenDiarioService resumenDiarioService,
+                                           ApplicationEventPublisher eventPublisher,
+                                           JdbcTemplate jdbcTemplate,
+                                           PlatformTransactionManager transactionManager,
+                                           ApplicationArguments argumentos) {
+        this.registroHabitoRepository = registroHabitoRepository;
+        this.rachaService = rachaService;
+        this.resumenDiarioService = resumenDiarioService;
+        this.eventPublisher = eventPublisher;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transaccion = new TransactionTemplate(transactionManager);
+        this.argumentos = argumentos;
+    }
+
+    @Override
+    public void ejecutar() {
+        boolean existeRestriccion = existeRestriccionUnica();
+        if (existeRestriccion && !argumentos.containsOption("compactar-registros")) {
+            return;
+        }
+
+        List<Object[]> claves = registroHabitoRepository.findClavesDuplicadas();
+        log.info("Compactando {} grupos de registros duplicados", claves.size());
+
+        // Una transacción corta por grupo (hábito, día)
+        Map<Long, Set<LocalDate>> diasPorUsuario = new HashMap<>();
+        int fusionados = 0;
+        for (Object[] clave : claves) {
+            Long habitoId = (Long) clave[0];
+            LocalDate fecha = (LocalDate) clave[1];
+            RegistroHabito conservado = transaccion.execute(status -> fusionar(habitoId, fecha));
+            if (conservado != null) {
+                diasPorUsuario.computeIfAbsent(conservado.getUsuarioId(), u -> new HashSet<>()).add(fecha);
+                fusionados++;
+            }
+        }
+
+        // Índices derivados y cachés una vez por usuario afectado
+        diasPorUsuario.forEach((usuarioId, fechas) -> transaccion.executeWithoutResult(status -> {
+            rachaService.actualizarDias(usuarioId, fechas);
+            resumenDiarioService.actualizarDias(usuarioId, fechas);
+            eventPublisher.publishEvent(new RegistrosHabitoLoteEvent(usuarioId, fechas));
+        }));
+        log.info("Compactación terminada: {} grupos fusionados en {} usuarios", fusionados, diasPorUsuario.size());
+
+        if (!existeRestriccion) {
+            jdbcTemplate.execute("ALTER TABLE registros_habitos ADD CONSTRAINT " + RegistroHabito.UK_HABITO_FECHA
+                    + " UNIQUE (habito_id, fecha)");
+            log.info("Restricción {} creada", RegistroHabito.UK_HABITO_FECHA);
+        }
+    }
+
+    // Conserva la fila más reciente y le incorpora lo que aportan las demás
+    private RegistroHabito fusionar(Long habitoId, LocalDate fecha) {
+        List<RegistroHabito> grupo = registroHabitoRepository.findByHabitoIdAndFechaOrderByIdDesc(habitoId, fecha);
+        if (grupo.size() < 2) {
+            return null;
+        }
+
+        RegistroHabito conservado = grupo.get(0);
+        for (RegistroHabito duplicado : grupo.subList(1, grupo.size())) {
+            if (Boolean.TRUE.equals(duplicado.getCompletado())) {
+                conservado.setCompletado(true);
+            }
+            if (duplicado.getValor() != null && (conservado.getValor() == null || duplicado.getValor() > conservado.getValor())) {
+                conservado.setValor(duplicado.getValor());
+            }
+            if (conservado.getNotas() == null || conservado.getNotas().isBlank()) {
+                conservado.setNotas(duplicado.getNotas());
+            }
+        }
+        registroHabitoRepository.deleteAll(grupo.subList(1, grupo.size()));
+        return conservado;
+    }
+
+    private boolean existeRestriccionUnica() {
+        Boolean existe = jdbcTemplate.execute((ConnectionCallback<Boolean>) conexion -> {
+            DatabaseMetaData metadatos = conexion.getMetaData();
+            // H2 guarda los nombres en mayúsculas y MySQL tal cual
+            for (String tabla : List.of("registros_habitos", "REGISTROS_HABITOS")) {
+                try (ResultSet indices = metadatos.getIndexInfo(conexion.getCatalog(), null, tabla, true, false)) {
+                    while (indices.next()) {
+                        String nombre = indices.getString("INDEX_NAME");
+                        if (nombre != null && nombre.toLowerCase().startsWith(RegistroHabito.UK_HABITO_FECHA)) {
+                            return true;
+                        }
+                    }
+                }
+            }
+            return false;
+        });
+        return Boolean.TRUE.equals(existe);
+    }
+}
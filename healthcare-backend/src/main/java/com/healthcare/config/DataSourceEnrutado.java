@@ -0,0 +1,108 @@
+package com.healthcare.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Envía las transacciones de solo lectura a las réplicas (turno rotatorio) y el resto al primario.
+// Una réplica que falla al dar conexión queda fuera durante el tiempo de reintento; si no queda
+// ninguna disponible se lee del primario. Debe usarse detrás de LazyConnectionDataSourceProxy
+// para que el modo de la transacción se conozca antes de pedir la conexión.
+@Slf4j
+public class DataSourceEnrutado extends AbstractDataSource implements AutoCloseable {
+
+    private static final class Replica {
+        private final HikariDataSource dataSource;
+        private final Counter conexiones;
+        private volatile long caidaHasta;
+
+        private Replica(HikariDataSource dataSource, Counter conexiones) {
+            this.dataSource = dataSource;
+            this.conexiones = conexiones;
+        }
+    }
+
+    private final HikariDataSource primario;
+    private final List<Replica> replicas;
+    private final EscriturasRecientes escriturasRecientes;
+    private final long reintentoMs;
+    private final AtomicInteger turno = new AtomicInteger();
+    private final Counter conexionesPrimario;
+    private final Counter lecturasEnPrimario;
+
+    public DataSourceEnrutado(HikariDataSource primario, List<HikariDataSource> replicas,
+                              EscriturasRecientes escriturasRecientes, Duration reintento, MeterRegistry meterRegistry) {
+        this.primario = primario;
+        this.replicas = replicas.stream()
+                .map(replica -> new Replica(replica, Counter.builder("healthcare.datasource.conexiones")
+                        .tag("destino", replica.getPoolName())
+                        .register(meterRegistry)))
+                .toList();
+        this.escriturasRecientes = escriturasRecientes;
+        this.reintentoMs = reintento.toMillis();
+        this.conexionesPrimario = Counter.builder("healthcare.datasource.conexiones")
+                .tag("destino", primario.getPoolName())
+                .register(meterRegistry);
+        this.lecturasEnPrimario = Counter.builder("healthcare.datasource.lecturas.primario")
+                .description("Lecturas enviadas al primario por escritura reciente o réplicas caídas")
+                .register(meterRegistry);
+        meterRegistry.gauge("healthcare.datasource.replicas.disponibles", this, DataSourceEnrutado::replicasDisponibles);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            conexionesPrimario.increment();
+            return primario.getConnection();
+        }
+
+        if (!escriturasRecientes.leerDelPrimario()) {
+            long ahora = System.currentTimeMillis();
+            int inicio = Math.floorMod(turno.getAndIncrement(), replicas.size());
+            for (int i = 0; i < replicas.size(); i++) {
+                Replica replica = replicas.get((inicio + i) % replicas.size());
+                if (replica.caidaHasta > ahora) {
+                    continue;
+                }
+                try {
+                    Connection conexion = replica.dataSource.getConnection();
+                    replica.conexiones.increment();
+                    return conexion;
+                } catch (SQLException e) {
+                    replica.caidaHasta = ahora + reintentoMs;
+                    log.warn("Réplica {} no disponible, se reintentará en {} ms: {}",
+                            replica.dataSource.getPoolName(), reintentoMs, e.getMessage());
+                }
+            }
+        }
+
+        lecturasEnPrimario.increment();
+        conexionesPrimario.increment();
+        return primario.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return primario.getConnection(username, password);
+    }
+
+    private double replicasDisponibles() {
+        long ahora = System.currentTimeMillis();
+        return replicas.stream().filter(replica -> replica.caidaHasta <= ahora).count();
+    }
+
+    @Override
+    public void close() {
+        replicas.forEach(replica -> replica.dataSource.close());
+        primario.close();
+    }
+}
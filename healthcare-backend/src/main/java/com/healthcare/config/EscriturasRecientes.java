@@ -0,0 +1,91 @@
+package com.healthcare.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.healthcare.event.HabitoModificadoEvent;
+import com.healthcare.event.NoLeidasModificadasEvent;
+import com.healthcare.event.NotificacionModificadaEvent;
+import com.healthcare.event.NotificacionesLeidasEvent;
+import com.healthcare.event.RegistroHabitoModificadoEvent;
+import com.healthcare.event.RegistrosHabitoLoteEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+
+// Protección frente al retraso de las réplicas: durante una ventana corta tras escribir,
+// las lecturas de ese usuario van al primario para que vea sus propios cambios.
+// El usuario de la petición en curso lo fija UsuarioPeticionInterceptor.
+@Component
+@ConditionalOnProperty(name = "healthcare.datasource.replicas")
+public class EscriturasRecientes {
+
+    private static final ThreadLocal<Long> USUARIO_PETICION = new ThreadLocal<>();
+
+    private final Cache<Long, Boolean> usuarios;
+
+    public EscriturasRecientes(@Value("${healthcare.datasource.ventana-lectura-primario:5s}") Duration ventana,
+                               @Value("${healthcare.datasource.max-usuarios-ventana:100000}") long maxUsuarios) {
+        this.usuarios = Caffeine.newBuilder()
+                .expireAfterWrite(ventana)
+                .maximumSize(maxUsuarios)
+                .build();
+    }
+
+    public void fijarUsuarioPeticion(Long usuarioId) {
+        USUARIO_PETICION.set(usuarioId);
+    }
+
+    public Long usuarioPeticion() {
+        return USUARIO_PETICION.get();
+    }
+
+    public void limpiarUsuarioPeticion() {
+        USUARIO_PETICION.remove();
+    }
+
+    public void registrar(Long usuarioId) {
+        if (usuarioId != null) {
+            usuarios.put(usuarioId, Boolean.TRUE);
+        }
+    }
+
+    // true si la petición en curso es de un usuario que ha escrito dentro de la ventana
+    public boolean leerDelPrimario() {
+        Long usuarioId = USUARIO_PETICION.get();
+        return usuarioId != null && usuarios.getIfPresent(usuarioId) != null;
+    }
+
+    // La ventana empieza al confirmar la transacción, que es cuando el cambio llega al binlog
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alModificarRegistro(RegistroHabitoModificadoEvent evento) {
+        registrar(evento.usuarioId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alCrearLote(RegistrosHabitoLoteEvent evento) {
+        registrar(evento.usuarioId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alModificarHabito(HabitoModificadoEvent evento) {
+        registrar(evento.usuarioId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alModificarNotificacion(NotificacionModificadaEvent evento) {
+        registrar(evento.usuarioId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alMarcarLeidas(NotificacionesLeidasEvent evento) {
+        registrar(evento.usuarioId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alModificarNoLeidas(NoLeidasModificadasEvent evento) {
+        registrar(evento.usuarioId());
+    }
+}
@@ -0,0 +1,52 @@
+package com.healthcare.config;
+
+import com.healthcare.repository.RegistroHabitoRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Rellena registros_habitos.usuario_id en las filas anteriores a la columna. Corre al terminar de
+// crear los beans (el esquema ya está actualizado) y antes de arrancar Tomcat: las lecturas que
+// filtran por usuario_id no deben ver filas sin rellenar, así que el arranque espera a que acabe.
+@Component
+@Order(2)
+@Slf4j
+public class MigracionUsuarioIdRegistros implements TareaArranque {
+
+    private final RegistroHabitoRepository registroHabitoRepository;
+    private final TransactionTemplate transaccion;
+    private final long tamanoLote;
+
+    public MigracionUsuarioIdRegistros(RegistroHabitoRepository registroHabitoRepository,
+                                       PlatformTransactionManager transactionManager,
+                                       @Value("${healthcare.migracion.tamano-lote:5000}") long tamanoLote) {
+        this.registroHabitoRepository = registroHabitoRepository;
+        this.transaccion = new TransactionTemplate(transactionManager);
+        this.tamanoLote = tamanoLote;
+    }
+
+    @Override
+    public void ejecutar() {
+        if (!registroHabitoRepository.existsByUsuarioIdIsNull()) {
+            return;
+        }
+
+        Long minId = registroHabitoRepository.findMinIdSinUsuario();
+        Long maxId = registroHabitoRepository.findMaxIdSinUsuario();
+        log.info("Rellenando usuario_id en registros_habitos (ids {} a {}, lotes de {})", minId, maxId, tamanoLote);
+
+        // Una transacción corta por tramo de ids: nunca se bloquea la tabla entera
+        long actualizados = 0;
+        for (long inicio = minId; inicio <= maxId; inicio += tamanoLote) {
+            long desde = inicio;
+            long hasta = inicio + tamanoLote - 1;
+            Integer filas = transaccion.execute(status -> registroHabitoRepository.rellenarUsuarioId(desde, hasta));
+            actualizados += filas != null ? filas : 0;
+        }
+
+        log.info("usuario_id rellenado en {} registros", actualizados);
+    }
+}
@@ -0,0 +1,79 @@
+package com.healthcare.config;
+
+import com.healthcare.model.CheckpointTrabajo;
+import com.healthcare.model.CheckpointTrabajo.EstadoTrabajo;
+import com.healthcare.repository.CheckpointTrabajoRepository;
+import com.healthcare.repository.UsuarioRepository;
+import com.healthcare.service.RachaService;
+import com.healthcare.service.ResumenDiarioService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Uso: java -jar healthcare-backend.jar --reconstruir-rachas --reconstruir-resumenes
+// El rellenado inicial de resumenes_diarios corre solo hasta que su checkpoint queda COMPLETADO;
+// si el proceso muere a mitad, el siguiente arranque sigue desde el último usuario terminado.
+// Termina antes de arrancar Tomcat: el progreso semanal y mensual lee de esa tabla
+@Component
+@Order(4)
+@RequiredArgsConstructor
+@Slf4j
+public class ReconstruccionIndicesRunner implements TareaArranque {
+
+    static final String NOMBRE_RESUMENES = "reconstruccion-resumenes";
+
+    private final UsuarioRepository usuarioRepository;
+    private final CheckpointTrabajoRepository checkpointRepository;
+    private final RachaService rachaService;
+    private final ResumenDiarioService resumenDiarioService;
+    private final ApplicationArguments argumentos;
+
+    @Override
+    public void ejecutar() {
+        boolean rachas = argumentos.containsOption("reconstruir-rachas");
+
+        CheckpointTrabajo checkpoint = checkpointRepository.findById(NOMBRE_RESUMENES).orElse(null);
+        boolean pendiente = checkpoint == null || checkpoint.getEstado() != EstadoTrabajo.COMPLETADO;
+        boolean resumenes = argumentos.containsOption("reconstruir-resumenes") || pendiente;
+
+        if (!rachas && !resumenes) {
+            return;
+        }
+
+        // Un rellenado interrumpido se reanuda; uno nuevo o pedido a mano empieza desde el principio
+        if (resumenes && (checkpoint == null || !pendiente)) {
+            checkpoint = checkpointRepository.save(new CheckpointTrabajo(NOMBRE_RESUMENES, LocalDate.now(), 0L,
+                    EstadoTrabajo.EN_CURSO, 0L, 0L, LocalDateTime.now(), null));
+        }
+        long resumenesDesde = resumenes ? checkpoint.getUltimoUsuarioId() : Long.MAX_VALUE;
+
+        List<Long> usuarioIds = usuarioRepository.findAllIds();
+        log.info("Reconstruyendo índices para {} usuarios (rachas: {}, resúmenes desde el usuario: {})",
+                usuarioIds.size(), rachas, resumenes ? resumenesDesde : "-");
+
+        // Una transacción por usuario para no bloquear toda la tabla
+        for (Long usuarioId : usuarioIds) {
+            if (rachas) {
+                rachaService.reconstruir(usuarioId);
+            }
+            if (resumenes && usuarioId > resumenesDesde) {
+                resumenDiarioService.reconstruir(usuarioId);
+                checkpoint.setUltimoUsuarioId(usuarioId);
+                checkpoint.setProcesados(checkpoint.getProcesados() + 1);
+                checkpoint = checkpointRepository.save(checkpoint);
+            }
+        }
+
+        if (resumenes) {
+            checkpoint.setEstado(EstadoTrabajo.COMPLETADO);
+            checkpointRepository.save(checkpoint);
+        }
+        log.info("Índices reconstruidos");
+    }
+}
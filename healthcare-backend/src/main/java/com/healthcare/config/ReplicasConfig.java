@@ -0,0 +1,71 @@
+package com.healthcare.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+// Solo se activa con healthcare.datasource.replicas=<url>[,<url>...]; sin réplicas Spring Boot
+// crea el DataSource habitual. Las réplicas usan el mismo usuario, contraseña y driver que el primario.
+@Configuration
+@ConditionalOnProperty(name = "healthcare.datasource.replicas")
+public class ReplicasConfig implements WebMvcConfigurer {
+
+    private final EscriturasRecientes escriturasRecientes;
+
+    public ReplicasConfig(EscriturasRecientes escriturasRecientes) {
+        this.escriturasRecientes = escriturasRecientes;
+    }
+
+    @Bean
+    public DataSourceEnrutado dataSourceEnrutado(DataSourceProperties propiedades,
+                                                 MeterRegistry meterRegistry,
+                                                 @Value("${healthcare.datasource.replicas}") List<String> urls,
+                                                 @Value("${healthcare.datasource.timeout-conexion-replica:2s}") Duration timeoutReplica,
+                                                 @Value("${healthcare.datasource.reintento-replica:30s}") Duration reintento) {
+        MicrometerMetricsTrackerFactory metricas = new MicrometerMetricsTrackerFactory(meterRegistry);
+
+        HikariDataSource primario = propiedades.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primario.setPoolName("primario");
+        primario.setMetricsTrackerFactory(metricas);
+
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (String url : urls) {
+            HikariDataSource replica = propiedades.initializeDataSourceBuilder().type(HikariDataSource.class).url(url).build();
+            replica.setPoolName("replica-" + (replicas.size() + 1));
+            replica.setReadOnly(true);
+            // Una réplica caída no debe bloquear las lecturas ni impedir el arranque
+            replica.setConnectionTimeout(timeoutReplica.toMillis());
+            replica.setInitializationFailTimeout(-1);
+            replica.setMetricsTrackerFactory(metricas);
+            replicas.add(replica);
+        }
+
+        return new DataSourceEnrutado(primario, replicas, escriturasRecientes, reintento, meterRegistry);
+    }
+
+    // La conexión real se pide en la primera sentencia, cuando ya se sabe si la transacción es de solo lectura
+    @Bean
+    @Primary
+    public DataSource dataSource(DataSourceEnrutado dataSourceEnrutado) {
+        return new LazyConnectionDataSourceProxy(dataSourceEnrutado);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new UsuarioPeticionInterceptor(escriturasRecientes));
+    }
+}
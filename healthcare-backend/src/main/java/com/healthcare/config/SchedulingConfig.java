@@ -1,12 +1,43 @@
 package com.healthcare.config;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
 
 @Configuration
 @EnableScheduling
 @EnableAsync
 public class SchedulingConfig {
 
+    // Ejecutor acotado del precálculo nocturno: cola limitada y, si se llena, el hilo que encola espera
+    @Bean
+    public ThreadPoolTaskExecutor precalculoExecutor(@Value("${healthcare.precalculo.hilos:4}") int hilos,
+                                                     @Value("${healthcare.precalculo.capacidad-cola:100}") int capacidadCola) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(hilos);
+        executor.setMaxPoolSize(hilos);
+        executor.setQueueCapacity(capacidadCola);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setThreadNamePrefix("precalculo-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    // Hilo propio para lanzar el precálculo fuera del commonPool. Sin cola: mientras hay una ejecución
+    // en curso cualquier otro lanzamiento se rechaza en lugar de esperar
+    @Bean
+    public ThreadPoolTaskExecutor precalculoLanzador() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("precalculo-lanzador-");
+        return executor;
+    }
 }
@@ -0,0 +1,91 @@
+package com.healthcare.config;
+
+import com.healthcare.service.DirectorioUsuarios;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.util.Optional;
+
+// Resuelve el usuario de la petición una sola vez a partir de "Authorization: Bearer <token>"
+// (?token= en los streams SSE). Sin token, o con uno inválido o de un usuario eliminado, la
+// petición sigue como anónima salvo con healthcare.sesion.requerida=true: en ese modo se rechaza
+// con 401 y solo se puede acceder a las rutas del propio usuario ({usuarioId}, o {id} bajo /usuarios).
+@RequiredArgsConstructor
+public class SesionInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String PREFIJO = "Bearer ";
+
+    private final TokenSesion tokenSesion;
+    private final DirectorioUsuarios directorioUsuarios;
+    private final boolean requerida;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (HttpMethod.OPTIONS.matches(request.getMethod())) {
+            return true;
+        }
+
+        String token = tokenDeLaPeticion(request);
+        if (token == null) {
+            if (requerida && !esPublica(request)) {
+                response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+                return false;
+            }
+            return true;
+        }
+
+        Optional<Long> usuarioId = tokenSesion.validar(token)
+                .filter(directorioUsuarios::existe);
+        if (usuarioId.isEmpty()) {
+            // Un token caducado no debe impedir volver a iniciar sesión
+            if (!requerida || esPublica(request)) {
+                return true;
+            }
+            response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+            return false;
+        }
+        Long usuarioRuta = UsuarioPeticionInterceptor.usuarioDeLaRuta(request);
+        if (requerida && usuarioRuta != null && !usuarioRuta.equals(usuarioId.get())) {
+            response.setStatus(HttpServletResponse.SC_FORBIDDEN);
+            return false;
+        }
+
+        directorioUsuarios.fijarUsuarioAutenticado(usuarioId.get());
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        directorioUsuarios.limpiarUsuarioAutenticado();
+    }
+
+    // Las respuestas NDJSON siguen en otro hilo; el de la petición queda libre
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        directorioUsuarios.limpiarUsuarioAutenticado();
+    }
+
+    // EventSource no permite cabeceras propias: los streams SSE pueden pasar el token como ?token=
+    private static String tokenDeLaPeticion(HttpServletRequest request) {
+        String cabecera = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (cabecera != null && cabecera.startsWith(PREFIJO)) {
+            return cabecera.substring(PREFIJO.length()).trim();
+        }
+        String aceptados = request.getHeader(HttpHeaders.ACCEPT);
+        if (aceptados != null && aceptados.contains(MediaType.TEXT_EVENT_STREAM_VALUE)) {
+            return request.getParameter("token");
+        }
+        return null;
+    }
+
+    // Alta de usuario y login
+    private static boolean esPublica(HttpServletRequest request) {
+        String ruta = request.getServletPath();
+        return HttpMethod.POST.matches(request.getMethod()) && (ruta.equals("/usuarios") || ruta.equals("/usuarios/login"));
+    }
+}
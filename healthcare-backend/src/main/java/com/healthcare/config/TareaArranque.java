@@ -0,0 +1,8 @@
+package com.healthcare.config;
+
+// Preparación de datos que debe terminar antes de que el servidor acepte peticiones.
+// TareasArranque las ejecuta en el orden de @Order
+public interface TareaArranque {
+
+    void ejecutar();
+}
@@ -0,0 +1,23 @@
+package com.healthcare.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// Corre al terminar de crear los beans (el esquema ya está actualizado) y antes de arrancar Tomcat.
+// Las tareas dependen unas de otras (ids alineados, usuario_id relleno, restricción única creada),
+// y el orden de SmartInitializingSingleton entre beans no está garantizado: se ejecutan aquí en secuencia
+@Component
+@RequiredArgsConstructor
+public class TareasArranque implements SmartInitializingSingleton {
+
+    // Spring inyecta la lista ordenada por @Order
+    private final List<TareaArranque> tareas;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        tareas.forEach(TareaArranque::ejecutar);
+    }
+}
@@ -0,0 +1,84 @@
+package com.healthcare.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Optional;
+
+// Token de sesión sin estado: "<usuarioId>.<expiración en segundos>.<HMAC-SHA256>".
+// Validarlo no consulta la base de datos; todas las instancias deben compartir el secreto.
+@Component
+@Slf4j
+public class TokenSesion {
+
+    private static final String ALGORITMO = "HmacSHA256";
+
+    private final SecretKeySpec clave;
+    private final Duration duracion;
+
+    public TokenSesion(@Value("${healthcare.sesion.secreto:}") String secreto,
+                       @Value("${healthcare.sesion.duracion:12h}") Duration duracion,
+                       @Value("${healthcare.sesion.requerida:false}") boolean requerida) {
+        byte[] bytes;
+        if (secreto == null || secreto.isBlank()) {
+            // Con un secreto aleatorio cada reinicio o instancia invalidaría todas las sesiones
+            if (requerida) {
+                throw new IllegalStateException("healthcare.sesion.requerida=true exige configurar healthcare.sesion.secreto");
+            }
+            log.warn("healthcare.sesion.secreto no configurado: se usa uno aleatorio y los tokens no sobreviven a un reinicio");
+            bytes = new byte[32];
+            new SecureRandom().nextBytes(bytes);
+        } else {
+            bytes = secreto.getBytes(StandardCharsets.UTF_8);
+        }
+        this.clave = new SecretKeySpec(bytes, ALGORITMO);
+        this.duracion = duracion;
+    }
+
+    public String emitir(Long usuarioId) {
+        String contenido = usuarioId + "." + Instant.now().plus(duracion).getEpochSecond();
+        return contenido + "." + Base64.getUrlEncoder().withoutPadding().encodeToString(firmar(contenido));
+    }
+
+    // Vacío si el token está mal formado, la firma no coincide o ha caducado
+    public Optional<Long> validar(String token) {
+        int separador = token != null ? token.lastIndexOf('.') : -1;
+        if (separador <= 0) {
+            return Optional.empty();
+        }
+        String contenido = token.substring(0, separador);
+        try {
+            byte[] firma = Base64.getUrlDecoder().decode(token.substring(separador + 1));
+            if (!MessageDigest.isEqual(firma, firmar(contenido))) {
+                return Optional.empty();
+            }
+            String[] partes = contenido.split("\\.");
+            if (partes.length != 2 || Long.parseLong(partes[1]) < Instant.now().getEpochSecond()) {
+                return Optional.empty();
+            }
+            return Optional.of(Long.valueOf(partes[0]));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    private byte[] firmar(String contenido) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITMO);
+            mac.init(clave);
+            return mac.doFinal(contenido.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("No se pudo firmar el token de sesión", e);
+        }
+    }
+}
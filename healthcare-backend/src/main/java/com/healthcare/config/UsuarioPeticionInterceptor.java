@@ -0,0 +1,49 @@
+package com.healthcare.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Map;
+
+// Extrae el usuario de la ruta ({usuarioId}, o {id} bajo /usuarios) para EscriturasRecientes
+@RequiredArgsConstructor
+public class UsuarioPeticionInterceptor implements HandlerInterceptor {
+
+    private final EscriturasRecientes escriturasRecientes;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        escriturasRecientes.fijarUsuarioPeticion(usuarioDeLaRuta(request));
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        // Escrituras sobre el propio usuario (p. ej. PUT /usuarios/{id}), que no publican eventos
+        if (!HttpMethod.GET.matches(request.getMethod()) && response.getStatus() < 400) {
+            escriturasRecientes.registrar(escriturasRecientes.usuarioPeticion());
+        }
+        escriturasRecientes.limpiarUsuarioPeticion();
+    }
+
+    @SuppressWarnings("unchecked")
+    static Long usuarioDeLaRuta(HttpServletRequest request) {
+        Map<String, String> variables = (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        if (variables == null) {
+            return null;
+        }
+        String valor = variables.get("usuarioId");
+        if (valor == null && request.getServletPath().startsWith("/usuarios/")) {
+            valor = variables.get("id");
+        }
+        try {
+            return valor != null ? Long.valueOf(valor) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -2,13 +2,45 @@ package com.healthcare.config;
 
 
 
+import com.healthcare.controller.Paginacion;
+import com.healthcare.controller.UsuarioController;
+import com.healthcare.service.DirectorioUsuarios;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewInterceptor;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
 public class WebConfig {
+    @Bean
+    public WebMvcConfigurer sesionConfigurer(TokenSesion tokenSesion, DirectorioUsuarios directorioUsuarios,
+                                             @Value("${healthcare.sesion.requerida:false}") boolean requerida) {
+        return new WebMvcConfigurer() {
+            @Override
+            public void addInterceptors(InterceptorRegistry registry) {
+                registry.addInterceptor(new SesionInterceptor(tokenSesion, directorioUsuarios, requerida));
+            }
+        };
+    }
+
+    // Sustituye al open-in-view de Spring Boot (spring.jpa.open-in-view=false) para excluir los
+    // streams SSE: su EntityManager, y con él la conexión, seguiría abierto lo que dure el stream
+    @Bean
+    public WebMvcConfigurer entityManagerEnVistaConfigurer(EntityManagerFactory entityManagerFactory) {
+        OpenEntityManagerInViewInterceptor interceptor = new OpenEntityManagerInViewInterceptor();
+        interceptor.setEntityManagerFactory(entityManagerFactory);
+        return new WebMvcConfigurer() {
+            @Override
+            public void addInterceptors(InterceptorRegistry registry) {
+                registry.addWebRequestInterceptor(interceptor).excludePathPatterns("/notificaciones/stream/**");
+            }
+        };
+    }
+
     @Bean
     public WebMvcConfigurer corsConfigurer() {
         return new WebMvcConfigurer() {
@@ -18,6 +50,7 @@ public class WebConfig {
                         .allowedOrigins("http://localhost:3000")
                         .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS")
                         .allowedHeaders("*")
+                        .exposedHeaders(Paginacion.CABECERA_CURSOR, UsuarioController.CABECERA_TOKEN)
                         .allowCredentials(false);
             }
         };
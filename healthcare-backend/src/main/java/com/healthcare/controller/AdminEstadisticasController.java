@@ -0,0 +1,72 @@
+package com.healthcare.controller;
+
+import com.healthcare.model.ResumenPoblacion;
+import com.healthcare.model.ResumenPoblacion.TipoResumen;
+import com.healthcare.service.AnaliticaPoblacionService;
+import com.healthcare.service.ArchivoRegistrosJob;
+import com.healthcare.service.PrecalculoEstadisticasJob;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/admin/estadisticas")
+@RequiredArgsConstructor
+@Slf4j
+@CrossOrigin(origins = "*")
+public class AdminEstadisticasController {
+
+    private final AnaliticaPoblacionService analiticaPoblacionService;
+    private final PrecalculoEstadisticasJob precalculoEstadisticasJob;
+    private final ArchivoRegistrosJob archivoRegistrosJob;
+
+    @GetMapping
+    public ResponseEntity<Map<TipoResumen, List<ResumenPoblacion>>> obtenerResumen() {
+        log.info("GET /admin/estadisticas - Obteniendo resumen poblacional");
+        return ResponseEntity.ok(analiticaPoblacionService.obtenerResumen());
+    }
+
+    @PostMapping("/recalcular")
+    public ResponseEntity<Map<String, String>> recalcular() {
+        log.info("POST /admin/estadisticas/recalcular - Lanzando analítica poblacional");
+        if (!analiticaPoblacionService.ejecutarEnSegundoPlano()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", "El cálculo ya está en ejecución"));
+        }
+        return ResponseEntity.accepted().body(Map.of("mensaje", "Cálculo iniciado"));
+    }
+
+    @GetMapping("/precalculo")
+    public ResponseEntity<Map<String, Object>> obtenerEstadoPrecalculo() {
+        log.info("GET /admin/estadisticas/precalculo - Obteniendo estado del precálculo");
+        return ResponseEntity.ok(precalculoEstadisticasJob.obtenerEstado());
+    }
+
+    @PostMapping("/precalculo")
+    public ResponseEntity<Map<String, String>> precalcular() {
+        log.info("POST /admin/estadisticas/precalculo - Lanzando precálculo de estadísticas");
+        if (!precalculoEstadisticasJob.ejecutarEnSegundoPlano()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", "El precálculo ya está en ejecución"));
+        }
+        return ResponseEntity.accepted().body(Map.of("mensaje", "Precálculo iniciado"));
+    }
+
+    @GetMapping("/archivo")
+    public ResponseEntity<Map<String, Object>> obtenerEstadoArchivo() {
+        log.info("GET /admin/estadisticas/archivo - Obteniendo estado del archivado");
+        return ResponseEntity.ok(archivoRegistrosJob.obtenerEstado());
+    }
+
+    @PostMapping("/archivo")
+    public ResponseEntity<Map<String, String>> archivar() {
+        log.info("POST /admin/estadisticas/archivo - Lanzando archivado de registros");
+        if (!archivoRegistrosJob.ejecutarEnSegundoPlano()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", "El archivado ya está en ejecución"));
+        }
+        return ResponseEntity.accepted().body(Map.of("mensaje", "Archivado iniciado"));
+    }
+}
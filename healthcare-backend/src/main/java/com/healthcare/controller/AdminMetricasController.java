@@ -0,0 +1,98 @@
+package com.healthcare.controller;
+
+import com.healthcare.service.BitmapCompletados;
+import com.healthcare.service.CacheEntidades;
+import com.healthcare.service.ContadorNoLeidas;
+import com.healthcare.service.DespachoNotificaciones;
+import com.healthcare.service.DirectorioUsuarios;
+import com.healthcare.service.EntregaNotificaciones;
+import com.healthcare.service.EstadisticasCache;
+import com.healthcare.service.IncrementosRegistro;
+import com.healthcare.service.NotificacionesEnVivo;
+import com.healthcare.service.RelevoBandejaSalida;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+// Métricas operativas de cachés, colas y despachos; las estadísticas de usuario siguen en EstadisticasController
+@RestController
+@RequestMapping("/admin/metricas")
+@RequiredArgsConstructor
+@Slf4j
+@CrossOrigin(origins = "*")
+public class AdminMetricasController {
+
+    private final EstadisticasCache estadisticasCache;
+    private final BitmapCompletados bitmapCompletados;
+    private final CacheEntidades cacheEntidades;
+    private final DirectorioUsuarios directorioUsuarios;
+    private final IncrementosRegistro incrementosRegistro;
+    private final NotificacionesEnVivo notificacionesEnVivo;
+    private final DespachoNotificaciones despachoNotificaciones;
+    private final EntregaNotificaciones entregaNotificaciones;
+    private final RelevoBandejaSalida relevoBandejaSalida;
+    private final ContadorNoLeidas contadorNoLeidas;
+
+    @GetMapping("/cache")
+    public ResponseEntity<Map<String, Object>> obtenerMetricasCache() {
+        log.info("GET /admin/metricas/cache - Métricas de la caché de estadísticas");
+        return ResponseEntity.ok(estadisticasCache.obtenerMetricas());
+    }
+
+    @GetMapping("/bitmap")
+    public ResponseEntity<Map<String, Object>> obtenerMetricasBitmap() {
+        log.info("GET /admin/metricas/bitmap - Métricas del índice de días completados");
+        return ResponseEntity.ok(bitmapCompletados.obtenerMetricas());
+    }
+
+    @GetMapping("/cache-entidades")
+    public ResponseEntity<Map<String, Object>> obtenerMetricasCacheEntidades() {
+        log.info("GET /admin/metricas/cache-entidades - Métricas de la caché de segundo nivel");
+        return ResponseEntity.ok(cacheEntidades.obtenerMetricas());
+    }
+
+    @GetMapping("/usuarios-cache")
+    public ResponseEntity<Map<String, Object>> obtenerMetricasCacheUsuarios() {
+        log.info("GET /admin/metricas/usuarios-cache - Métricas de la caché de existencia de usuarios");
+        return ResponseEntity.ok(directorioUsuarios.obtenerMetricas());
+    }
+
+    @GetMapping("/incrementos")
+    public ResponseEntity<Map<String, Object>> obtenerMetricasIncrementos() {
+        log.info("GET /admin/metricas/incrementos - Métricas de los incrementos de registros");
+        return ResponseEntity.ok(incrementosRegistro.obtenerMetricas());
+    }
+
+    @GetMapping("/notificaciones-stream")
+    public ResponseEntity<Map<String, Object>> obtenerMetricasStreamNotificaciones() {
+        log.info("GET /admin/metricas/notificaciones-stream - Métricas de los streams de notificaciones");
+        return ResponseEntity.ok(notificacionesEnVivo.obtenerMetricas());
+    }
+
+    @GetMapping("/despacho-notificaciones")
+    public ResponseEntity<Map<String, Object>> obtenerMetricasDespachoNotificaciones() {
+        log.info("GET /admin/metricas/despacho-notificaciones - Métricas del despacho de notificaciones programadas");
+        return ResponseEntity.ok(despachoNotificaciones.obtenerMetricas());
+    }
+
+    @GetMapping("/entrega-notificaciones")
+    public ResponseEntity<Map<String, Object>> obtenerMetricasEntregaNotificaciones() {
+        log.info("GET /admin/metricas/entrega-notificaciones - Métricas de la entrega por canal");
+        return ResponseEntity.ok(entregaNotificaciones.obtenerMetricas());
+    }
+
+    @GetMapping("/bandeja-salida")
+    public ResponseEntity<Map<String, Object>> obtenerMetricasBandejaSalida() {
+        log.info("GET /admin/metricas/bandeja-salida - Métricas de la bandeja de salida de eventos");
+        return ResponseEntity.ok(relevoBandejaSalida.obtenerMetricas());
+    }
+
+    @GetMapping("/no-leidas")
+    public ResponseEntity<Map<String, Object>> obtenerMetricasNoLeidas() {
+        log.info("GET /admin/metricas/no-leidas - Métricas del contador de notificaciones no leídas");
+        return ResponseEntity.ok(contadorNoLeidas.obtenerMetricas());
+    }
+}
@@ -1,14 +1,19 @@
 package com.healthcare.controller;
 
+import com.healthcare.dto.DashboardEstadisticas;
 import com.healthcare.dto.DatoCategoria;
 import com.healthcare.dto.DatoProgreso;
+import com.healthcare.dto.DatoProgresoPeriodo;
+import com.healthcare.dto.Granularidad;
 import com.healthcare.model.Estadisticas;
 import com.healthcare.service.EstadisticasService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -32,6 +37,37 @@ public class EstadisticasController {
         }
     }
 
+    @GetMapping("/usuario/{usuarioId}/dashboard")
+    public ResponseEntity<DashboardEstadisticas> obtenerDashboard(@PathVariable Long usuarioId) {
+        log.info("GET /estadisticas/usuario/{}/dashboard", usuarioId);
+        try {
+            DashboardEstadisticas dashboard = estadisticasService.obtenerDashboard(usuarioId);
+            return ResponseEntity.ok(dashboard);
+        } catch (RuntimeException e) {
+            log.error("Error al obtener dashboard: {}", e.getMessage());
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @GetMapping("/usuario/{usuarioId}/progreso")
+    public ResponseEntity<List<DatoProgresoPeriodo>> obtenerProgreso(
+            @PathVariable Long usuarioId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+            @RequestParam(defaultValue = "DAY") Granularidad granularidad) {
+        log.info("GET /estadisticas/usuario/{}/progreso - Progreso entre {} y {} por {}", usuarioId, desde, hasta, granularidad);
+        try {
+            List<DatoProgresoPeriodo> progreso = estadisticasService.obtenerProgreso(usuarioId, desde, hasta, granularidad);
+            return ResponseEntity.ok(progreso);
+        } catch (IllegalArgumentException e) {
+            log.error("Rango de progreso inválido: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (RuntimeException e) {
+            log.error("Error al obtener progreso: {}", e.getMessage());
+            return ResponseEntity.notFound().build();
+        }
+    }
+
     @GetMapping("/usuario/{usuarioId}/progreso-semanal")
     public ResponseEntity<List<DatoProgreso>> obtenerProgresoSemanal(@PathVariable Long usuarioId) {
         log.info("GET /estadisticas/usuario/{}/progreso-semanal", usuarioId);
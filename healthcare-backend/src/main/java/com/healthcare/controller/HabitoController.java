@@ -1,5 +1,6 @@
 package com.healthcare.controller;
 
+import com.healthcare.dto.HabitoDTO;
 import com.healthcare.model.Habito;
 import com.healthcare.service.HabitoService;
 import lombok.RequiredArgsConstructor;
@@ -7,6 +8,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -19,23 +21,34 @@ import java.util.List;
 public class HabitoController {
     
     private final HabitoService habitoService;
+    private final Paginacion paginacion;
     
     @GetMapping("/usuario/{usuarioId}")
-    public ResponseEntity<List<Habito>> obtenerHabitosPorUsuario(@PathVariable Long usuarioId) {
+    public ResponseEntity<List<HabitoDTO>> obtenerHabitosPorUsuario(@PathVariable Long usuarioId) {
         log.info("GET /habitos/usuario/{} - Obteniendo hábitos por usuario", usuarioId);
-        List<Habito> habitos = habitoService.obtenerHabitosPorUsuario(usuarioId);
+        List<HabitoDTO> habitos = habitoService.obtenerHabitosPorUsuario(usuarioId);
         return ResponseEntity.ok(habitos);
     }
     
     @GetMapping("/categoria/{categoria}")
-    public ResponseEntity<List<Habito>> obtenerHabitosPorCategoria(@PathVariable String categoria) {
-        log.info("GET /habitos/categoria/{} - Obteniendo hábitos por categoría", categoria);
-        List<Habito> habitos = habitoService.obtenerHabitosPorCategoria(categoria);
-        return ResponseEntity.ok(habitos);
+    public ResponseEntity<List<HabitoDTO>> obtenerHabitosPorCategoria(
+            @PathVariable String categoria,
+            @RequestParam(defaultValue = "0") Long despuesDe,
+            @RequestParam(required = false) Integer limite) {
+        log.info("GET /habitos/categoria/{} - Obteniendo hábitos por categoría después del ID {}", categoria, despuesDe);
+        int tamano = paginacion.limitar(limite);
+        List<HabitoDTO> habitos = habitoService.obtenerHabitosPorCategoria(categoria, despuesDe, tamano);
+        return paginacion.pagina(habitos, tamano, HabitoDTO::getId);
+    }
+
+    @GetMapping(value = "/categoria/{categoria}", params = Paginacion.FORMATO_NDJSON)
+    public ResponseEntity<StreamingResponseBody> transmitirHabitosPorCategoria(@PathVariable String categoria) {
+        log.info("GET /habitos/categoria/{}?formato=ndjson - Transmitiendo hábitos por categoría", categoria);
+        return paginacion.ndjson(destino -> habitoService.recorrerHabitosPorCategoria(categoria, destino));
     }
     
     @GetMapping("/{id}")
-    public ResponseEntity<Habito> obtenerHabitoPorId(@PathVariable Long id) {
+    public ResponseEntity<HabitoDTO> obtenerHabitoPorId(@PathVariable Long id) {
         log.info("GET /habitos/{} - Obteniendo hábito por ID", id);
         return habitoService.obtenerHabitoPorId(id)
                 .map(habito -> ResponseEntity.ok(habito))
@@ -43,11 +56,11 @@ public class HabitoController {
     }
     
     @PostMapping
-    public ResponseEntity<Habito> crearHabito(@RequestBody Habito habito) {
+    public ResponseEntity<HabitoDTO> crearHabito(@RequestBody Habito habito) {
         log.info("POST /habitos - Creando nuevo hábito");
         try {
             Habito nuevoHabito = habitoService.crearHabito(habito);
-            return ResponseEntity.status(HttpStatus.CREATED).body(nuevoHabito);
+            return ResponseEntity.status(HttpStatus.CREATED).body(HabitoDTO.desde(nuevoHabito));
         } catch (RuntimeException e) {
             log.error("Error al crear hábito: {}", e.getMessage());
             return ResponseEntity.badRequest().build();
@@ -55,11 +68,11 @@ public class HabitoController {
     }
     
     @PutMapping("/{id}")
-    public ResponseEntity<Habito> actualizarHabito(@PathVariable Long id, @RequestBody Habito habito) {
+    public ResponseEntity<HabitoDTO> actualizarHabito(@PathVariable Long id, @RequestBody Habito habito) {
         log.info("PUT /habitos/{} - Actualizando hábito", id);
         try {
             Habito habitoActualizado = habitoService.actualizarHabito(id, habito);
-            return ResponseEntity.ok(habitoActualizado);
+            return ResponseEntity.ok(HabitoDTO.desde(habitoActualizado));
         } catch (RuntimeException e) {
             log.error("Error al actualizar hábito: {}", e.getMessage());
             return ResponseEntity.notFound().build();
@@ -78,10 +91,19 @@ public class HabitoController {
         }
     }
     @GetMapping("/")
-    public ResponseEntity<List<Habito>> obtenerTodosLosHabitos() {
-        log.info("GET /habitos - Obteniendo todos los hábitos");
-        List<Habito> habitos = habitoService.obtenerTodosLosHabitos();
-        return ResponseEntity.ok(habitos);
+    public ResponseEntity<List<HabitoDTO>> obtenerTodosLosHabitos(
+            @RequestParam(defaultValue = "0") Long despuesDe,
+            @RequestParam(required = false) Integer limite) {
+        log.info("GET /habitos - Obteniendo hábitos después del ID {}", despuesDe);
+        int tamano = paginacion.limitar(limite);
+        List<HabitoDTO> habitos = habitoService.obtenerTodosLosHabitos(despuesDe, tamano);
+        return paginacion.pagina(habitos, tamano, HabitoDTO::getId);
+    }
+
+    @GetMapping(value = "/", params = Paginacion.FORMATO_NDJSON)
+    public ResponseEntity<StreamingResponseBody> transmitirTodosLosHabitos() {
+        log.info("GET /habitos?formato=ndjson - Transmitiendo todos los hábitos");
+        return paginacion.ndjson(habitoService::recorrerTodosLosHabitos);
     }
 
 }
@@ -1,12 +1,22 @@
 package com.healthcare.controller;
 
+import com.healthcare.dto.NotificacionDTO;
 import com.healthcare.model.Notificacion;
+import com.healthcare.service.ContadorNoLeidas;
+import com.healthcare.service.DirectorioUsuarios;
 import com.healthcare.service.NotificacionService;
+import com.healthcare.service.NotificacionesEnVivo;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/notificaciones")
@@ -15,31 +25,62 @@ import java.util.List;
 public class NotificacionController {
 
     private final NotificacionService notificacionService;
+    private final Paginacion paginacion;
+    private final NotificacionesEnVivo notificacionesEnVivo;
+    private final DirectorioUsuarios directorioUsuarios;
+    private final ContadorNoLeidas contadorNoLeidas;
 
     @PostMapping("/")
-    public ResponseEntity<Notificacion> crearNotificacion(@RequestBody Notificacion notificacion) {
+    public ResponseEntity<NotificacionDTO> crearNotificacion(@RequestBody Notificacion notificacion) {
         Notificacion creada = notificacionService.crearNotificacion(notificacion);
-        return ResponseEntity.ok(creada);
+        return ResponseEntity.ok(NotificacionDTO.desde(creada));
     }
 
     @GetMapping("/")
-    public ResponseEntity<List<Notificacion>> obtenerTodas() {
-        return ResponseEntity.ok(notificacionService.obtenerTodas());
+    public ResponseEntity<List<NotificacionDTO>> obtenerTodas(
+            @RequestParam(defaultValue = "0") Long despuesDe,
+            @RequestParam(required = false) Integer limite) {
+        int tamano = paginacion.limitar(limite);
+        return paginacion.pagina(notificacionService.obtenerTodas(despuesDe, tamano), tamano, NotificacionDTO::getId);
+    }
+
+    @GetMapping(value = "/", params = Paginacion.FORMATO_NDJSON)
+    public ResponseEntity<StreamingResponseBody> transmitirTodas() {
+        return paginacion.ndjson(notificacionService::recorrerTodas);
     }
 
     @GetMapping("/usuario/{usuarioId}")
-    public ResponseEntity<List<Notificacion>> obtenerPorUsuario(@PathVariable Long usuarioId) {
+    public ResponseEntity<List<NotificacionDTO>> obtenerPorUsuario(@PathVariable Long usuarioId) {
         return ResponseEntity.ok(notificacionService.obtenerNotificacionesUsuario(usuarioId));
     }
 
     @GetMapping("/usuario/{usuarioId}/no-leidas")
-    public ResponseEntity<List<Notificacion>> obtenerNoLeidas(@PathVariable Long usuarioId) {
+    public ResponseEntity<List<NotificacionDTO>> obtenerNoLeidas(@PathVariable Long usuarioId) {
         return ResponseEntity.ok(notificacionService.obtenerNotificacionesNoLeidas(usuarioId));
     }
 
+    @GetMapping("/usuario/{usuarioId}/no-leidas/count")
+    public ResponseEntity<Map<String, Long>> contarNoLeidas(@PathVariable Long usuarioId) {
+        if (!directorioUsuarios.existe(usuarioId)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(Map.of("noLeidas", contadorNoLeidas.obtener(usuarioId)));
+    }
+
+    // Sin cuerpo marca todas las no leídas del usuario; con una lista de ids, solo esas ([] no marca ninguna)
+    @PostMapping("/usuario/{usuarioId}/marcar-leidas")
+    public ResponseEntity<Map<String, Long>> marcarLeidas(@PathVariable Long usuarioId,
+                                                          @RequestBody(required = false) List<Long> ids) {
+        if (!directorioUsuarios.existe(usuarioId)) {
+            return ResponseEntity.notFound().build();
+        }
+        long marcadas = notificacionService.marcarLeidas(usuarioId, ids);
+        return ResponseEntity.ok(Map.of("marcadas", marcadas, "noLeidas", contadorNoLeidas.obtener(usuarioId)));
+    }
+
     @PutMapping("/{id}")
-    public ResponseEntity<Notificacion> actualizarNotificacion(@PathVariable Long id, @RequestBody Notificacion notificacion) {
-        return ResponseEntity.ok(notificacionService.actualizarNotificacion(id, notificacion));
+    public ResponseEntity<NotificacionDTO> actualizarNotificacion(@PathVariable Long id, @RequestBody Notificacion notificacion) {
+        return ResponseEntity.ok(NotificacionDTO.desde(notificacionService.actualizarNotificacion(id, notificacion)));
     }
 
     @DeleteMapping("/{id}")
@@ -48,8 +89,26 @@ public class NotificacionController {
         return ResponseEntity.ok().build();
     }
     @GetMapping("/activas/{usuarioId}")
-    public ResponseEntity<List<Notificacion>> obtenerNotificacionesActivasPorUsuario(@PathVariable Long usuarioId) {
-        List<Notificacion> activas = notificacionService.obtenerNotificacionesActivasPorUsuario(usuarioId);
+    public ResponseEntity<List<NotificacionDTO>> obtenerNotificacionesActivasPorUsuario(@PathVariable Long usuarioId) {
+        List<NotificacionDTO> activas = notificacionService.obtenerNotificacionesActivasPorUsuario(usuarioId);
         return ResponseEntity.ok(activas);
     }
-}
\ No newline at end of file
+
+    // Cambios de las notificaciones del usuario en vivo; EventSource reconecta solo y manda Last-Event-ID
+    @GetMapping(value = "/stream/{usuarioId}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> transmitirCambios(@PathVariable Long usuarioId,
+                                                        @RequestHeader(value = "Last-Event-ID", required = false) String ultimoEventoId) {
+        if (!directorioUsuarios.existe(usuarioId)) {
+            return ResponseEntity.notFound().build();
+        }
+        try {
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.CACHE_CONTROL, "no-cache")
+                    // Evita que un proxy nginx acumule el stream en su búfer
+                    .header("X-Accel-Buffering", "no")
+                    .body(notificacionesEnVivo.suscribir(usuarioId, ultimoEventoId));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "30").build();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.healthcare.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+// Listados por cursor (keyset): el cliente pasa ?despuesDe=<cursor> con el valor de la cabecera
+// X-Siguiente-Cursor de la página anterior. Con ?formato=ndjson se transmite el listado completo
+// línea a línea desde un cursor de base de datos, sin materializarlo en memoria.
+@Component
+public class Paginacion {
+
+    public static final String CABECERA_CURSOR = "X-Siguiente-Cursor";
+    public static final String FORMATO_NDJSON = "formato=ndjson";
+
+    private final ObjectMapper objectMapper;
+    private final int limitePorDefecto;
+    private final int limiteMaximo;
+
+    public Paginacion(ObjectMapper objectMapper,
+                      @Value("${healthcare.paginacion.limite-por-defecto:100}") int limitePorDefecto,
+                      @Value("${healthcare.paginacion.limite-maximo:1000}") int limiteMaximo) {
+        this.objectMapper = objectMapper;
+        this.limitePorDefecto = limitePorDefecto;
+        this.limiteMaximo = limiteMaximo;
+    }
+
+    public int limitar(Integer limite) {
+        if (limite == null || limite <= 0) {
+            return limitePorDefecto;
+        }
+        return Math.min(limite, limiteMaximo);
+    }
+
+    // Una página llena indica que puede haber más: se devuelve el cursor del último elemento
+    public <T> ResponseEntity<List<T>> pagina(List<T> elementos, int limite, Function<T, ?> cursor) {
+        if (elementos.size() < limite) {
+            return ResponseEntity.ok(elementos);
+        }
+        return ResponseEntity.ok()
+                .header(CABECERA_CURSOR, String.valueOf(cursor.apply(elementos.get(elementos.size() - 1))))
+                .body(elementos);
+    }
+
+    public ResponseEntity<StreamingResponseBody> ndjson(Consumer<Consumer<Object>> recorrido) {
+        StreamingResponseBody cuerpo = salida -> {
+            try {
+                recorrido.accept(elemento -> {
+                    try {
+                        salida.write(objectMapper.writeValueAsBytes(elemento));
+                        salida.write('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                // Normalmente el cliente ha cortado la conexión; se cierra el cursor y se propaga
+                throw e.getCause();
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(cuerpo);
+    }
+}
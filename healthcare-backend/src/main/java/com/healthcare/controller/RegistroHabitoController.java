@@ -1,13 +1,18 @@
 package com.healthcare.controller;
 
+import com.healthcare.dto.RegistroHabitoDTO;
+import com.healthcare.dto.ResultadoRegistroLote;
 import com.healthcare.model.RegistroHabito;
+import com.healthcare.service.IncrementosRegistro;
 import com.healthcare.service.RegistroHabitoService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -20,51 +25,124 @@ import java.util.List;
 public class RegistroHabitoController {
     
     private final RegistroHabitoService registroHabitoService;
+    private final IncrementosRegistro incrementosRegistro;
+    private final Paginacion paginacion;
     
     @GetMapping("/habito/{habitoId}")
-    public ResponseEntity<List<RegistroHabito>> obtenerRegistrosPorHabito(@PathVariable Long habitoId) {
-        log.info("GET /registros/habito/{} - Obteniendo registros por hábito", habitoId);
-        List<RegistroHabito> registros = registroHabitoService.obtenerRegistrosPorHabito(habitoId);
-        return ResponseEntity.ok(registros);
+    public ResponseEntity<List<RegistroHabitoDTO>> obtenerRegistrosPorHabito(
+            @PathVariable Long habitoId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate despuesDe,
+            @RequestParam(required = false) Integer limite) {
+        log.info("GET /registros/habito/{} - Obteniendo registros por hábito posteriores a {}", habitoId, despuesDe);
+        int tamano = paginacion.limitar(limite);
+        List<RegistroHabitoDTO> registros = registroHabitoService.obtenerRegistrosPorHabito(habitoId, despuesDe, tamano);
+        return paginacion.pagina(registros, tamano, RegistroHabitoDTO::getFecha);
+    }
+
+    @GetMapping(value = "/habito/{habitoId}", params = Paginacion.FORMATO_NDJSON)
+    public ResponseEntity<StreamingResponseBody> transmitirRegistrosPorHabito(@PathVariable Long habitoId) {
+        log.info("GET /registros/habito/{}?formato=ndjson - Transmitiendo registros por hábito", habitoId);
+        return paginacion.ndjson(destino -> registroHabitoService.recorrerRegistrosPorHabito(habitoId, destino));
     }
     
     @GetMapping("/usuario/{usuarioId}/fecha/{fecha}")
-    public ResponseEntity<List<RegistroHabito>> obtenerRegistrosPorUsuarioYFecha(
+    public ResponseEntity<List<RegistroHabitoDTO>> obtenerRegistrosPorUsuarioYFecha(
             @PathVariable Long usuarioId,
             @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fecha) {
         log.info("GET /registros/usuario/{}/fecha/{} - Obteniendo registros por usuario y fecha", usuarioId, fecha);
-        List<RegistroHabito> registros = registroHabitoService.obtenerRegistrosPorUsuarioYFecha(usuarioId, fecha);
+        List<RegistroHabitoDTO> registros = registroHabitoService.obtenerRegistrosPorUsuarioYFecha(usuarioId, fecha);
         return ResponseEntity.ok(registros);
     }
     
     @GetMapping("/usuario/{usuarioId}/rango")
-    public ResponseEntity<List<RegistroHabito>> obtenerRegistrosPorUsuarioYRangoFechas(
+    public ResponseEntity<List<RegistroHabitoDTO>> obtenerRegistrosPorUsuarioYRangoFechas(
             @PathVariable Long usuarioId,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaInicio,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaFin) {
         log.info("GET /registros/usuario/{}/rango - Obteniendo registros por usuario entre {} y {}", usuarioId, fechaInicio, fechaFin);
-        List<RegistroHabito> registros = registroHabitoService.obtenerRegistrosPorUsuarioYRangoFechas(usuarioId, fechaInicio, fechaFin);
+        List<RegistroHabitoDTO> registros = registroHabitoService.obtenerRegistrosPorUsuarioYRangoFechas(usuarioId, fechaInicio, fechaFin);
         return ResponseEntity.ok(registros);
     }
     
     @PostMapping
-    public ResponseEntity<RegistroHabito> crearRegistro(@RequestBody RegistroHabito registro) {
+    public ResponseEntity<RegistroHabitoDTO> crearRegistro(@RequestBody RegistroHabito registro) {
         log.info("POST /registros - Creando nuevo registro");
         try {
             RegistroHabito nuevoRegistro = registroHabitoService.crearRegistro(registro);
-            return ResponseEntity.status(HttpStatus.CREATED).body(nuevoRegistro);
+            return ResponseEntity.status(HttpStatus.CREATED).body(RegistroHabitoDTO.desde(nuevoRegistro));
+        } catch (DataIntegrityViolationException e) {
+            // uk_registro_habito_fecha: el día ya tiene registro, el cliente debe usar el PUT por fecha
+            log.warn("Registro duplicado para hábito y fecha");
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
         } catch (RuntimeException e) {
             log.error("Error al crear registro: {}", e.getMessage());
             return ResponseEntity.badRequest().build();
         }
     }
     
+    @PostMapping("/batch")
+    public ResponseEntity<List<ResultadoRegistroLote>> crearRegistros(@RequestBody List<RegistroHabito> registros) {
+        log.info("POST /registros/batch - Creando lote de {} registros", registros.size());
+        try {
+            List<ResultadoRegistroLote> resultados = registroHabitoService.crearRegistros(registros);
+            return ResponseEntity.ok(resultados);
+        } catch (RuntimeException e) {
+            log.error("Error al crear lote de registros: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    @PutMapping("/habito/{habitoId}/fecha/{fecha}")
+    public ResponseEntity<RegistroHabitoDTO> guardarRegistroDelDia(
+            @PathVariable Long habitoId,
+            @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fecha,
+            @RequestBody RegistroHabito registro) {
+        log.info("PUT /registros/habito/{}/fecha/{} - Guardando registro del día", habitoId, fecha);
+        try {
+            RegistroHabito guardado = registroHabitoService.guardarRegistroDelDia(habitoId, fecha, registro);
+            return ResponseEntity.ok(RegistroHabitoDTO.desde(guardado));
+        } catch (IllegalArgumentException e) {
+            log.error("Registro del día inválido: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (RuntimeException e) {
+            log.error("Error al guardar registro del día: {}", e.getMessage());
+            return ResponseEntity.notFound().build();
+        }
+    }
+    
+    // 200 con el registro en modo INMEDIATA; 202 si el incremento queda pendiente de volcado
+    @PostMapping("/habito/{habitoId}/incrementar")
+    public ResponseEntity<RegistroHabitoDTO> incrementarRegistroDelDia(
+            @PathVariable Long habitoId,
+            @RequestParam double incremento,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fecha) {
+        LocalDate dia = fecha != null ? fecha : LocalDate.now();
+        log.info("POST /registros/habito/{}/incrementar - Incremento de {} el {}", habitoId, incremento, dia);
+        try {
+            return incrementosRegistro.incrementar(habitoId, dia, incremento)
+                    .map(guardado -> ResponseEntity.ok(RegistroHabitoDTO.desde(guardado)))
+                    .orElseGet(() -> ResponseEntity.accepted().build());
+        } catch (IllegalArgumentException e) {
+            log.error("Incremento inválido: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (RuntimeException e) {
+            log.error("Error al incrementar registro: {}", e.getMessage());
+            return ResponseEntity.notFound().build();
+        }
+    }
+    
     @PutMapping("/{id}")
-    public ResponseEntity<RegistroHabito> actualizarRegistro(@PathVariable Long id, @RequestBody RegistroHabito registro) {
+    public ResponseEntity<RegistroHabitoDTO> actualizarRegistro(@PathVariable Long id, @RequestBody RegistroHabito registro) {
         log.info("PUT /registros/{} - Actualizando registro", id);
         try {
             RegistroHabito registroActualizado = registroHabitoService.actualizarRegistro(id, registro);
-            return ResponseEntity.ok(registroActualizado);
+            return ResponseEntity.ok(RegistroHabitoDTO.desde(registroActualizado));
+        } catch (DataIntegrityViolationException e) {
+            log.warn("Registro duplicado para hábito y fecha");
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (IllegalArgumentException e) {
+            log.error("Registro inválido: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
         } catch (RuntimeException e) {
             log.error("Error al actualizar registro: {}", e.getMessage());
             return ResponseEntity.notFound().build();
@@ -77,6 +155,9 @@ public class RegistroHabitoController {
         try {
             registroHabitoService.eliminarRegistro(id);
             return ResponseEntity.noContent().build();
+        } catch (IllegalArgumentException e) {
+            log.error("Registro no eliminable: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
         } catch (RuntimeException e) {
             log.error("Error al eliminar registro: {}", e.getMessage());
             return ResponseEntity.notFound().build();
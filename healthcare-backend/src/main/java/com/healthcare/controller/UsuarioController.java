@@ -1,5 +1,6 @@
 package com.healthcare.controller;
 
+import com.healthcare.config.TokenSesion;
 import com.healthcare.model.Usuario;
 import com.healthcare.service.UsuarioService;
 import lombok.RequiredArgsConstructor;
@@ -7,6 +8,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.Map;
@@ -18,13 +20,27 @@ import java.util.Map;
 @CrossOrigin(origins = "*")
 public class UsuarioController {
 
+    // Token de sesión emitido en el login y el alta; el cliente lo devuelve como "Authorization: Bearer"
+    public static final String CABECERA_TOKEN = "X-Token-Sesion";
+
     private final UsuarioService usuarioService;
+    private final Paginacion paginacion;
+    private final TokenSesion tokenSesion;
 
     @GetMapping
-    public ResponseEntity<List<Usuario>> obtenerTodosLosUsuarios() {
-        log.info("GET /usuarios - Obteniendo todos los usuarios");
-        List<Usuario> usuarios = usuarioService.obtenerTodosLosUsuarios();
-        return ResponseEntity.ok(usuarios);
+    public ResponseEntity<List<Usuario>> obtenerTodosLosUsuarios(
+            @RequestParam(defaultValue = "0") Long despuesDe,
+            @RequestParam(required = false) Integer limite) {
+        log.info("GET /usuarios - Obteniendo usuarios después del ID {}", despuesDe);
+        int tamano = paginacion.limitar(limite);
+        List<Usuario> usuarios = usuarioService.obtenerTodosLosUsuarios(despuesDe, tamano);
+        return paginacion.pagina(usuarios, tamano, Usuario::getId);
+    }
+
+    @GetMapping(params = Paginacion.FORMATO_NDJSON)
+    public ResponseEntity<StreamingResponseBody> transmitirTodosLosUsuarios() {
+        log.info("GET /usuarios?formato=ndjson - Transmitiendo todos los usuarios");
+        return paginacion.ndjson(usuarioService::recorrerTodosLosUsuarios);
     }
 
     @GetMapping("/{id}")
@@ -48,7 +64,9 @@ public class UsuarioController {
         log.info("POST /usuarios - Creando nuevo usuario");
         try {
             Usuario nuevoUsuario = usuarioService.crearUsuario(usuario);
-            return ResponseEntity.status(HttpStatus.CREATED).body(nuevoUsuario);
+            return ResponseEntity.status(HttpStatus.CREATED)
+                    .header(CABECERA_TOKEN, tokenSesion.emitir(nuevoUsuario.getId()))
+                    .body(nuevoUsuario);
         } catch (RuntimeException e) {
             log.error("Error al crear usuario: {}", e.getMessage());
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
@@ -96,7 +114,9 @@ public class UsuarioController {
         String password = loginData.get("password");
         log.info("POST /usuarios/login - Intentando login para {}", email);
         return usuarioService.login(email, password)
-                .<ResponseEntity<?>>map(usuario -> ResponseEntity.ok(usuario))
+                .<ResponseEntity<?>>map(usuario -> ResponseEntity.ok()
+                        .header(CABECERA_TOKEN, tokenSesion.emitir(usuario.getId()))
+                        .body(usuario))
                 .orElseGet(() -> ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                         .body(Map.of("error", "Credenciales inválidas")));
     }
@@ -0,0 +1,18 @@
+package com.healthcare.dto;
+
+import com.healthcare.model.Estadisticas;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DashboardEstadisticas {
+    private Estadisticas estadisticas;
+    private List<DatoProgreso> progresoSemanal;
+    private List<DatoProgreso> progresoMensual;
+    private List<DatoCategoria> categorias;
+}
@@ -12,4 +12,9 @@ public class DatoCategoria {
     private Long total;
     private Long completados;
     private Double porcentaje;
+
+    // Usado por las proyecciones agregadas de HabitoRepository
+    public DatoCategoria(String categoria, Long total, Long completados) {
+        this(categoria, total, completados, total > 0 ? (double) completados / total * 100 : 0);
+    }
 }
@@ -0,0 +1,19 @@
+package com.healthcare.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DatoProgresoPeriodo {
+    private LocalDate inicio;
+    private LocalDate fin;
+    private Long completados;
+    private Long diasActivos;
+    private Long dias;
+    private Double porcentaje;
+}
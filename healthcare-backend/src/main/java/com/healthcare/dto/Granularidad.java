@@ -0,0 +1,28 @@
+package com.healthcare.dto;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+
+public enum Granularidad {
+    DAY,
+    WEEK,
+    MONTH;
+
+    // Primer día del periodo al que pertenece la fecha (las semanas empiezan en lunes)
+    public LocalDate inicioPeriodo(LocalDate fecha) {
+        return switch (this) {
+            case DAY -> fecha;
+            case WEEK -> fecha.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MONTH -> fecha.withDayOfMonth(1);
+        };
+    }
+
+    public LocalDate siguientePeriodo(LocalDate inicio) {
+        return switch (this) {
+            case DAY -> inicio.plusDays(1);
+            case WEEK -> inicio.plusWeeks(1);
+            case MONTH -> inicio.plusMonths(1);
+        };
+    }
+}
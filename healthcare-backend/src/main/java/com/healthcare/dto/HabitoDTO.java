@@ -0,0 +1,35 @@
+package com.healthcare.dto;
+
+import com.healthcare.model.Habito;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HabitoDTO {
+    private Long id;
+    private ReferenciaId usuario;
+    private String nombre;
+    private String descripcion;
+    private String categoria;
+    private String metaDiaria;
+    private String unidadMedida;
+    private Boolean activo;
+    private LocalDateTime fechaCreacion;
+
+    // Usado por las consultas JPQL "SELECT new"
+    public HabitoDTO(Long id, Long usuarioId, String nombre, String descripcion, String categoria,
+                     String metaDiaria, String unidadMedida, Boolean activo, LocalDateTime fechaCreacion) {
+        this(id, new ReferenciaId(usuarioId), nombre, descripcion, categoria, metaDiaria, unidadMedida, activo, fechaCreacion);
+    }
+
+    public static HabitoDTO desde(Habito habito) {
+        return new HabitoDTO(habito.getId(), habito.getUsuario().getId(), habito.getNombre(), habito.getDescripcion(),
+                habito.getCategoria(), habito.getMetaDiaria(), habito.getUnidadMedida(), habito.getActivo(),
+                habito.getFechaCreacion());
+    }
+}
@@ -0,0 +1,26 @@
+package com.healthcare.dto;
+
+import com.healthcare.model.Habito;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Datos del hábito que necesitan los listados de registros y notificaciones
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HabitoResumen {
+    private Long id;
+    private String nombre;
+    private String categoria;
+    private String metaDiaria;
+    private String unidadMedida;
+
+    public static HabitoResumen desde(Habito habito) {
+        if (habito == null) {
+            return null;
+        }
+        return new HabitoResumen(habito.getId(), habito.getNombre(), habito.getCategoria(),
+                habito.getMetaDiaria(), habito.getUnidadMedida());
+    }
+}
@@ -0,0 +1,45 @@
+package com.healthcare.dto;
+
+import com.healthcare.model.Notificacion;
+import com.healthcare.model.Notificacion.EstadoNotificacion;
+import com.healthcare.model.Notificacion.PrioridadNotificacion;
+import com.healthcare.model.Notificacion.TipoNotificacion;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificacionDTO {
+    private Long id;
+    private ReferenciaId usuario;
+    private HabitoResumen habito;
+    private TipoNotificacion tipo;
+    private String titulo;
+    private String mensaje;
+    private EstadoNotificacion estado;
+    private PrioridadNotificacion prioridad;
+    private LocalDateTime enviadaEn;
+    private LocalDateTime leidaEn;
+    private LocalDateTime fechaCreacion;
+
+    // Usado por las consultas JPQL "SELECT new"; el hábito es opcional (LEFT JOIN)
+    public NotificacionDTO(Long id, Long usuarioId, Long habitoId, String habitoNombre, String categoria,
+                           String metaDiaria, String unidadMedida, TipoNotificacion tipo, String titulo, String mensaje,
+                           EstadoNotificacion estado, PrioridadNotificacion prioridad, LocalDateTime enviadaEn,
+                           LocalDateTime leidaEn, LocalDateTime fechaCreacion) {
+        this(id, new ReferenciaId(usuarioId),
+                habitoId != null ? new HabitoResumen(habitoId, habitoNombre, categoria, metaDiaria, unidadMedida) : null,
+                tipo, titulo, mensaje, estado, prioridad, enviadaEn, leidaEn, fechaCreacion);
+    }
+
+    public static NotificacionDTO desde(Notificacion notificacion) {
+        return new NotificacionDTO(notificacion.getId(), new ReferenciaId(notificacion.getUsuario().getId()),
+                HabitoResumen.desde(notificacion.getHabito()), notificacion.getTipo(), notificacion.getTitulo(),
+                notificacion.getMensaje(), notificacion.getEstado(), notificacion.getPrioridad(),
+                notificacion.getEnviadaEn(), notificacion.getLeidaEn(), notificacion.getFechaCreacion());
+    }
+}
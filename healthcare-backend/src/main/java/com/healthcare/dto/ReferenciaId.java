@@ -0,0 +1,13 @@
+package com.healthcare.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Referencia a otra entidad por su id, con la misma forma JSON ({ "id": ... }) que la entidad completa
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReferenciaId {
+    private Long id;
+}
@@ -0,0 +1,8 @@
+package com.healthcare.dto;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+public record RegistroArchivado(Long id, Long habitoId, LocalDate fecha, Double valor, String notas,
+                                boolean completado, LocalDateTime fechaRegistro) {
+}
@@ -0,0 +1,35 @@
+package com.healthcare.dto;
+
+import com.healthcare.model.RegistroHabito;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RegistroHabitoDTO {
+    private Long id;
+    private HabitoResumen habito;
+    private LocalDate fecha;
+    private Double valor;
+    private String notas;
+    private Boolean completado;
+    private LocalDateTime fechaRegistro;
+
+    // Usado por las consultas JPQL "SELECT new"
+    public RegistroHabitoDTO(Long id, Long habitoId, String habitoNombre, String categoria, String metaDiaria,
+                             String unidadMedida, LocalDate fecha, Double valor, String notas, Boolean completado,
+                             LocalDateTime fechaRegistro) {
+        this(id, new HabitoResumen(habitoId, habitoNombre, categoria, metaDiaria, unidadMedida),
+                fecha, valor, notas, completado, fechaRegistro);
+    }
+
+    public static RegistroHabitoDTO desde(RegistroHabito registro) {
+        return new RegistroHabitoDTO(registro.getId(), HabitoResumen.desde(registro.getHabito()), registro.getFecha(),
+                registro.getValor(), registro.getNotas(), registro.getCompletado(), registro.getFechaRegistro());
+    }
+}
@@ -0,0 +1,24 @@
+package com.healthcare.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Resultado de cada elemento de POST /registros/batch, en el mismo orden que la petición
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResultadoRegistroLote {
+    private int indice;
+    private boolean creado;
+    private Long id;
+    private String error;
+
+    public static ResultadoRegistroLote creado(int indice, Long id) {
+        return new ResultadoRegistroLote(indice, true, id, null);
+    }
+
+    public static ResultadoRegistroLote error(int indice, String error) {
+        return new ResultadoRegistroLote(indice, false, null, error);
+    }
+}
@@ -0,0 +1,8 @@
+package com.healthcare.event;
+
+// Eventos que, además de publicarse en memoria, se guardan en la bandeja de salida dentro de la
+// transacción que los produce, siempre que haya algún ConsumidorBandeja para su tipo. Se
+// serializan a JSON con el nombre de la clase: renombrar un evento deja sin consumidor las filas
+// pendientes del nombre antiguo
+public interface EventoBandejaSalida {
+}
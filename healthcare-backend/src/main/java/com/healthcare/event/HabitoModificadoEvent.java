@@ -0,0 +1,4 @@
+package com.healthcare.event;
+
+public record HabitoModificadoEvent(Long usuarioId, Long habitoId) implements EventoBandejaSalida {
+}
@@ -0,0 +1,5 @@
+package com.healthcare.event;
+
+// delta es el cambio en el número de notificaciones no leídas del usuario
+public record NoLeidasModificadasEvent(Long usuarioId, long delta) {
+}
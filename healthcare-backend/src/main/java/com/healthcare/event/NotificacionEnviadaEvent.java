@@ -0,0 +1,7 @@
+package com.healthcare.event;
+
+import com.healthcare.dto.NotificacionDTO;
+
+// Una notificación acaba de pasar a ENVIADA: al vencer su hora o al crearse o editarse ya enviada
+public record NotificacionEnviadaEvent(Long usuarioId, NotificacionDTO notificacion) implements EventoBandejaSalida {
+}
@@ -0,0 +1,7 @@
+package com.healthcare.event;
+
+import com.healthcare.dto.NotificacionDTO;
+
+// notificacion es el estado tras el cambio; null si se eliminó
+public record NotificacionModificadaEvent(Long usuarioId, Long notificacionId, NotificacionDTO notificacion) {
+}
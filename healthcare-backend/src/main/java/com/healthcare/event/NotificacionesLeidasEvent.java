@@ -0,0 +1,8 @@
+package com.healthcare.event;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Marcado en bloque; notificacionIds es null si se marcaron todas las no leídas del usuario
+public record NotificacionesLeidasEvent(Long usuarioId, List<Long> notificacionIds, LocalDateTime leidaEn) {
+}
@@ -0,0 +1,6 @@
+package com.healthcare.event;
+
+import java.time.LocalDate;
+
+public record RegistroHabitoModificadoEvent(Long usuarioId, Long habitoId, LocalDate fecha) implements EventoBandejaSalida {
+}
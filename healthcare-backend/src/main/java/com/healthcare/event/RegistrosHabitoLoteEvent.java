@@ -0,0 +1,8 @@
+package com.healthcare.event;
+
+import java.time.LocalDate;
+import java.util.Set;
+
+// Alta masiva de registros de un usuario: los oyentes invalidan en bloque en lugar de día a día
+public record RegistrosHabitoLoteEvent(Long usuarioId, Set<LocalDate> fechas) implements EventoBandejaSalida {
+}
@@ -0,0 +1,4 @@
+package com.healthcare.event;
+
+public record UsuarioEliminadoEvent(Long usuarioId) {
+}
@@ -0,0 +1,46 @@
+package com.healthcare.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// Registros fríos de un usuario en un mes, comprimidos en un único bloque (ver ArchivoRegistrosService)
+@Entity
+@Table(name = "registros_archivados", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_archivo_usuario_mes", columnNames = {"usuario_id", "mes"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArchivoRegistrosMes {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "usuario_id", nullable = false)
+    private Long usuarioId;
+
+    // Primer día del mes archivado
+    @Column(nullable = false)
+    private LocalDate mes;
+
+    @Column(nullable = false)
+    private Integer registros;
+
+    @Column(nullable = false)
+    private Integer completados;
+
+    @Lob
+    @Column(nullable = false, length = 16_777_215)
+    private byte[] datos;
+
+    @UpdateTimestamp
+    @Column(name = "fecha_actualizacion")
+    private LocalDateTime fechaActualizacion;
+}
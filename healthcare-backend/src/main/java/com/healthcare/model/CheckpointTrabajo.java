@@ -0,0 +1,51 @@
+package com.healthcare.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "checkpoints_trabajos")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CheckpointTrabajo {
+
+    @Id
+    @Column(length = 50)
+    private String nombre;
+
+    @Column(name = "fecha_corte", nullable = false)
+    private LocalDate fechaCorte;
+
+    // Último usuario procesado; se reanuda a partir del siguiente
+    @Column(name = "ultimo_usuario_id", nullable = false)
+    private Long ultimoUsuarioId = 0L;
+
+    @Column(nullable = false, length = 20)
+    @Enumerated(EnumType.STRING)
+    private EstadoTrabajo estado;
+
+    @Column(nullable = false)
+    private Long procesados = 0L;
+
+    @Column(nullable = false)
+    private Long fallidos = 0L;
+
+    @Column(name = "fecha_inicio")
+    private LocalDateTime fechaInicio;
+
+    @UpdateTimestamp
+    @Column(name = "fecha_actualizacion")
+    private LocalDateTime fechaActualizacion;
+
+    public enum EstadoTrabajo {
+        EN_CURSO,
+        COMPLETADO
+    }
+}
@@ -23,7 +23,7 @@ public class ConfiguracionNotificacion {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "usuario_id", nullable = false)
     @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
     private Usuario usuario;
@@ -84,6 +84,10 @@ public class ConfiguracionNotificacion {
     @Column(name = "apns_token")
     private String apnsToken; // Apple Push Notification Service
 
+    // Destino del canal SMS
+    @Column(name = "telefono", length = 20)
+    private String telefono;
+
     @CreationTimestamp
     @Column(name = "fecha_creacion", updatable = false)
     private LocalDateTime fechaCreacion;
@@ -0,0 +1,44 @@
+package com.healthcare.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Parte histórica (hasta fechaCorte inclusive) del dashboard; "hoy" se calcula en vivo
+@Entity
+@Table(name = "estadisticas_precalculadas")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EstadisticasPrecalculadas {
+
+    @Id
+    @Column(name = "usuario_id")
+    private Long usuarioId;
+
+    @Column(name = "fecha_corte", nullable = false)
+    private LocalDate fechaCorte;
+
+    @Column(name = "racha_hasta_corte", nullable = false)
+    private Long rachaHastaCorte;
+
+    // Completados de los 6 días anteriores a fechaCorte + 1, del más antiguo al más reciente
+    @Convert(converter = ListaLongConverter.class)
+    @Column(name = "completados_dias", nullable = false, length = 200)
+    private List<Long> completadosDias;
+
+    // Días activos de los últimos 6 meses hasta fechaCorte, el último es el mes en curso
+    @Convert(converter = ListaLongConverter.class)
+    @Column(name = "dias_activos_meses", nullable = false, length = 100)
+    private List<Long> diasActivosMeses;
+
+    @UpdateTimestamp
+    @Column(name = "fecha_calculo")
+    private LocalDateTime fechaCalculo;
+}
@@ -0,0 +1,37 @@
+package com.healthcare.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+// Mensaje de la bandeja de salida que un consumidor ya procesó: la entrega es al menos una vez
+// y con esto cada consumidor descarta las repeticiones
+@Entity
+@Table(name = "eventos_procesados", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_evento_procesado", columnNames = {"mensaje_id", "consumidor"})
+}, indexes = {
+        @Index(name = "idx_evento_procesado_fecha", columnList = "fecha_procesado")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EventoProcesado {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 100)
+    private String consumidor;
+
+    @Column(name = "mensaje_id", nullable = false)
+    private Long mensajeId;
+
+    @CreationTimestamp
+    @Column(name = "fecha_procesado", updatable = false)
+    private LocalDateTime fechaProcesado;
+}
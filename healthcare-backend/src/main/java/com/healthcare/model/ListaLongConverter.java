@@ -0,0 +1,28 @@
+package com.healthcare.model;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.util.Arrays;
+import java.util.List;
+
+// Guarda una lista corta de números como texto separado por comas
+@Converter
+public class ListaLongConverter implements AttributeConverter<List<Long>, String> {
+
+    @Override
+    public String convertToDatabaseColumn(List<Long> valores) {
+        if (valores == null) {
+            return null;
+        }
+        return String.join(",", valores.stream().map(String::valueOf).toList());
+    }
+
+    @Override
+    public List<Long> convertToEntityAttribute(String texto) {
+        if (texto == null || texto.isBlank()) {
+            return List.of();
+        }
+        return Arrays.stream(texto.split(",")).map(Long::valueOf).toList();
+    }
+}
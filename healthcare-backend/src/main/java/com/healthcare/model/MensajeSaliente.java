@@ -0,0 +1,48 @@
+package com.healthcare.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+// Evento pendiente de entregar a los consumidores de la bandeja de salida (ver RelevoBandejaSalida).
+// Se escribe en la misma transacción que el cambio que lo produce y se borra al entregarse
+@Entity
+@Table(name = "bandeja_salida", indexes = {
+        @Index(name = "idx_bandeja_disponible", columnList = "disponible_en")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MensajeSaliente {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Nombre de la clase del evento
+    @Column(nullable = false, length = 200)
+    private String tipo;
+
+    @Lob
+    @Column(nullable = false, length = 16_777_215)
+    private String carga;
+
+    // Cuándo puede reclamarse: ahora al crearse, al final de la concesión mientras se entrega y
+    // tras el backoff si falló. Null cuando agotó los intentos y queda solo para revisión
+    @Column(name = "disponible_en")
+    private LocalDateTime disponibleEn;
+
+    @Column(nullable = false)
+    private Integer intentos = 0;
+
+    @Column(name = "ultimo_error", length = 500)
+    private String ultimoError;
+
+    @CreationTimestamp
+    @Column(name = "fecha_creacion", updatable = false)
+    private LocalDateTime fechaCreacion;
+}
@@ -10,7 +10,12 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "notificaciones")
+@Table(name = "notificaciones", indexes = {
+        // Ventanas de programadas por fecha de envío para el despacho (InnoDB añade la clave primaria)
+        @Index(name = "idx_notificacion_estado_enviada", columnList = "estado, enviada_en"),
+        // Contador y marcado en bloque de las no leídas de un usuario
+        @Index(name = "idx_notificacion_usuario_leida", columnList = "usuario_id, leida_en")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -21,12 +26,12 @@ public class Notificacion {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "usuario_id", nullable = false)
     @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
     private Usuario usuario;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "habito_id")
     @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
     private Habito habito; // Opcional
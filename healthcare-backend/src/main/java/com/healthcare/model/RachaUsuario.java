@@ -0,0 +1,36 @@
+package com.healthcare.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "rachas_usuarios")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RachaUsuario {
+
+    @Id
+    @Column(name = "usuario_id")
+    private Long usuarioId;
+
+    // Longitud de la racha que termina en ultimaFechaCompletada
+    @Column(name = "racha_actual", nullable = false)
+    private Long rachaActual = 0L;
+
+    @Column(name = "racha_maxima", nullable = false)
+    private Long rachaMaxima = 0L;
+
+    @Column(name = "ultima_fecha_completada")
+    private LocalDate ultimaFechaCompletada;
+
+    @UpdateTimestamp
+    @Column(name = "fecha_actualizacion")
+    private LocalDateTime fechaActualizacion;
+}
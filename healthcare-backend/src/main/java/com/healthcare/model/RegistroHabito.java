@@ -12,22 +12,36 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "registros_habitos")
+@Table(name = "registros_habitos", indexes = {
+        @Index(name = "idx_registro_usuario_fecha", columnList = "usuario_id, fecha")
+}, uniqueConstraints = {
+        // Un registro por hábito y día; también sirve de índice (habito_id, fecha)
+        @UniqueConstraint(name = RegistroHabito.UK_HABITO_FECHA, columnNames = {"habito_id", "fecha"})
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class RegistroHabito {
 
+    public static final String UK_HABITO_FECHA = "uk_registro_habito_fecha";
+
+    // Ids reservados en bloques de 50 desde una tabla: a diferencia de IDENTITY, permite agrupar los INSERT en lotes JDBC
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "registros_habitos_ids")
+    @TableGenerator(name = "registros_habitos_ids", table = "generadores_ids", pkColumnName = "nombre",
+            valueColumnName = "valor", pkColumnValue = "registros_habitos", allocationSize = 50)
     private Long id;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "habito_id", nullable = false)
 
     private Habito habito;
 
+    // Copia de habito.usuario.id para filtrar por usuario sin pasar por habitos; la mantiene RegistroHabitoService
+    @Column(name = "usuario_id")
+    private Long usuarioId;
+
     @Column(nullable = false)
     private LocalDate fecha;
 
@@ -0,0 +1,37 @@
+package com.healthcare.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Entity
+@Table(name = "resumenes_diarios",
+        uniqueConstraints = @UniqueConstraint(name = "uk_resumen_usuario_fecha", columnNames = {"usuario_id", "fecha"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResumenDiario {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "resumenes_diarios_ids")
+    @TableGenerator(name = "resumenes_diarios_ids", table = "generadores_ids", pkColumnName = "nombre",
+            valueColumnName = "valor", pkColumnValue = "resumenes_diarios", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "usuario_id", nullable = false)
+    private Long usuarioId;
+
+    @Column(nullable = false)
+    private LocalDate fecha;
+
+    // Registros completados ese día
+    @Column(nullable = false)
+    private Long completados = 0L;
+
+    // Hábitos activos del usuario en ese día
+    @Column(name = "habitos_activos", nullable = false)
+    private Long habitosActivos = 0L;
+}
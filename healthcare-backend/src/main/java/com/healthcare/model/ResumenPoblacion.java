@@ -0,0 +1,44 @@
+package com.healthcare.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "resumenes_poblacion")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResumenPoblacion {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 30)
+    @Enumerated(EnumType.STRING)
+    private TipoResumen tipo;
+
+    // Categoría, rango de racha o fecha según el tipo
+    @Column(nullable = false, length = 50)
+    private String clave;
+
+    @Column(nullable = false)
+    private Long total;
+
+    private Long completados;
+
+    private Double porcentaje;
+
+    @Column(name = "fecha_calculo", nullable = false)
+    private LocalDateTime fechaCalculo;
+
+    public enum TipoResumen {
+        CATEGORIA,
+        DISTRIBUCION_RACHA,
+        USUARIOS_ACTIVOS_DIA
+    }
+}
@@ -0,0 +1,38 @@
+package com.healthcare.repository;
+
+import com.healthcare.model.ArchivoRegistrosMes;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+
+@Repository
+public interface ArchivoRegistrosMesRepository extends JpaRepository<ArchivoRegistrosMes, Long> {
+
+    Optional<ArchivoRegistrosMes> findByUsuarioIdAndMes(Long usuarioId, LocalDate mes);
+
+    List<ArchivoRegistrosMes> findByUsuarioIdAndMesBetweenOrderByMes(Long usuarioId, LocalDate desde, LocalDate hasta);
+
+    List<ArchivoRegistrosMes> findByUsuarioIdOrderByMes(Long usuarioId);
+
+    // Mes y bloque comprimido sin entidades gestionadas, leídos con cursor; requiere una transacción abierta
+    @Query("SELECT a.mes, a.datos FROM ArchivoRegistrosMes a WHERE a.usuarioId = :usuarioId " +
+           "AND a.mes BETWEEN :desde AND :hasta ORDER BY a.mes")
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "12"))
+    Stream<Object[]> streamBloquesByUsuarioIdAndMesBetween(@Param("usuarioId") Long usuarioId, @Param("desde") LocalDate desde, @Param("hasta") LocalDate hasta);
+
+    // Sin cargar los bloques comprimidos
+    @Modifying
+    @Query("DELETE FROM ArchivoRegistrosMes a WHERE a.usuarioId = :usuarioId")
+    int deleteByUsuarioId(@Param("usuarioId") Long usuarioId);
+}
@@ -2,12 +2,20 @@ package com.healthcare.repository;
 
 import com.healthcare.model.ConfiguracionNotificacion;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface ConfiguracionNotificacionRepository extends JpaRepository<ConfiguracionNotificacion, Long> {
 
     Optional<ConfiguracionNotificacion> findByUsuarioId(Long usuarioId);
+
+    // Preferencias de un lote de usuarios en una consulta, con el usuario para el canal de email
+    @Query("SELECT c FROM ConfiguracionNotificacion c JOIN FETCH c.usuario WHERE c.usuario.id IN :usuarioIds")
+    List<ConfiguracionNotificacion> findConUsuarioByUsuarioIdIn(@Param("usuarioIds") Collection<Long> usuarioIds);
 }
@@ -0,0 +1,9 @@
+package com.healthcare.repository;
+
+import com.healthcare.model.EstadisticasPrecalculadas;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface EstadisticasPrecalculadasRepository extends JpaRepository<EstadisticasPrecalculadas, Long> {
+}
@@ -0,0 +1,30 @@
+package com.healthcare.repository;
+
+import com.healthcare.model.EventoProcesado;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Set;
+
+@Repository
+public interface EventoProcesadoRepository extends JpaRepository<EventoProcesado, Long> {
+
+    @Query("SELECT e.mensajeId FROM EventoProcesado e WHERE e.consumidor = :consumidor AND e.mensajeId IN :mensajeIds")
+    Set<Long> findMensajeIdsProcesados(@Param("consumidor") String consumidor, @Param("mensajeIds") Collection<Long> mensajeIds);
+
+    // Un solo INSERT ... SELECT por lote: con id IDENTITY, saveAll haría una sentencia por fila
+    @Modifying
+    @Query("INSERT INTO EventoProcesado (consumidor, mensajeId, fechaProcesado) " +
+           "SELECT :consumidor, m.id, :fecha FROM MensajeSaliente m WHERE m.id IN :mensajeIds")
+    int registrarProcesados(@Param("consumidor") String consumidor, @Param("mensajeIds") Collection<Long> mensajeIds,
+                            @Param("fecha") LocalDateTime fecha);
+
+    @Modifying
+    @Query("DELETE FROM EventoProcesado e WHERE e.fechaProcesado < :limite")
+    int deleteProcesadosAntesDe(@Param("limite") LocalDateTime limite);
+}
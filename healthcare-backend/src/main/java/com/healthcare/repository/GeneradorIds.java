@@ -0,0 +1,24 @@
+package com.healthcare.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.springframework.stereotype.Component;
+
+// Ids del generador de Hibernate de una entidad, para las sentencias nativas que insertan sin pasar por persist()
+@Component
+public class GeneradorIds {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public Long siguienteId(Class<?> entidad) {
+        SharedSessionContractImplementor session = entityManager.unwrap(SharedSessionContractImplementor.class);
+        BeforeExecutionGenerator generador = (BeforeExecutionGenerator) session.getFactory().getMappingMetamodel()
+                .getEntityDescriptor(entidad)
+                .getGenerator();
+        return (Long) generador.generate(session, null, null, EventType.INSERT);
+    }
+}
@@ -1,22 +1,69 @@
 package com.healthcare.repository;
 
+import com.healthcare.dto.DatoCategoria;
+import com.healthcare.dto.HabitoDTO;
 import com.healthcare.model.Habito;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 @Repository
 public interface HabitoRepository extends JpaRepository<Habito, Long> {
+
+    // Proyección para los listados: el usuario se devuelve solo como referencia por id
+    String SELECT_DTO = "SELECT new com.healthcare.dto.HabitoDTO(h.id, h.usuario.id, h.nombre, h.descripcion, h.categoria, " +
+            "h.metaDiaria, h.unidadMedida, h.activo, h.fechaCreacion) FROM Habito h ";
+
+    @Query(SELECT_DTO + "WHERE h.usuario.id = :usuarioId AND h.activo = true")
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    List<HabitoDTO> findDtoByUsuarioIdAndActivoTrue(@Param("usuarioId") Long usuarioId);
+
+    // Listados por cursor sobre el id: cada página es un recorrido acotado del índice
+    @Query(SELECT_DTO + "WHERE h.categoria = :categoria AND h.id > :despuesDe ORDER BY h.id")
+    List<HabitoDTO> findDtoByCategoriaAndIdGreaterThan(@Param("categoria") String categoria, @Param("despuesDe") Long despuesDe, Pageable pageable);
+
+    @Query(SELECT_DTO + "WHERE h.categoria = :categoria ORDER BY h.id")
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    Stream<HabitoDTO> streamDtoByCategoria(@Param("categoria") String categoria);
+
+    @Query(SELECT_DTO + "WHERE h.id = :id")
+    Optional<HabitoDTO> findDtoById(@Param("id") Long id);
+
+    @Query(SELECT_DTO + "WHERE h.id > :despuesDe ORDER BY h.id")
+    List<HabitoDTO> findDtoByIdGreaterThan(@Param("despuesDe") Long despuesDe, Pageable pageable);
+
+    @Query(SELECT_DTO + "ORDER BY h.id")
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    Stream<HabitoDTO> streamAllDto();
     
+    // Listas por usuario en la caché de consultas: guarda los ids y las entidades salen de la región de Habito.
+    // Cualquier escritura en habitos invalida los resultados
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     List<Habito> findByUsuarioIdAndActivoTrue(Long usuarioId);
+
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    long countByUsuarioIdAndActivoTrue(Long usuarioId);
     
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     List<Habito> findByUsuarioId(Long usuarioId);
     
-    List<Habito> findByCategoria(String categoria);
-    
     @Query("SELECT h FROM Habito h WHERE h.usuario.id = :usuarioId AND h.categoria = :categoria AND h.activo = true")
     List<Habito> findByUsuarioIdAndCategoriaAndActivoTrue(@Param("usuarioId") Long usuarioId, @Param("categoria") String categoria);
+
+    @Query("SELECT new com.healthcare.dto.DatoCategoria(h.categoria, COUNT(DISTINCT h.id), COUNT(DISTINCT CASE WHEN r.id IS NOT NULL THEN h.id END)) " +
+           "FROM Habito h LEFT JOIN RegistroHabito r ON r.habito = h AND r.fecha = :fecha AND r.completado = true " +
+           "WHERE h.usuario.id = :usuarioId AND h.activo = true GROUP BY h.categoria")
+    List<DatoCategoria> countPorCategoriaByUsuarioIdAndFecha(@Param("usuarioId") Long usuarioId, @Param("fecha") LocalDate fecha);
 }
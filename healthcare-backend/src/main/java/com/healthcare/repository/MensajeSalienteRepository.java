@@ -0,0 +1,40 @@
+package com.healthcare.repository;
+
+import com.healthcare.model.MensajeSaliente;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import static org.hibernate.jpa.SpecHints.HINT_SPEC_LOCK_TIMEOUT;
+
+@Repository
+public interface MensajeSalienteRepository extends JpaRepository<MensajeSaliente, Long> {
+
+    // -2 es SKIP LOCKED: los relevos de otros nodos se saltan las filas que este está reclamando
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = HINT_SPEC_LOCK_TIMEOUT, value = "-2"))
+    @Query("SELECT m FROM MensajeSaliente m WHERE m.disponibleEn <= :ahora ORDER BY m.disponibleEn, m.id")
+    List<MensajeSaliente> reclamarDisponibles(@Param("ahora") LocalDateTime ahora, Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE MensajeSaliente m SET m.disponibleEn = :hasta WHERE m.id IN :ids")
+    int conceder(@Param("ids") Collection<Long> ids, @Param("hasta") LocalDateTime hasta);
+
+    @Modifying
+    @Query("UPDATE MensajeSaliente m SET m.intentos = m.intentos + 1, m.disponibleEn = :disponibleEn, " +
+           "m.ultimoError = :error WHERE m.id = :id")
+    int reprogramar(@Param("id") Long id, @Param("disponibleEn") LocalDateTime disponibleEn, @Param("error") String error);
+
+    long countByDisponibleEnIsNull();
+}
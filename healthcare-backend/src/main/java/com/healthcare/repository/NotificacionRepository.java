@@ -1,15 +1,86 @@
 package com.healthcare.repository;
 
+import com.healthcare.dto.NotificacionDTO;
 import com.healthcare.model.Notificacion;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.SpecHints.HINT_SPEC_LOCK_TIMEOUT;
 
 @Repository
 public interface NotificacionRepository extends JpaRepository<Notificacion, Long> {
-    List<Notificacion> findByUsuarioIdOrderByFechaCreacionDesc(Long usuarioId);
-    List<Notificacion> findByUsuarioIdAndLeidaEnIsNullOrderByFechaCreacionDesc(Long usuarioId);
-    List<Notificacion> findByUsuarioIdAndEnviadaEnAfter(Long usuarioId, LocalDateTime fechaActual);
-}
\ No newline at end of file
+
+    // Proyección para los listados; el hábito es opcional
+    String SELECT_DTO = "SELECT new com.healthcare.dto.NotificacionDTO(n.id, n.usuario.id, h.id, h.nombre, h.categoria, " +
+            "h.metaDiaria, h.unidadMedida, n.tipo, n.titulo, n.mensaje, n.estado, n.prioridad, n.enviadaEn, n.leidaEn, " +
+            "n.fechaCreacion) FROM Notificacion n LEFT JOIN n.habito h ";
+
+    @EntityGraph(attributePaths = "habito")
+    Optional<Notificacion> findConHabitoById(Long id);
+
+    @Query(SELECT_DTO + "WHERE n.id > :despuesDe ORDER BY n.id")
+    List<NotificacionDTO> findDtoByIdGreaterThan(@Param("despuesDe") Long despuesDe, Pageable pageable);
+
+    @Query(SELECT_DTO + "ORDER BY n.id")
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    Stream<NotificacionDTO> streamAllDto();
+
+    @Query(SELECT_DTO + "WHERE n.usuario.id = :usuarioId ORDER BY n.fechaCreacion DESC")
+    List<NotificacionDTO> findDtoByUsuarioId(@Param("usuarioId") Long usuarioId);
+
+    @Query(SELECT_DTO + "WHERE n.usuario.id = :usuarioId AND n.leidaEn IS NULL ORDER BY n.fechaCreacion DESC")
+    List<NotificacionDTO> findDtoNoLeidasByUsuarioId(@Param("usuarioId") Long usuarioId);
+
+    long countByUsuarioIdAndLeidaEnIsNull(Long usuarioId);
+
+    @Modifying
+    @Query("UPDATE Notificacion n SET n.leidaEn = :fecha WHERE n.usuario.id = :usuarioId AND n.leidaEn IS NULL")
+    int marcarLeidas(@Param("usuarioId") Long usuarioId, @Param("fecha") LocalDateTime fecha);
+
+    @Modifying
+    @Query("UPDATE Notificacion n SET n.leidaEn = :fecha " +
+           "WHERE n.usuario.id = :usuarioId AND n.leidaEn IS NULL AND n.id IN :ids")
+    int marcarLeidas(@Param("usuarioId") Long usuarioId, @Param("ids") Collection<Long> ids,
+                     @Param("fecha") LocalDateTime fecha);
+
+    @Query(SELECT_DTO + "WHERE n.usuario.id = :usuarioId AND n.enviadaEn > :fechaActual")
+    List<NotificacionDTO> findDtoByUsuarioIdAndEnviadaEnAfter(@Param("usuarioId") Long usuarioId, @Param("fechaActual") LocalDateTime fechaActual);
+
+    @Query(SELECT_DTO + "WHERE n.id IN :ids")
+    List<NotificacionDTO> findDtoByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Ventana de programadas para la rueda de despacho, por cursor (enviadaEn, id) sobre idx_notificacion_estado_enviada;
+    // el >= suelto deja al optimizador empezar el rango del índice en el cursor
+    @Query("SELECT n.id, n.enviadaEn FROM Notificacion n " +
+           "WHERE n.estado = com.healthcare.model.Notificacion$EstadoNotificacion.PROGRAMADA AND n.enviadaEn <= :hasta " +
+           "AND n.enviadaEn >= :fecha AND (n.enviadaEn > :fecha OR n.id > :id) ORDER BY n.enviadaEn, n.id")
+    List<Object[]> findProgramadasDespuesDe(@Param("fecha") LocalDateTime fecha, @Param("id") Long id,
+                                            @Param("hasta") LocalDateTime hasta, Pageable pageable);
+
+    // Bloquea las que siguen pendientes; -2 es SKIP LOCKED: otro nodo que despache a la vez se salta estas filas
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = HINT_SPEC_LOCK_TIMEOUT, value = "-2"))
+    @Query("SELECT n.id FROM Notificacion n WHERE n.id IN :ids " +
+           "AND n.estado = com.healthcare.model.Notificacion$EstadoNotificacion.PROGRAMADA AND n.enviadaEn <= :limite")
+    List<Long> bloquearProgramadasVencidas(@Param("ids") Collection<Long> ids, @Param("limite") LocalDateTime limite);
+
+    @Modifying
+    @Query("UPDATE Notificacion n SET n.estado = com.healthcare.model.Notificacion$EstadoNotificacion.ENVIADA WHERE n.id IN :ids")
+    int marcarEnviadas(@Param("ids") Collection<Long> ids);
+}
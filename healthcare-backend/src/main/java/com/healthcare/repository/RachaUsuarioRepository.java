@@ -0,0 +1,9 @@
+package com.healthcare.repository;
+
+import com.healthcare.model.RachaUsuario;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface RachaUsuarioRepository extends JpaRepository<RachaUsuario, Long> {
+}
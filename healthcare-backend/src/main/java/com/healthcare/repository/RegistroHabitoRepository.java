@@ -1,25 +1,139 @@
 package com.healthcare.repository;
 
+import com.healthcare.dto.RegistroHabitoDTO;
 import com.healthcare.model.RegistroHabito;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_NATIVE_SPACES;
 
 @Repository
 public interface RegistroHabitoRepository extends JpaRepository<RegistroHabito, Long> {
 
-    List<RegistroHabito> findByHabitoId(Long habitoId);
+    // Proyección para los listados: solo las columnas del registro y del hábito que se devuelven
+    String SELECT_DTO = "SELECT new com.healthcare.dto.RegistroHabitoDTO(r.id, h.id, h.nombre, h.categoria, h.metaDiaria, " +
+            "h.unidadMedida, r.fecha, r.valor, r.notas, r.completado, r.fechaRegistro) FROM RegistroHabito r JOIN r.habito h ";
+
+    // Cursor sobre la fecha: es única por hábito y recorre directamente uk_registro_habito_fecha
+    @Query(SELECT_DTO + "WHERE r.habito.id = :habitoId AND r.fecha > :despuesDe ORDER BY r.fecha")
+    List<RegistroHabitoDTO> findDtoByHabitoIdAndFechaGreaterThan(@Param("habitoId") Long habitoId, @Param("despuesDe") LocalDate despuesDe, Pageable pageable);
+
+    @Query(SELECT_DTO + "WHERE r.habito.id = :habitoId ORDER BY r.fecha")
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    Stream<RegistroHabitoDTO> streamDtoByHabitoId(@Param("habitoId") Long habitoId);
+
+    @Query(SELECT_DTO + "WHERE r.usuarioId = :usuarioId AND r.fecha = :fecha")
+    List<RegistroHabitoDTO> findDtoByUsuarioIdAndFecha(@Param("usuarioId") Long usuarioId, @Param("fecha") LocalDate fecha);
+
+    @Query(SELECT_DTO + "WHERE r.usuarioId = :usuarioId AND r.fecha BETWEEN :fechaInicio AND :fechaFin")
+    List<RegistroHabitoDTO> findDtoByUsuarioIdAndFechaBetween(@Param("usuarioId") Long usuarioId, @Param("fechaInicio") LocalDate fechaInicio, @Param("fechaFin") LocalDate fechaFin);
+
+    @EntityGraph(attributePaths = "habito")
+    Optional<RegistroHabito> findConHabitoById(Long id);
 
     Optional<RegistroHabito> findByHabitoIdAndFecha(Long habitoId, LocalDate fecha);
 
-    @Query("SELECT r FROM RegistroHabito r WHERE r.habito.usuario.id = :usuarioId AND r.fecha = :fecha")
-    List<RegistroHabito> findByUsuarioIdAndFecha(@Param("usuarioId") Long usuarioId, @Param("fecha") LocalDate fecha);
+    // Alta o actualización en una sola sentencia apoyada en uk_registro_habito_fecha.
+    // Declarar la tabla evita que Hibernate vacíe toda la caché de segundo nivel en cada llamada
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "registros_habitos"))
+    @Query(nativeQuery = true, value = "INSERT INTO registros_habitos (id, habito_id, usuario_id, fecha, valor, notas, completado, fecha_registro) " +
+           "VALUES (:id, :habitoId, :usuarioId, :fecha, :valor, :notas, :completado, CURRENT_TIMESTAMP) " +
+           "ON DUPLICATE KEY UPDATE valor = VALUES(valor), notas = VALUES(notas), completado = VALUES(completado)")
+    int upsert(@Param("id") Long id, @Param("habitoId") Long habitoId, @Param("usuarioId") Long usuarioId,
+               @Param("fecha") LocalDate fecha, @Param("valor") Double valor, @Param("notas") String notas,
+               @Param("completado") Boolean completado);
+
+    // Suma atómica sobre la fila del día sin leerla antes. completado se asigna primero porque MySQL
+    // evalúa las asignaciones en orden y debe ver el valor anterior; sin meta numérica no se toca
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "registros_habitos"))
+    @Query(nativeQuery = true, value = "INSERT INTO registros_habitos (id, habito_id, usuario_id, fecha, valor, completado, fecha_registro) " +
+           "VALUES (:id, :habitoId, :usuarioId, :fecha, :incremento, :completadoInicial, CURRENT_TIMESTAMP) " +
+           "ON DUPLICATE KEY UPDATE completado = CASE WHEN :conMeta THEN valor + VALUES(valor) >= :meta ELSE completado END, " +
+           "valor = valor + VALUES(valor)")
+    int incrementar(@Param("id") Long id, @Param("habitoId") Long habitoId, @Param("usuarioId") Long usuarioId,
+                    @Param("fecha") LocalDate fecha, @Param("incremento") Double incremento,
+                    @Param("completadoInicial") Boolean completadoInicial, @Param("conMeta") Boolean conMeta,
+                    @Param("meta") Double meta);
+
+    @Query("SELECT r.habito.id, r.fecha FROM RegistroHabito r WHERE r.habito.id IN :habitoIds AND r.fecha BETWEEN :fechaInicio AND :fechaFin")
+    List<Object[]> findClavesByHabitoIdInAndFechaBetween(@Param("habitoIds") Collection<Long> habitoIds, @Param("fechaInicio") LocalDate fechaInicio, @Param("fechaFin") LocalDate fechaFin);
+
+    @Query("SELECT r.habito.id, r.fecha FROM RegistroHabito r GROUP BY r.habito.id, r.fecha HAVING COUNT(r) > 1")
+    List<Object[]> findClavesDuplicadas();
+
+    List<RegistroHabito> findByHabitoIdAndFechaOrderByIdDesc(Long habitoId, LocalDate fecha);
+
+    @Query("SELECT DISTINCT r.habito.id FROM RegistroHabito r WHERE r.usuarioId = :usuarioId AND r.fecha = :fecha AND r.completado = true")
+    Set<Long> findHabitoIdsCompletadosByUsuarioIdAndFecha(@Param("usuarioId") Long usuarioId, @Param("fecha") LocalDate fecha);
+
+    @Query("SELECT r.habito.id, r.fecha FROM RegistroHabito r WHERE r.usuarioId = :usuarioId AND r.completado = true AND r.fecha BETWEEN :fechaInicio AND :fechaFin")
+    List<Object[]> findCompletadosByUsuarioIdAndFechaBetween(@Param("usuarioId") Long usuarioId, @Param("fechaInicio") LocalDate fechaInicio, @Param("fechaFin") LocalDate fechaFin);
+
+    @Query("SELECT r.habito.id, r.fecha FROM RegistroHabito r WHERE r.usuarioId = :usuarioId AND r.completado = true")
+    List<Object[]> findCompletadosByUsuarioId(@Param("usuarioId") Long usuarioId);
+
+    boolean existsByHabitoIdAndFechaAndCompletadoTrue(Long habitoId, LocalDate fecha);
+
+    @Query("SELECT COUNT(r) > 0 FROM RegistroHabito r WHERE r.usuarioId = :usuarioId AND r.fecha = :fecha AND r.completado = true")
+    boolean existsCompletadoByUsuarioIdAndFecha(@Param("usuarioId") Long usuarioId, @Param("fecha") LocalDate fecha);
+
+    @Query("SELECT COUNT(r) FROM RegistroHabito r WHERE r.usuarioId = :usuarioId AND r.fecha = :fecha AND r.completado = true")
+    long countCompletadosByUsuarioIdAndFecha(@Param("usuarioId") Long usuarioId, @Param("fecha") LocalDate fecha);
+
+    @Query("SELECT r.fecha, COUNT(r) FROM RegistroHabito r WHERE r.usuarioId = :usuarioId AND r.completado = true GROUP BY r.fecha")
+    List<Object[]> countCompletadosPorFechaByUsuarioId(@Param("usuarioId") Long usuarioId);
+
+    // Completados por día agregados en la base de datos y leídos con cursor; requiere una transacción abierta
+    @Query("SELECT r.fecha, COUNT(r) FROM RegistroHabito r WHERE r.usuarioId = :usuarioId AND r.completado = true " +
+           "AND r.fecha BETWEEN :fechaInicio AND :fechaFin GROUP BY r.fecha ORDER BY r.fecha")
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    Stream<Object[]> streamCompletadosPorFechaByUsuarioIdAndFechaBetween(@Param("usuarioId") Long usuarioId, @Param("fechaInicio") LocalDate fechaInicio, @Param("fechaFin") LocalDate fechaFin);
+
+    @Query("SELECT DISTINCT r.fecha FROM RegistroHabito r WHERE r.usuarioId = :usuarioId AND r.completado = true ORDER BY r.fecha")
+    List<LocalDate> findFechasCompletadasByUsuarioId(@Param("usuarioId") Long usuarioId);
+
+    // Archivado: registros del usuario anteriores al corte
+    @EntityGraph(attributePaths = "habito")
+    List<RegistroHabito> findByUsuarioIdAndFechaBeforeOrderByFecha(Long usuarioId, LocalDate fecha);
+
+    @Modifying
+    @Query("DELETE FROM RegistroHabito r WHERE r.usuarioId = :usuarioId AND r.fecha < :fecha")
+    int deleteByUsuarioIdAndFechaBefore(@Param("usuarioId") Long usuarioId, @Param("fecha") LocalDate fecha);
+
+    boolean existsByUsuarioIdIsNull();
+
+    @Query("SELECT MIN(r.id) FROM RegistroHabito r WHERE r.usuarioId IS NULL")
+    Long findMinIdSinUsuario();
+
+    @Query("SELECT MAX(r.id) FROM RegistroHabito r WHERE r.usuarioId IS NULL")
+    Long findMaxIdSinUsuario();
+
+    // Relleno de usuario_id por tramos de id; cada llamada solo bloquea las filas de su tramo
+    @Modifying
+    @Query("UPDATE RegistroHabito r SET r.usuarioId = (SELECT h.usuario.id FROM Habito h WHERE h = r.habito) " +
+           "WHERE r.id BETWEEN :desde AND :hasta AND r.usuarioId IS NULL")
+    int rellenarUsuarioId(@Param("desde") Long desde, @Param("hasta") Long hasta);
 
-    @Query("SELECT r FROM RegistroHabito r WHERE r.habito.usuario.id = :usuarioId AND r.fecha BETWEEN :fechaInicio AND :fechaFin")
-    List<RegistroHabito> findByUsuarioIdAndFechaBetween(@Param("usuarioId") Long usuarioId, @Param("fechaInicio") LocalDate fechaInicio, @Param("fechaFin") LocalDate fechaFin);
+    // Recorrido con cursor para la analítica poblacional; requiere una transacción abierta
+    @Query("SELECT r.usuarioId, h.categoria, r.fecha, r.completado FROM RegistroHabito r JOIN r.habito h " +
+           "WHERE r.usuarioId BETWEEN :desde AND :hasta ORDER BY r.usuarioId, r.fecha")
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    Stream<Object[]> streamByUsuarioIdBetween(@Param("desde") Long desde, @Param("hasta") Long hasta);
 }
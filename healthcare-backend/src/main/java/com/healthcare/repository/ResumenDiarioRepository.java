@@ -0,0 +1,50 @@
+package com.healthcare.repository;
+
+import com.healthcare.model.ResumenDiario;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.hibernate.jpa.HibernateHints.HINT_NATIVE_SPACES;
+
+@Repository
+public interface ResumenDiarioRepository extends JpaRepository<ResumenDiario, Long> {
+
+    // Hábitos activos actuales del usuario, para la fila que se crea
+    String HABITOS_ACTIVOS = "(SELECT COUNT(*) FROM habitos h WHERE h.usuario_id = :usuarioId AND h.activo = TRUE)";
+
+    Optional<ResumenDiario> findByUsuarioIdAndFecha(Long usuarioId, LocalDate fecha);
+
+    List<ResumenDiario> findByUsuarioIdAndFechaBetweenOrderByFecha(Long usuarioId, LocalDate fechaInicio, LocalDate fechaFin);
+
+    List<ResumenDiario> findByUsuarioIdAndFechaBetweenAndCompletadosGreaterThan(Long usuarioId, LocalDate fechaInicio, LocalDate fechaFin, Long completados);
+
+    long countByUsuarioIdAndFechaBetweenAndCompletadosGreaterThan(Long usuarioId, LocalDate fechaInicio, LocalDate fechaFin, Long completados);
+
+    // Alta o actualización en una sola sentencia apoyada en uk_resumen_usuario_fecha: dos primeras
+    // escrituras del mismo día a la vez no chocan. El id solo se usa si la fila no existía
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "resumenes_diarios"))
+    @Query(nativeQuery = true, value = "INSERT INTO resumenes_diarios (id, usuario_id, fecha, completados, habitos_activos) " +
+           "VALUES (:id, :usuarioId, :fecha, :completados, " + HABITOS_ACTIVOS + ") " +
+           "ON DUPLICATE KEY UPDATE completados = VALUES(completados)")
+    int upsertCompletados(@Param("id") Long id, @Param("usuarioId") Long usuarioId, @Param("fecha") LocalDate fecha,
+                          @Param("completados") Long completados);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "resumenes_diarios"))
+    @Query(nativeQuery = true, value = "INSERT INTO resumenes_diarios (id, usuario_id, fecha, completados, habitos_activos) " +
+           "VALUES (:id, :usuarioId, :fecha, 0, " + HABITOS_ACTIVOS + ") " +
+           "ON DUPLICATE KEY UPDATE habitos_activos = VALUES(habitos_activos)")
+    int upsertHabitosActivos(@Param("id") Long id, @Param("usuarioId") Long usuarioId, @Param("fecha") LocalDate fecha);
+
+    void deleteByUsuarioId(Long usuarioId);
+}
@@ -0,0 +1,19 @@
+package com.healthcare.repository;
+
+import com.healthcare.model.ResumenPoblacion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ResumenPoblacionRepository extends JpaRepository<ResumenPoblacion, Long> {
+
+    List<ResumenPoblacion> findAllByOrderByTipoAscIdAsc();
+
+    @Modifying
+    @Query("DELETE FROM ResumenPoblacion r")
+    void eliminarTodos();
+}
@@ -1,12 +1,20 @@
 package com.healthcare.repository;
 
 import com.healthcare.model.Usuario;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 @Repository
 public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
@@ -14,8 +22,33 @@ public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
     Optional<Usuario> findByEmailAndPassword(String email, String password);
     Optional<Usuario> findByEmail(String email);
     Optional<Usuario> findById(Long id);
+
+    // El COUNT por id pasa por la caché de consultas, invalidada con cualquier escritura en usuarios
+    @Override
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    boolean existsById(Long id);
     boolean existsByEmail(String email);
 
     @Query("SELECT u FROM Usuario u WHERE u.email = :email AND u.id != :id")
     Optional<Usuario> findByEmailAndIdNot(@Param("email") String email, @Param("id") Long id);
+
+    @Query("SELECT u.id FROM Usuario u ORDER BY u.id")
+    List<Long> findAllIds();
+
+    @Query("SELECT u FROM Usuario u WHERE u.id > :despuesDe ORDER BY u.id")
+    List<Usuario> findByIdGreaterThan(@Param("despuesDe") Long despuesDe, Pageable pageable);
+
+    // Requiere una transacción abierta; quien recorre el stream debe desvincular cada usuario
+    @Query("SELECT u FROM Usuario u ORDER BY u.id")
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    Stream<Usuario> streamAll();
+
+    @Query("SELECT u.id FROM Usuario u WHERE u.id > :ultimoId ORDER BY u.id")
+    List<Long> findIdsDespuesDe(@Param("ultimoId") Long ultimoId, Pageable pageable);
+
+    @Query("SELECT MIN(u.id) FROM Usuario u")
+    Long findMinId();
+
+    @Query("SELECT MAX(u.id) FROM Usuario u")
+    Long findMaxId();
 }
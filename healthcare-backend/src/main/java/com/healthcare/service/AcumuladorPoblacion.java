@@ -0,0 +1,55 @@
+package com.healthcare.service;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Acumulador combinable: cada lote produce uno y se fusionan al unir las tareas
+class AcumuladorPoblacion {
+
+    static final String[] RANGOS_RACHA = {"0", "1", "2-3", "4-7", "8-14", "15-30", "31-90", "91-365", "366+"};
+    private static final long[] LIMITES_RACHA = {0, 1, 3, 7, 14, 30, 90, 365, Long.MAX_VALUE};
+
+    // categoria -> [registros, completados]
+    final Map<String, long[]> porCategoria = new HashMap<>();
+    final long[] distribucionRachas = new long[RANGOS_RACHA.length];
+    final Map<LocalDate, Long> usuariosActivosPorDia = new TreeMap<>();
+    long usuarios;
+
+    void registrar(String categoria, boolean completado) {
+        long[] conteo = porCategoria.computeIfAbsent(categoria, c -> new long[2]);
+        conteo[0]++;
+        if (completado) {
+            conteo[1]++;
+        }
+    }
+
+    void registrarUsuarioActivo(LocalDate fecha) {
+        usuariosActivosPorDia.merge(fecha, 1L, Long::sum);
+    }
+
+    void registrarRachaMaxima(long racha) {
+        usuarios++;
+        for (int i = 0; i < LIMITES_RACHA.length; i++) {
+            if (racha <= LIMITES_RACHA[i]) {
+                distribucionRachas[i]++;
+                return;
+            }
+        }
+    }
+
+    AcumuladorPoblacion combinar(AcumuladorPoblacion otro) {
+        otro.porCategoria.forEach((categoria, conteo) -> {
+            long[] propio = porCategoria.computeIfAbsent(categoria, c -> new long[2]);
+            propio[0] += conteo[0];
+            propio[1] += conteo[1];
+        });
+        for (int i = 0; i < distribucionRachas.length; i++) {
+            distribucionRachas[i] += otro.distribucionRachas[i];
+        }
+        otro.usuariosActivosPorDia.forEach((fecha, total) -> usuariosActivosPorDia.merge(fecha, total, Long::sum));
+        usuarios += otro.usuarios;
+        return this;
+    }
+}
@@ -0,0 +1,213 @@
+package com.healthcare.service;
+
+import com.healthcare.model.ResumenPoblacion;
+import com.healthcare.model.ResumenPoblacion.TipoResumen;
+import com.healthcare.repository.RegistroHabitoRepository;
+import com.healthcare.repository.ResumenPoblacionRepository;
+import com.healthcare.repository.UsuarioRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.Serial;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@Service
+@Slf4j
+public class AnaliticaPoblacionService {
+
+    private final RegistroHabitoRepository registroHabitoRepository;
+    private final UsuarioRepository usuarioRepository;
+    private final ResumenPoblacionRepository resumenPoblacionRepository;
+    private final TransactionTemplate lectura;
+    private final TransactionTemplate escritura;
+    private final ForkJoinPool pool;
+    private final long usuariosPorLote;
+    private final int diasVentana;
+    private final AtomicBoolean enEjecucion = new AtomicBoolean(false);
+
+    public AnaliticaPoblacionService(RegistroHabitoRepository registroHabitoRepository,
+                                     UsuarioRepository usuarioRepository,
+                                     ResumenPoblacionRepository resumenPoblacionRepository,
+                                     PlatformTransactionManager transactionManager,
+                                     @Value("${healthcare.analitica.paralelismo:4}") int paralelismo,
+                                     @Value("${healthcare.analitica.usuarios-por-lote:1000}") long usuariosPorLote,
+                                     @Value("${healthcare.analitica.dias-ventana:90}") int diasVentana) {
+        this.registroHabitoRepository = registroHabitoRepository;
+        this.usuarioRepository = usuarioRepository;
+        this.resumenPoblacionRepository = resumenPoblacionRepository;
+        this.lectura = new TransactionTemplate(transactionManager);
+        this.lectura.setReadOnly(true);
+        this.escritura = new TransactionTemplate(transactionManager);
+        this.pool = new ForkJoinPool(paralelismo);
+        this.usuariosPorLote = usuariosPorLote;
+        this.diasVentana = diasVentana;
+    }
+
+    public Map<TipoResumen, List<ResumenPoblacion>> obtenerResumen() {
+        return resumenPoblacionRepository.findAllByOrderByTipoAscIdAsc().stream()
+                .collect(Collectors.groupingBy(ResumenPoblacion::getTipo));
+    }
+
+    public boolean ejecutarEnSegundoPlano() {
+        if (!enEjecucion.compareAndSet(false, true)) {
+            return false;
+        }
+        CompletableFuture.runAsync(() -> {
+            try {
+                ejecutar();
+            } catch (RuntimeException e) {
+                log.error("Error en la analítica poblacional: {}", e.getMessage(), e);
+            } finally {
+                enEjecucion.set(false);
+            }
+        });
+        return true;
+    }
+
+    void ejecutar() {
+        long inicio = System.currentTimeMillis();
+        Long minId = usuarioRepository.findMinId();
+        Long maxId = usuarioRepository.findMaxId();
+        if (minId == null) {
+            log.info("Analítica poblacional: no hay usuarios");
+            return;
+        }
+
+        LocalDate hoy = LocalDate.now();
+        LocalDate inicioVentana = hoy.minusDays(diasVentana - 1L);
+
+        AcumuladorPoblacion total = pool.invoke(new LoteUsuarios(minId, maxId, inicioVentana, hoy));
+
+        // Los usuarios sin ningún registro no aparecen en el recorrido
+        long sinRegistros = usuarioRepository.count() - total.usuarios;
+        total.distribucionRachas[0] += Math.max(0, sinRegistros);
+
+        escritura.executeWithoutResult(status -> guardar(total));
+        log.info("Analítica poblacional completada en {} ms ({} usuarios con registros)",
+                System.currentTimeMillis() - inicio, total.usuarios);
+    }
+
+    private void guardar(AcumuladorPoblacion acumulador) {
+        LocalDateTime ahora = LocalDateTime.now();
+        List<ResumenPoblacion> filas = new ArrayList<>();
+
+        acumulador.porCategoria.forEach((categoria, conteo) -> filas.add(new ResumenPoblacion(null,
+                TipoResumen.CATEGORIA, categoria, conteo[0], conteo[1],
+                conteo[0] > 0 ? (double) conteo[1] / conteo[0] * 100 : 0, ahora)));
+
+        long totalUsuarios = 0;
+        for (long usuarios : acumulador.distribucionRachas) {
+            totalUsuarios += usuarios;
+        }
+        for (int i = 0; i < AcumuladorPoblacion.RANGOS_RACHA.length; i++) {
+            long usuarios = acumulador.distribucionRachas[i];
+            filas.add(new ResumenPoblacion(null, TipoResumen.DISTRIBUCION_RACHA, AcumuladorPoblacion.RANGOS_RACHA[i],
+                    usuarios, null, totalUsuarios > 0 ? (double) usuarios / totalUsuarios * 100 : 0, ahora));
+        }
+
+        acumulador.usuariosActivosPorDia.forEach((fecha, usuarios) -> filas.add(new ResumenPoblacion(null,
+                TipoResumen.USUARIOS_ACTIVOS_DIA, fecha.toString(), usuarios, null, null, ahora)));
+
+        resumenPoblacionRepository.eliminarTodos();
+        resumenPoblacionRepository.saveAll(filas);
+    }
+
+    // Recorre en streaming los registros de un rango de usuarios ordenados por usuario y fecha
+    private AcumuladorPoblacion procesarRango(long desde, long hasta, LocalDate inicioVentana, LocalDate hoy) {
+        AcumuladorPoblacion acumulador = new AcumuladorPoblacion();
+
+        lectura.executeWithoutResult(status -> {
+            try (Stream<Object[]> filas = registroHabitoRepository.streamByUsuarioIdBetween(desde, hasta)) {
+                Long usuarioActual = null;
+                LocalDate ultimoDiaCompletado = null;
+                long racha = 0;
+                long rachaMaxima = 0;
+
+                for (Object[] fila : (Iterable<Object[]>) filas::iterator) {
+                    Long usuarioId = (Long) fila[0];
+                    String categoria = (String) fila[1];
+                    LocalDate fecha = (LocalDate) fila[2];
+                    boolean completado = Boolean.TRUE.equals(fila[3]);
+
+                    if (!usuarioId.equals(usuarioActual)) {
+                        if (usuarioActual != null) {
+                            acumulador.registrarRachaMaxima(rachaMaxima);
+                        }
+                        usuarioActual = usuarioId;
+                        ultimoDiaCompletado = null;
+                        racha = 0;
+                        rachaMaxima = 0;
+                    }
+
+                    boolean enVentana = !fecha.isBefore(inicioVentana) && !fecha.isAfter(hoy);
+                    if (enVentana) {
+                        acumulador.registrar(categoria, completado);
+                    }
+
+                    if (completado && !fecha.equals(ultimoDiaCompletado)) {
+                        racha = ultimoDiaCompletado != null && fecha.equals(ultimoDiaCompletado.plusDays(1)) ? racha + 1 : 1;
+                        rachaMaxima = Math.max(rachaMaxima, racha);
+                        ultimoDiaCompletado = fecha;
+                        if (enVentana) {
+                            acumulador.registrarUsuarioActivo(fecha);
+                        }
+                    }
+                }
+                if (usuarioActual != null) {
+                    acumulador.registrarRachaMaxima(rachaMaxima);
+                }
+            }
+        });
+
+        return acumulador;
+    }
+
+    @PreDestroy
+    void cerrar() {
+        pool.shutdownNow();
+    }
+
+    private class LoteUsuarios extends RecursiveTask<AcumuladorPoblacion> {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final long desde;
+        private final long hasta;
+        private final LocalDate inicioVentana;
+        private final LocalDate hoy;
+
+        LoteUsuarios(long desde, long hasta, LocalDate inicioVentana, LocalDate hoy) {
+            this.desde = desde;
+            this.hasta = hasta;
+            this.inicioVentana = inicioVentana;
+            this.hoy = hoy;
+        }
+
+        @Override
+        protected AcumuladorPoblacion compute() {
+            if (hasta - desde < usuariosPorLote) {
+                return procesarRango(desde, hasta, inicioVentana, hoy);
+            }
+            long medio = desde + (hasta - desde) / 2;
+            LoteUsuarios izquierda = new LoteUsuarios(desde, medio, inicioVentana, hoy);
+            LoteUsuarios derecha = new LoteUsuarios(medio + 1, hasta, inicioVentana, hoy);
+            izquierda.fork();
+            return derecha.compute().combinar(izquierda.join());
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.healthcare.service;
+
+import com.healthcare.model.CheckpointTrabajo;
+import com.healthcare.model.CheckpointTrabajo.EstadoTrabajo;
+import com.healthcare.repository.CheckpointTrabajoRepository;
+import com.healthcare.repository.UsuarioRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Mueve al archivo los registros anteriores al horizonte, usuario a usuario y con checkpoint.
+// El corte se publica antes de empezar: desde ese momento los días anteriores son de solo lectura
+// y las lecturas combinan archivo y nivel caliente, estén o no movidos todavía. Antes de mover
+// nada se espera a que el resto de instancias hayan refrescado el corte (refresco-corte-ms), para
+// que ninguna siga aceptando escrituras en días que ya se están archivando.
+@Service
+@Slf4j
+public class ArchivoRegistrosJob {
+
+    static final String NOMBRE = ArchivoRegistrosService.NOMBRE_TRABAJO;
+
+    // Las estadísticas miran 6 meses atrás y la analítica poblacional 90 días
+    private static final int HORIZONTE_MINIMO_MESES = 12;
+    // Para escrituras que comprobaron el corte viejo justo antes del refresco y aún no han confirmado
+    private static final Duration MARGEN_PROPAGACION = Duration.ofMinutes(1);
+
+    private final UsuarioRepository usuarioRepository;
+    private final ArchivoRegistrosService archivoRegistrosService;
+    private final CheckpointTrabajoRepository checkpointRepository;
+    private final boolean habilitado;
+    private final int horizonteMeses;
+    private final int usuariosPorLote;
+    private final long pausaEntreLotesMs;
+    private final long refrescoCorteMs;
+
+    private final AtomicBoolean enEjecucion = new AtomicBoolean(false);
+    private final AtomicLong usuariosProcesados = new AtomicLong();
+    private final Counter registrosArchivados;
+    private final Counter fallos;
+    private final Timer duracion;
+
+    public ArchivoRegistrosJob(UsuarioRepository usuarioRepository,
+                               ArchivoRegistrosService archivoRegistrosService,
+                               CheckpointTrabajoRepository checkpointRepository,
+                               MeterRegistry meterRegistry,
+                               @Value("${healthcare.archivo.habilitado:true}") boolean habilitado,
+                               @Value("${healthcare.archivo.horizonte-meses:24}") int horizonteMeses,
+                               @Value("${healthcare.archivo.usuarios-por-lote:100}") int usuariosPorLote,
+                               @Value("${healthcare.archivo.pausa-entre-lotes-ms:500}") long pausaEntreLotesMs,
+                               @Value("${healthcare.archivo.refresco-corte-ms:300000}") long refrescoCorteMs) {
+        if (horizonteMeses < HORIZONTE_MINIMO_MESES) {
+            throw new IllegalArgumentException("healthcare.archivo.horizonte-meses debe ser al menos " + HORIZONTE_MINIMO_MESES);
+        }
+        this.usuarioRepository = usuarioRepository;
+        this.archivoRegistrosService = archivoRegistrosService;
+        this.checkpointRepository = checkpointRepository;
+        this.habilitado = habilitado;
+        this.horizonteMeses = horizonteMeses;
+        this.usuariosPorLote = usuariosPorLote;
+        this.pausaEntreLotesMs = pausaEntreLotesMs;
+        this.refrescoCorteMs = refrescoCorteMs;
+
+        meterRegistry.gauge("healthcare.archivo.usuarios.procesados", usuariosProcesados);
+        this.registrosArchivados = meterRegistry.counter("healthcare.archivo.registros");
+        this.fallos = meterRegistry.counter("healthcare.archivo.fallos");
+        this.duracion = meterRegistry.timer("healthcare.archivo.duracion");
+    }
+
+    @Scheduled(cron = "${healthcare.archivo.cron:0 30 2 1 * *}")
+    public void ejecutarProgramado() {
+        if (habilitado) {
+            ejecutar(corteObjetivo());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reanudarSiInterrumpido() {
+        boolean interrumpido = habilitado && checkpointRepository.findById(NOMBRE)
+                .filter(c -> c.getEstado() == EstadoTrabajo.EN_CURSO)
+                .isPresent();
+        if (interrumpido) {
+            log.info("Reanudando archivado de registros interrumpido");
+            CompletableFuture.runAsync(() -> ejecutar(checkpointRepository.findById(NOMBRE).orElseThrow().getFechaCorte()));
+        }
+    }
+
+    public boolean ejecutarEnSegundoPlano() {
+        if (enEjecucion.get()) {
+            return false;
+        }
+        CompletableFuture.runAsync(() -> ejecutar(corteObjetivo()));
+        return true;
+    }
+
+    public Map<String, Object> obtenerEstado() {
+        Map<String, Object> estado = new LinkedHashMap<>();
+        estado.put("enEjecucion", enEjecucion.get());
+        estado.put("procesados", usuariosProcesados.get());
+        estado.put("horizonteMeses", horizonteMeses);
+        checkpointRepository.findById(NOMBRE).ifPresent(c -> {
+            estado.put("fechaCorte", c.getFechaCorte());
+            estado.put("estado", c.getEstado());
+            estado.put("ultimoUsuarioId", c.getUltimoUsuarioId());
+            estado.put("fallidos", c.getFallidos());
+            estado.put("fechaInicio", c.getFechaInicio());
+            estado.put("fechaActualizacion", c.getFechaActualizacion());
+        });
+        return estado;
+    }
+
+    // Se archivan meses completos
+    LocalDate corteObjetivo() {
+        return LocalDate.now().withDayOfMonth(1).minusMonths(horizonteMeses);
+    }
+
+    void ejecutar(LocalDate fechaCorte) {
+        if (!enEjecucion.compareAndSet(false, true)) {
+            log.warn("El archivado de registros ya está en ejecución");
+            return;
+        }
+        try {
+            duracion.record(() -> procesar(fechaCorte));
+        } catch (RuntimeException e) {
+            log.error("Error en el archivado de registros: {}", e.getMessage(), e);
+        } finally {
+            enEjecucion.set(false);
+        }
+    }
+
+    private void procesar(LocalDate fechaCorte) {
+        CheckpointTrabajo checkpoint = checkpointRepository.findById(NOMBRE).orElse(null);
+        if (checkpoint != null && fechaCorte.isBefore(checkpoint.getFechaCorte())) {
+            // Retroceder el corte dejaría días archivados por delante del nivel caliente
+            log.warn("El corte {} es anterior al ya archivado {}; no se archiva nada", fechaCorte, checkpoint.getFechaCorte());
+            return;
+        }
+        if (checkpoint != null && checkpoint.getFechaCorte().equals(fechaCorte)
+                && checkpoint.getEstado() == EstadoTrabajo.COMPLETADO) {
+            log.info("Archivado de registros ya completado hasta {}", fechaCorte);
+            return;
+        }
+        if (checkpoint == null || !checkpoint.getFechaCorte().equals(fechaCorte)) {
+            checkpoint = new CheckpointTrabajo(NOMBRE, fechaCorte, 0L, EstadoTrabajo.EN_CURSO,
+                    0L, 0L, LocalDateTime.now(), null);
+            checkpoint = checkpointRepository.save(checkpoint);
+        }
+        archivoRegistrosService.establecerCorte(fechaCorte);
+        esperarPropagacionCorte(checkpoint.getFechaInicio());
+
+        usuariosProcesados.set(checkpoint.getProcesados() + checkpoint.getFallidos());
+        log.info("Archivando registros anteriores a {} desde el usuario {}", fechaCorte, checkpoint.getUltimoUsuarioId());
+
+        List<Long> lote = usuarioRepository.findIdsDespuesDe(checkpoint.getUltimoUsuarioId(), PageRequest.of(0, usuariosPorLote));
+        while (!lote.isEmpty()) {
+            long correctos = lote.stream().filter(usuarioId -> archivarUsuario(usuarioId, fechaCorte)).count();
+
+            checkpoint.setUltimoUsuarioId(lote.get(lote.size() - 1));
+            checkpoint.setProcesados(checkpoint.getProcesados() + correctos);
+            checkpoint.setFallidos(checkpoint.getFallidos() + lote.size() - correctos);
+            checkpoint = checkpointRepository.save(checkpoint);
+
+            pausar();
+            lote = usuarioRepository.findIdsDespuesDe(checkpoint.getUltimoUsuarioId(), PageRequest.of(0, usuariosPorLote));
+        }
+
+        checkpoint.setEstado(EstadoTrabajo.COMPLETADO);
+        checkpointRepository.save(checkpoint);
+        log.info("Archivado de registros completado hasta {}: {} usuarios, {} fallidos",
+                fechaCorte, checkpoint.getProcesados(), checkpoint.getFallidos());
+    }
+
+    private boolean archivarUsuario(Long usuarioId, LocalDate fechaCorte) {
+        try {
+            registrosArchivados.increment(archivoRegistrosService.archivarUsuario(usuarioId, fechaCorte));
+            return true;
+        } catch (RuntimeException e) {
+            fallos.increment();
+            log.warn("No se pudieron archivar los registros del usuario {}: {}", usuarioId, e.getMessage());
+            return false;
+        } finally {
+            usuariosProcesados.incrementAndGet();
+        }
+    }
+
+    // Al reanudar un trabajo publicado hace tiempo no se espera de nuevo
+    private void esperarPropagacionCorte(LocalDateTime publicado) {
+        LocalDateTime listo = publicado.plus(Duration.ofMillis(refrescoCorteMs)).plus(MARGEN_PROPAGACION);
+        long esperaMs = Duration.between(LocalDateTime.now(), listo).toMillis();
+        if (esperaMs <= 0) {
+            return;
+        }
+        log.info("Esperando {} s a que todas las instancias vean el corte antes de archivar", esperaMs / 1000);
+        try {
+            Thread.sleep(esperaMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Archivado interrumpido", e);
+        }
+    }
+
+    // Pausa entre lotes para no saturar la base de datos
+    private void pausar() {
+        if (pausaEntreLotesMs <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(pausaEntreLotesMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Archivado interrumpido", e);
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package com.healthcare.service;
+
+import com.healthcare.dto.RegistroArchivado;
+import com.healthcare.model.ArchivoRegistrosMes;
+import com.healthcare.model.RegistroHabito;
+import com.healthcare.repository.ArchivoRegistrosMesRepository;
+import com.healthcare.repository.CheckpointTrabajoRepository;
+import com.healthcare.repository.RegistroHabitoRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+// Almacén frío de registros_habitos: los registros anteriores a la fecha de corte se guardan
+// comprimidos, un bloque por usuario y mes. Para cada usuario todo lo archivado es anterior a
+// lo que queda en caliente, así que las lecturas pueden concatenar ambos niveles en orden.
+// Los días archivados son de solo lectura.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ArchivoRegistrosService {
+
+    static final String NOMBRE_TRABAJO = "archivo-registros";
+
+    private static final int VERSION_FORMATO = 1;
+
+    private final ArchivoRegistrosMesRepository archivoRepository;
+    private final RegistroHabitoRepository registroHabitoRepository;
+    private final CheckpointTrabajoRepository checkpointRepository;
+
+    // null mientras no se haya archivado nunca
+    private volatile LocalDate fechaCorte;
+    private volatile boolean corteCargado;
+
+    public LocalDate fechaCorte() {
+        if (!corteCargado) {
+            refrescarCorte();
+        }
+        return fechaCorte;
+    }
+
+    // Otras instancias pueden haber adelantado el corte
+    @Scheduled(fixedDelayString = "${healthcare.archivo.refresco-corte-ms:300000}")
+    public void refrescarCorte() {
+        fechaCorte = checkpointRepository.findById(NOMBRE_TRABAJO).map(c -> c.getFechaCorte()).orElse(null);
+        corteCargado = true;
+    }
+
+    void establecerCorte(LocalDate corte) {
+        fechaCorte = corte;
+        corteCargado = true;
+    }
+
+    public boolean estaArchivada(LocalDate fecha) {
+        LocalDate corte = fechaCorte();
+        return corte != null && fecha != null && fecha.isBefore(corte);
+    }
+
+    public void comprobarEscritura(LocalDate fecha) {
+        if (estaArchivada(fecha)) {
+            throw new IllegalArgumentException("La fecha " + fecha + " está archivada y es de solo lectura");
+        }
+    }
+
+    // Rangos dentro del nivel caliente no consultan el archivo
+    @Transactional(readOnly = true)
+    public List<RegistroArchivado> leer(Long usuarioId, LocalDate desde, LocalDate hasta) {
+        if (!estaArchivada(desde)) {
+            return List.of();
+        }
+        List<RegistroArchivado> registros = new ArrayList<>();
+        for (ArchivoRegistrosMes mes : archivoRepository.findByUsuarioIdAndMesBetweenOrderByMes(usuarioId, desde.withDayOfMonth(1), hasta)) {
+            for (RegistroArchivado registro : descomprimir(mes)) {
+                if (!registro.fecha().isBefore(desde) && !registro.fecha().isAfter(hasta)) {
+                    registros.add(registro);
+                }
+            }
+        }
+        return registros;
+    }
+
+    // Completados por día del rango en orden de fecha. Se descomprime y agrega un bloque mensual
+    // cada vez, así que en memoria solo están ese bloque y sus totales diarios
+    @Transactional(readOnly = true)
+    public void recorrerCompletadosPorFecha(Long usuarioId, LocalDate desde, LocalDate hasta, BiConsumer<LocalDate, Long> visitante) {
+        if (!estaArchivada(desde)) {
+            return;
+        }
+        try (Stream<Object[]> bloques = archivoRepository.streamBloquesByUsuarioIdAndMesBetween(usuarioId, desde.withDayOfMonth(1), hasta)) {
+            bloques.forEach(bloque -> {
+                TreeMap<LocalDate, Long> porDia = new TreeMap<>();
+                recorrer((LocalDate) bloque[0], (byte[]) bloque[1], registro -> {
+                    if (registro.completado() && !registro.fecha().isBefore(desde) && !registro.fecha().isAfter(hasta)) {
+                        porDia.merge(registro.fecha(), 1L, Long::sum);
+                    }
+                });
+                porDia.forEach(visitante);
+            });
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public List<RegistroArchivado> leerTodos(Long usuarioId) {
+        if (fechaCorte() == null) {
+            return List.of();
+        }
+        List<RegistroArchivado> registros = new ArrayList<>();
+        archivoRepository.findByUsuarioIdOrderByMes(usuarioId).forEach(mes -> registros.addAll(descomprimir(mes)));
+        return registros;
+    }
+
+    // Días completados del archivo en orden, para índices derivados y estadísticas
+    public List<LocalDate> fechasCompletadas(List<RegistroArchivado> registros) {
+        return registros.stream()
+                .filter(RegistroArchivado::completado)
+                .map(RegistroArchivado::fecha)
+                .distinct()
+                .sorted()
+                .toList();
+    }
+
+    public TreeMap<LocalDate, Long> completadosPorFecha(List<RegistroArchivado> registros) {
+        return registros.stream()
+                .filter(RegistroArchivado::completado)
+                .collect(Collectors.groupingBy(RegistroArchivado::fecha, TreeMap::new, Collectors.counting()));
+    }
+
+    // Mueve al archivo los registros del usuario anteriores al corte, en una sola transacción
+    @Transactional
+    public int archivarUsuario(Long usuarioId, LocalDate corte) {
+        List<RegistroHabito> frios = registroHabitoRepository.findByUsuarioIdAndFechaBeforeOrderByFecha(usuarioId, corte);
+        if (frios.isEmpty()) {
+            return 0;
+        }
+
+        Map<LocalDate, List<RegistroArchivado>> porMes = frios.stream()
+                .map(r -> new RegistroArchivado(r.getId(), r.getHabito().getId(), r.getFecha(), r.getValor(), r.getNotas(),
+                        Boolean.TRUE.equals(r.getCompletado()), r.getFechaRegistro()))
+                .collect(Collectors.groupingBy(r -> r.fecha().withDayOfMonth(1), TreeMap::new, Collectors.toList()));
+
+        porMes.forEach((mes, registros) -> {
+            ArchivoRegistrosMes archivo = archivoRepository.findByUsuarioIdAndMes(usuarioId, mes)
+                    .orElseGet(() -> new ArchivoRegistrosMes(null, usuarioId, mes, 0, 0, null, null));
+            List<RegistroArchivado> todos = new ArrayList<>(archivo.getDatos() != null ? descomprimir(archivo) : List.of());
+            todos.addAll(registros);
+            todos.sort(Comparator.comparing(RegistroArchivado::fecha).thenComparing(RegistroArchivado::id));
+            archivo.setRegistros(todos.size());
+            archivo.setCompletados((int) todos.stream().filter(RegistroArchivado::completado).count());
+            archivo.setDatos(comprimir(todos));
+            archivoRepository.save(archivo);
+        });
+
+        registroHabitoRepository.deleteByUsuarioIdAndFechaBefore(usuarioId, corte);
+        log.debug("Archivados {} registros del usuario {} en {} meses", frios.size(), usuarioId, porMes.size());
+        return frios.size();
+    }
+
+    @Transactional
+    public void eliminarUsuario(Long usuarioId) {
+        archivoRepository.deleteByUsuarioId(usuarioId);
+    }
+
+    // Formato: versión, número de registros y por registro id, hábito, día del mes, valor,
+    // completado, notas y fecha de registro (los dos últimos opcionales), todo en GZIP
+    private static byte[] comprimir(List<RegistroArchivado> registros) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream salida = new DataOutputStream(new GZIPOutputStream(bytes))) {
+            salida.writeByte(VERSION_FORMATO);
+            salida.writeInt(registros.size());
+            for (RegistroArchivado registro : registros) {
+                salida.writeLong(registro.id());
+                salida.writeLong(registro.habitoId());
+                salida.writeByte(registro.fecha().getDayOfMonth());
+                salida.writeDouble(registro.valor() != null ? registro.valor() : Double.NaN);
+                salida.writeBoolean(registro.completado());
+                salida.writeBoolean(registro.notas() != null);
+                if (registro.notas() != null) {
+                    salida.writeUTF(registro.notas());
+                }
+                salida.writeBoolean(registro.fechaRegistro() != null);
+                if (registro.fechaRegistro() != null) {
+                    salida.writeLong(registro.fechaRegistro().toEpochSecond(ZoneOffset.UTC));
+                    salida.writeInt(registro.fechaRegistro().getNano());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static List<RegistroArchivado> descomprimir(ArchivoRegistrosMes archivo) {
+        List<RegistroArchivado> registros = new ArrayList<>();
+        recorrer(archivo.getMes(), archivo.getDatos(), registros::add);
+        return registros;
+    }
+
+    // Decodifica el bloque registro a registro, sin reunirlos en una lista
+    private static void recorrer(LocalDate mes, byte[] datos, Consumer<RegistroArchivado> visitante) {
+        try (DataInputStream entrada = new DataInputStream(new GZIPInputStream(new ByteArrayInputStream(datos)))) {
+            int version = entrada.readByte();
+            if (version != VERSION_FORMATO) {
+                throw new IllegalStateException("Versión de archivo de registros desconocida: " + version);
+            }
+            int total = entrada.readInt();
+            for (int i = 0; i < total; i++) {
+                long id = entrada.readLong();
+                long habitoId = entrada.readLong();
+                LocalDate fecha = mes.withDayOfMonth(entrada.readByte());
+                double valor = entrada.readDouble();
+                boolean completado = entrada.readBoolean();
+                String notas = entrada.readBoolean() ? entrada.readUTF() : null;
+                LocalDateTime fechaRegistro = entrada.readBoolean()
+                        ? LocalDateTime.ofEpochSecond(entrada.readLong(), entrada.readInt(), ZoneOffset.UTC)
+                        : null;
+                visitante.accept(new RegistroArchivado(id, habitoId, fecha, Double.isNaN(valor) ? null : valor, notas,
+                        completado, fechaRegistro));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
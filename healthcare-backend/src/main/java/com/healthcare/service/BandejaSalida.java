@@ -0,0 +1,69 @@
+package com.healthcare.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.healthcare.event.EventoBandejaSalida;
+import com.healthcare.model.MensajeSaliente;
+import com.healthcare.repository.MensajeSalienteRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// Escritura de la bandeja de salida: antes de confirmar, cada EventoBandejaSalida con consumidores
+// se inserta en la misma transacción que el cambio, así que o se guardan los dos o ninguno. La
+// petición solo paga ese INSERT; el trabajo de los consumidores lo hace RelevoBandejaSalida
+@Component
+public class BandejaSalida {
+
+    private final MensajeSalienteRepository mensajeSalienteRepository;
+    private final ObjectMapper objectMapper;
+    private final RelevoBandejaSalida relevo;
+    private final Set<Class<?>> tiposConConsumidor;
+    private final Counter escritos;
+
+    public BandejaSalida(MensajeSalienteRepository mensajeSalienteRepository,
+                         ObjectMapper objectMapper,
+                         RelevoBandejaSalida relevo,
+                         List<ConsumidorBandeja<?>> consumidores,
+                         MeterRegistry meterRegistry) {
+        this.mensajeSalienteRepository = mensajeSalienteRepository;
+        this.objectMapper = objectMapper;
+        this.relevo = relevo;
+        this.tiposConConsumidor = consumidores.stream().map(ConsumidorBandeja::tipo).collect(Collectors.toSet());
+        this.escritos = meterRegistry.counter("healthcare.bandeja-salida.escritos");
+    }
+
+    // Sin transacción (fallbackExecution) el INSERT va en una propia, en el momento de publicar
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void guardar(EventoBandejaSalida evento) {
+        if (!tiposConConsumidor.contains(evento.getClass())) {
+            return;
+        }
+        MensajeSaliente mensaje = new MensajeSaliente();
+        mensaje.setTipo(evento.getClass().getName());
+        try {
+            mensaje.setCarga(objectMapper.writeValueAsString(evento));
+        } catch (JsonProcessingException e) {
+            // Falla la transacción del cambio: mejor que confirmarlo sin su evento
+            throw new IllegalStateException("No se pudo serializar " + evento.getClass().getSimpleName(), e);
+        }
+        mensaje.setDisponibleEn(LocalDateTime.now());
+        mensajeSalienteRepository.save(mensaje);
+        escritos.increment();
+    }
+
+    // Tras confirmar, el relevo no espera a su siguiente sondeo
+    @TransactionalEventListener(fallbackExecution = true)
+    public void avisarRelevo(EventoBandejaSalida evento) {
+        if (tiposConConsumidor.contains(evento.getClass())) {
+            relevo.despertar();
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.healthcare.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.healthcare.dto.RegistroArchivado;
+import com.healthcare.event.RegistroHabitoModificadoEvent;
+import com.healthcare.event.RegistrosHabitoLoteEvent;
+import com.healthcare.repository.RegistroHabitoRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Índice en memoria de los días con al menos un hábito completado, un bit por día
+@Component
+@Slf4j
+public class BitmapCompletados {
+
+    private final RegistroHabitoRepository registroHabitoRepository;
+    private final ArchivoRegistrosService archivoRegistrosService;
+    private final boolean habilitado;
+    private final boolean porHabito;
+    private final Cache<Long, BitmapUsuario> bitmaps;
+    // Lecturas del índice en el primario: una réplica retrasada dejaría en caché un bit anterior al
+    // commit hasta el siguiente cambio de ese día. De lectura-escritura porque DataSourceEnrutado solo
+    // manda a réplicas las de solo lectura, y nueva porque tras el commit la del evento ya terminó
+    private final TransactionTemplate lecturaPrimario;
+
+    public BitmapCompletados(RegistroHabitoRepository registroHabitoRepository,
+                             ArchivoRegistrosService archivoRegistrosService,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${healthcare.bitmap.habilitado:true}") boolean habilitado,
+                             @Value("${healthcare.bitmap.por-habito:false}") boolean porHabito,
+                             @Value("${healthcare.bitmap.presupuesto-mb:64}") long presupuestoMb) {
+        this.registroHabitoRepository = registroHabitoRepository;
+        this.archivoRegistrosService = archivoRegistrosService;
+        this.habilitado = habilitado;
+        this.porHabito = porHabito;
+        this.lecturaPrimario = new TransactionTemplate(transactionManager);
+        this.lecturaPrimario.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.bitmaps = Caffeine.newBuilder()
+                .maximumWeight(presupuestoMb * 1024 * 1024)
+                .weigher((Long usuarioId, BitmapUsuario bitmap) -> bitmap.tamanoEstimado())
+                .recordStats()
+                .build();
+    }
+
+    public boolean isHabilitado() {
+        return habilitado;
+    }
+
+    public long rachaHasta(Long usuarioId, LocalDate fecha) {
+        return obtener(usuarioId).general.racha(fecha.toEpochDay());
+    }
+
+    public long contarDiasActivos(Long usuarioId, LocalDate fechaInicio, LocalDate fechaFin) {
+        return obtener(usuarioId).general.contar(fechaInicio.toEpochDay(), fechaFin.toEpochDay());
+    }
+
+    public long contarDiasCompletados(Long usuarioId, Long habitoId, LocalDate fechaInicio, LocalDate fechaFin) {
+        if (!porHabito) {
+            throw new IllegalStateException("El índice por hábito está deshabilitado");
+        }
+        DiasBits dias = obtener(usuarioId).porHabito.get(habitoId);
+        return dias != null ? dias.contar(fechaInicio.toEpochDay(), fechaFin.toEpochDay()) : 0;
+    }
+
+    // Antes que EstadisticasCache, para que las estadísticas recalculadas ya vean el día actualizado
+    @Order(0)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alModificarRegistro(RegistroHabitoModificadoEvent evento) {
+        BitmapUsuario bitmap = bitmaps.getIfPresent(evento.usuarioId());
+        if (bitmap == null) {
+            // Se cargará completo en la próxima lectura. Se invalida igualmente: una carga en curso
+            // pudo leer antes del commit, e invalidate espera a que termine para descartarla
+            invalidar(evento.usuarioId());
+            return;
+        }
+
+        long dia = evento.fecha().toEpochDay();
+        lecturaPrimario.executeWithoutResult(status -> {
+            bitmap.general.asignar(dia, registroHabitoRepository.existsCompletadoByUsuarioIdAndFecha(evento.usuarioId(), evento.fecha()));
+            if (porHabito) {
+                boolean completado = registroHabitoRepository.existsByHabitoIdAndFechaAndCompletadoTrue(evento.habitoId(), evento.fecha());
+                bitmap.porHabito(evento.habitoId()).asignar(dia, completado);
+            }
+        });
+
+        // Reinsertar para que el presupuesto de memoria use el tamaño actualizado
+        bitmaps.put(evento.usuarioId(), bitmap);
+    }
+
+    @Order(0)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alCrearLote(RegistrosHabitoLoteEvent evento) {
+        // Se recarga completo en la próxima lectura: una consulta en lugar de una por día
+        invalidar(evento.usuarioId());
+    }
+
+    public void invalidar(Long usuarioId) {
+        bitmaps.invalidate(usuarioId);
+    }
+
+    public Map<String, Object> obtenerMetricas() {
+        Map<String, Object> metricas = new LinkedHashMap<>();
+        metricas.put("usuarios", bitmaps.estimatedSize());
+        metricas.put("bytes", bitmaps.policy().eviction().map(e -> e.weightedSize().orElse(0)).orElse(0L));
+        metricas.put("cargas", bitmaps.stats().missCount());
+        metricas.put("desalojos", bitmaps.stats().evictionCount());
+        return metricas;
+    }
+
+    private BitmapUsuario obtener(Long usuarioId) {
+        return bitmaps.get(usuarioId, id -> lecturaPrimario.execute(status -> cargar(id)));
+    }
+
+    private BitmapUsuario cargar(Long usuarioId) {
+        log.debug("Cargando bitmap de días completados para usuario: {}", usuarioId);
+        BitmapUsuario bitmap = new BitmapUsuario();
+
+        for (RegistroArchivado registro : archivoRegistrosService.leerTodos(usuarioId)) {
+            if (registro.completado()) {
+                bitmap.general.asignar(registro.fecha().toEpochDay(), true);
+                if (porHabito) {
+                    bitmap.porHabito(registro.habitoId()).asignar(registro.fecha().toEpochDay(), true);
+                }
+            }
+        }
+
+        if (porHabito) {
+            List<Object[]> completados = registroHabitoRepository.findCompletadosByUsuarioId(usuarioId);
+            for (Object[] fila : completados) {
+                long dia = ((LocalDate) fila[1]).toEpochDay();
+                bitmap.general.asignar(dia, true);
+                bitmap.porHabito((Long) fila[0]).asignar(dia, true);
+            }
+        } else {
+            for (LocalDate fecha : registroHabitoRepository.findFechasCompletadasByUsuarioId(usuarioId)) {
+                bitmap.general.asignar(fecha.toEpochDay(), true);
+            }
+        }
+        return bitmap;
+    }
+
+    private static class BitmapUsuario {
+
+        private final DiasBits general = new DiasBits();
+        private final Map<Long, DiasBits> porHabito = new HashMap<>();
+
+        synchronized DiasBits porHabito(Long habitoId) {
+            return porHabito.computeIfAbsent(habitoId, id -> new DiasBits());
+        }
+
+        synchronized int tamanoEstimado() {
+            int tamano = 64 + general.tamanoEstimado();
+            for (DiasBits dias : porHabito.values()) {
+                tamano += 48 + dias.tamanoEstimado();
+            }
+            return tamano;
+        }
+    }
+
+    // Bits relativos al primer día conocido: un año de historial ocupa ~46 bytes
+    private static class DiasBits {
+
+        private long base = Long.MIN_VALUE;
+        private BitSet bits = new BitSet();
+
+        synchronized void asignar(long dia, boolean valor) {
+            if (base == Long.MIN_VALUE) {
+                if (!valor) {
+                    return;
+                }
+                base = dia;
+            }
+            if (dia < base) {
+                if (!valor) {
+                    return;
+                }
+                desplazar(base - dia);
+                base = dia;
+            }
+            bits.set((int) (dia - base), valor);
+        }
+
+        // Días consecutivos completados terminando en el día indicado
+        synchronized long racha(long dia) {
+            if (base == Long.MIN_VALUE || dia < base) {
+                return 0;
+            }
+            int indice = (int) (dia - base);
+            if (!bits.get(indice)) {
+                return 0;
+            }
+            return indice - bits.previousClearBit(indice);
+        }
+
+        synchronized long contar(long desde, long hasta) {
+            if (base == Long.MIN_VALUE || hasta < base) {
+                return 0;
+            }
+            int inicio = (int) Math.max(0, desde - base);
+            int fin = (int) Math.min(bits.length(), hasta - base + 1);
+            return inicio < fin ? bits.get(inicio, fin).cardinality() : 0;
+        }
+
+        synchronized int tamanoEstimado() {
+            return 32 + bits.size() / 8;
+        }
+
+        private void desplazar(long desplazamiento) {
+            BitSet desplazado = new BitSet(bits.length() + (int) desplazamiento);
+            for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+                desplazado.set(i + (int) desplazamiento);
+            }
+            bits = desplazado;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.healthcare.service;
+
+import com.healthcare.config.CacheSegundoNivelConfig;
+import com.healthcare.model.Habito;
+import com.healthcare.model.Usuario;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Aciertos y fallos de la caché de segundo nivel de Hibernate; requiere hibernate.generate_statistics
+@Component
+public class CacheEntidades {
+
+    private static final List<String> REGIONES = List.of(
+            Usuario.class.getName(), Habito.class.getName(), CacheSegundoNivelConfig.REGION_CONSULTAS);
+
+    private final Statistics estadisticas;
+
+    public CacheEntidades(EntityManagerFactory entityManagerFactory) {
+        this.estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    public Map<String, Object> obtenerMetricas() {
+        Map<String, Object> metricas = new LinkedHashMap<>();
+        metricas.put("habilitadas", estadisticas.isStatisticsEnabled());
+        for (String nombre : REGIONES) {
+            CacheRegionStatistics region = estadisticas.getCacheRegionStatistics(nombre);
+            if (region == null) {
+                continue;
+            }
+            Map<String, Object> datos = new LinkedHashMap<>();
+            // JCache no expone el número de entradas (Hibernate devuelve un valor negativo)
+            if (region.getElementCountInMemory() >= 0) {
+                datos.put("entradas", region.getElementCountInMemory());
+            }
+            datos.put("aciertos", region.getHitCount());
+            datos.put("fallos", region.getMissCount());
+            datos.put("escrituras", region.getPutCount());
+            long consultas = region.getHitCount() + region.getMissCount();
+            datos.put("tasaAciertos", consultas > 0 ? (double) region.getHitCount() / consultas : 0.0);
+            metricas.put(nombre.substring(nombre.lastIndexOf('.') + 1), datos);
+        }
+        metricas.put("consultasEjecutadas", estadisticas.getQueryExecutionCount());
+        metricas.put("entidadesCargadas", estadisticas.getEntityLoadCount());
+        return metricas;
+    }
+}
@@ -0,0 +1,22 @@
+package com.healthcare.service;
+
+import com.healthcare.model.ConfiguracionNotificacion;
+
+import java.util.List;
+import java.util.Optional;
+
+// Proveedor de entrega de un canal (push, Alexa, email, SMS). Cada bean que lo implemente recibe
+// su propio compartimento en EntregaNotificaciones: cola acotada, hilos, reintentos y circuito,
+// configurables en healthcare.notificaciones.canales.<nombre>.*
+public interface CanalNotificacion {
+
+    String nombre();
+
+    // Destino del usuario en este canal; vacío si lo tiene desactivado o le falta el token o dato de contacto
+    Optional<String> destino(ConfiguracionNotificacion configuracion);
+
+    // Envía el lote en una llamada al proveedor. Una excepción es un fallo transitorio y el lote se
+    // reintenta; los envíos devueltos fueron rechazados de forma definitiva (token caducado, número
+    // inválido) y no se reintentan
+    List<EnvioNotificacion> enviar(List<EnvioNotificacion> lote);
+}
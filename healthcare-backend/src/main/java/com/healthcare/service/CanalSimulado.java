@@ -0,0 +1,66 @@
+package com.healthcare.service;
+
+import com.healthcare.model.ConfiguracionNotificacion;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+
+// Proveedor local para pruebas de carga sin red: cada llamada tarda latenciaMs ± 50 %, falla
+// entera con probabilidadFallo y rechaza cada envío con probabilidadInvalido
+@Slf4j
+public class CanalSimulado implements CanalNotificacion {
+
+    private final String nombre;
+    private final Function<ConfiguracionNotificacion, Optional<String>> destino;
+    private final long latenciaMs;
+    private final double probabilidadFallo;
+    private final double probabilidadInvalido;
+
+    public CanalSimulado(String nombre, Function<ConfiguracionNotificacion, Optional<String>> destino,
+                         long latenciaMs, double probabilidadFallo, double probabilidadInvalido) {
+        this.nombre = nombre;
+        this.destino = destino;
+        this.latenciaMs = latenciaMs;
+        this.probabilidadFallo = probabilidadFallo;
+        this.probabilidadInvalido = probabilidadInvalido;
+    }
+
+    @Override
+    public String nombre() {
+        return nombre;
+    }
+
+    @Override
+    public Optional<String> destino(ConfiguracionNotificacion configuracion) {
+        return destino.apply(configuracion);
+    }
+
+    @Override
+    public List<EnvioNotificacion> enviar(List<EnvioNotificacion> lote) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (latenciaMs > 0) {
+            try {
+                Thread.sleep(latenciaMs / 2 + random.nextLong(latenciaMs + 1));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Envío interrumpido", e);
+            }
+        }
+        if (random.nextDouble() < probabilidadFallo) {
+            throw new IllegalStateException("Fallo simulado del proveedor " + nombre);
+        }
+        List<EnvioNotificacion> invalidos = new ArrayList<>();
+        for (EnvioNotificacion envio : lote) {
+            if (random.nextDouble() < probabilidadInvalido) {
+                invalidos.add(envio);
+            } else {
+                log.debug("[{}] {} -> {}", nombre, envio.notificacion().getTitulo(), envio.destino());
+            }
+        }
+        return invalidos;
+    }
+}
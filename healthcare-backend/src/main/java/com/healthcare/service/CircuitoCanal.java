@@ -0,0 +1,64 @@
+package com.healthcare.service;
+
+// Cortocircuito de un canal: tras umbral fallos seguidos deja de llamar al proveedor durante
+// abiertoMs; después deja pasar una sola llamada de prueba y, según acabe, se cierra o vuelve a abrir
+public class CircuitoCanal {
+
+    public enum Estado {
+        CERRADO,
+        ABIERTO,
+        SEMIABIERTO
+    }
+
+    private final int umbral;
+    private final long abiertoMs;
+
+    private Estado estado = Estado.CERRADO;
+    private int fallosSeguidos;
+    private long abiertoHasta;
+    private long aperturas;
+
+    public CircuitoCanal(int umbral, long abiertoMs) {
+        this.umbral = umbral;
+        this.abiertoMs = abiertoMs;
+    }
+
+    // Milisegundos que faltan para poder llamar; 0 si la llamada puede hacerse ya
+    public synchronized long esperaMs(long ahora) {
+        switch (estado) {
+            case CERRADO:
+                return 0;
+            case ABIERTO:
+                if (ahora < abiertoHasta) {
+                    return abiertoHasta - ahora;
+                }
+                estado = Estado.SEMIABIERTO;
+                return 0;
+            default:
+                // Ya hay una llamada de prueba en curso
+                return abiertoMs;
+        }
+    }
+
+    public synchronized void exito() {
+        estado = Estado.CERRADO;
+        fallosSeguidos = 0;
+    }
+
+    public synchronized void fallo(long ahora) {
+        fallosSeguidos++;
+        if (estado == Estado.SEMIABIERTO || fallosSeguidos >= umbral) {
+            estado = Estado.ABIERTO;
+            abiertoHasta = ahora + abiertoMs;
+            aperturas++;
+        }
+    }
+
+    public synchronized Estado estado() {
+        return estado;
+    }
+
+    public synchronized long aperturas() {
+        return aperturas;
+    }
+}
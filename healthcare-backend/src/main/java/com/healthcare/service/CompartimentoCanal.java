@@ -0,0 +1,217 @@
+package com.healthcare.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Aislamiento de un canal: cola, hilos y circuito propios, de modo que un proveedor lento o caído
+// solo llena su cola y no frena a los demás. La capacidad cuenta todo lo admitido y aún sin
+// resolver (en cola, en curso o esperando reintento); con ella llena, lo nuevo se rechaza
+@Slf4j
+public class CompartimentoCanal {
+
+    public record Ajustes(int hilos, int capacidad, int lote, int intentos, long backoffMs, long backoffMaximoMs,
+                          int umbralCircuito, long circuitoAbiertoMs, long lentoMs) {
+    }
+
+    private record Pendiente(EnvioNotificacion envio, int intento) {
+    }
+
+    private final CanalNotificacion canal;
+    private final Ajustes ajustes;
+    private final CircuitoCanal circuito;
+    private final Semaphore capacidad;
+    private final BlockingQueue<Pendiente> cola = new LinkedBlockingQueue<>();
+    private final ExecutorService trabajadores;
+    private final ScheduledExecutorService reintentos;
+    private volatile boolean activo = true;
+
+    private final Counter enviados;
+    private final Counter invalidos;
+    private final Counter reintentados;
+    private final Counter descartados;
+    private final Counter rechazados;
+    private final Timer llamadas;
+
+    public CompartimentoCanal(CanalNotificacion canal, Ajustes ajustes, MeterRegistry meterRegistry) {
+        this.canal = canal;
+        this.ajustes = ajustes;
+        this.circuito = new CircuitoCanal(ajustes.umbralCircuito(), ajustes.circuitoAbiertoMs());
+        this.capacidad = new Semaphore(ajustes.capacidad());
+
+        Tags tags = Tags.of("canal", canal.nombre());
+        meterRegistry.gauge("healthcare.notificaciones.canal.cola", tags, cola, BlockingQueue::size);
+        this.enviados = meterRegistry.counter("healthcare.notificaciones.canal.enviados", tags);
+        this.invalidos = meterRegistry.counter("healthcare.notificaciones.canal.invalidos", tags);
+        this.reintentados = meterRegistry.counter("healthcare.notificaciones.canal.reintentos", tags);
+        this.descartados = meterRegistry.counter("healthcare.notificaciones.canal.descartados", tags);
+        this.rechazados = meterRegistry.counter("healthcare.notificaciones.canal.rechazados", tags);
+        this.llamadas = Timer.builder("healthcare.notificaciones.canal.llamadas")
+                .tags(tags)
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+
+        this.trabajadores = Executors.newFixedThreadPool(ajustes.hilos(), hilo("canal-" + canal.nombre()));
+        this.reintentos = Executors.newSingleThreadScheduledExecutor(hilo("canal-" + canal.nombre() + "-reintentos"));
+        for (int i = 0; i < ajustes.hilos(); i++) {
+            trabajadores.execute(this::trabajar);
+        }
+    }
+
+    public String nombre() {
+        return canal.nombre();
+    }
+
+    public CanalNotificacion canal() {
+        return canal;
+    }
+
+    // No bloquea: false si el compartimento está lleno. Reservar antes de encolar permite admitir
+    // un envío en todos sus canales o en ninguno
+    public boolean reservar() {
+        if (!activo || !capacidad.tryAcquire()) {
+            rechazados.increment();
+            return false;
+        }
+        return true;
+    }
+
+    public void liberar() {
+        capacidad.release();
+    }
+
+    // Solo con una reserva hecha
+    public void encolar(EnvioNotificacion envio) {
+        cola.add(new Pendiente(envio, 0));
+    }
+
+    public void detener() {
+        activo = false;
+        trabajadores.shutdownNow();
+        reintentos.shutdownNow();
+    }
+
+    private void trabajar() {
+        List<Pendiente> lote = new ArrayList<>(ajustes.lote());
+        while (activo) {
+            try {
+                Pendiente primero = cola.poll(1, TimeUnit.SECONDS);
+                if (primero == null) {
+                    continue;
+                }
+                lote.add(primero);
+                cola.drainTo(lote, ajustes.lote() - 1);
+                procesar(lote);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                // Un error inesperado no debe matar al trabajador ni perder la capacidad del lote
+                log.error("Error en el canal {}: {}", canal.nombre(), e.getMessage());
+                lote.forEach(this::fallar);
+            } finally {
+                lote.clear();
+            }
+        }
+    }
+
+    private void procesar(List<Pendiente> lote) {
+        long espera = circuito.esperaMs(System.currentTimeMillis());
+        if (espera > 0) {
+            // Circuito abierto: el lote espera a la siguiente prueba sin gastar intentos
+            List<Pendiente> aplazados = List.copyOf(lote);
+            reintentos.schedule(() -> cola.addAll(aplazados), espera, TimeUnit.MILLISECONDS);
+            return;
+        }
+
+        List<EnvioNotificacion> envios = lote.stream().map(Pendiente::envio).toList();
+        long inicio = System.nanoTime();
+        List<EnvioNotificacion> rechazadosProveedor;
+        try {
+            rechazadosProveedor = canal.enviar(envios);
+        } catch (RuntimeException e) {
+            llamadas.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+            circuito.fallo(System.currentTimeMillis());
+            log.warn("Fallo del canal {} con un lote de {}: {}", canal.nombre(), lote.size(), e.getMessage());
+            lote.forEach(this::fallar);
+            return;
+        }
+        long duracionMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio);
+        llamadas.record(duracionMs, TimeUnit.MILLISECONDS);
+        // Una llamada lenta se entregó, pero cuenta para abrir el circuito: el proveedor está degradado
+        if (duracionMs > ajustes.lentoMs()) {
+            circuito.fallo(System.currentTimeMillis());
+        } else {
+            circuito.exito();
+        }
+
+        invalidos.increment(rechazadosProveedor.size());
+        enviados.increment(lote.size() - rechazadosProveedor.size());
+        capacidad.release(lote.size());
+    }
+
+    private void fallar(Pendiente pendiente) {
+        int intento = pendiente.intento() + 1;
+        if (intento >= ajustes.intentos()) {
+            descartados.increment();
+            capacidad.release();
+            log.warn("Descartado el envío de la notificación {} por {} tras {} intentos",
+                    pendiente.envio().notificacion().getId(), canal.nombre(), intento);
+            return;
+        }
+        reintentados.increment();
+        reintentos.schedule(() -> cola.add(new Pendiente(pendiente.envio(), intento)), backoffMs(intento),
+                TimeUnit.MILLISECONDS);
+    }
+
+    // Exponencial con jitter: entre la mitad y el total de backoff·2^(intento-1), con tope
+    private long backoffMs(int intento) {
+        long maximo = Math.min(ajustes.backoffMaximoMs(), ajustes.backoffMs() << Math.min(intento - 1, 20));
+        return maximo / 2 + ThreadLocalRandom.current().nextLong(maximo / 2 + 1);
+    }
+
+    public Map<String, Object> obtenerMetricas() {
+        Map<String, Object> metricas = new LinkedHashMap<>();
+        metricas.put("cola", cola.size());
+        metricas.put("ocupacion", ajustes.capacidad() - capacidad.availablePermits());
+        metricas.put("capacidad", ajustes.capacidad());
+        metricas.put("enviados", (long) enviados.count());
+        metricas.put("invalidos", (long) invalidos.count());
+        metricas.put("reintentos", (long) reintentados.count());
+        metricas.put("descartados", (long) descartados.count());
+        metricas.put("rechazados", (long) rechazados.count());
+        metricas.put("circuito", circuito.estado());
+        metricas.put("aperturasCircuito", circuito.aperturas());
+        for (ValueAtPercentile percentil : llamadas.takeSnapshot().percentileValues()) {
+            metricas.put("llamadaP" + Math.round(percentil.percentile() * 100) + "Ms", percentil.value(TimeUnit.MILLISECONDS));
+        }
+        return metricas;
+    }
+
+    private static ThreadFactory hilo(String prefijo) {
+        AtomicInteger contador = new AtomicInteger();
+        return tarea -> {
+            Thread thread = new Thread(tarea, prefijo + "-" + contador.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
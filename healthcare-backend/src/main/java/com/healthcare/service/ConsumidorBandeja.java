@@ -0,0 +1,36 @@
+package com.healthcare.service;
+
+import com.healthcare.event.EventoBandejaSalida;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Destino de los eventos de la bandeja de salida. consumirLote corre en una transacción por lote junto
+// con el registro de deduplicación: lo que escriba en la base de datos se confirma una sola vez.
+// Una excepción hace que ese mensaje se reintente con backoff, sin repetirlo a los consumidores que
+// ya lo procesaron; debe lanzarse antes de escribir nada, porque lo escrito se confirmaría con el
+// resto del lote. Un efecto externo puede repetirse si el proceso cae entre consumir y confirmar
+public interface ConsumidorBandeja<T extends EventoBandejaSalida> {
+
+    // Clave de deduplicación: no debe cambiar entre versiones
+    String nombre();
+
+    Class<T> tipo();
+
+    void consumir(T evento);
+
+    // Por defecto uno a uno; un consumidor puede sobrescribirlo para tratar el lote de una vez.
+    // Devuelve el error de cada posición que no pudo procesar; lanzar hace fallar el lote entero
+    default Map<Integer, RuntimeException> consumirLote(List<T> eventos) {
+        Map<Integer, RuntimeException> errores = new HashMap<>();
+        for (int i = 0; i < eventos.size(); i++) {
+            try {
+                consumir(eventos.get(i));
+            } catch (RuntimeException e) {
+                errores.put(i, e);
+            }
+        }
+        return errores;
+    }
+}
@@ -0,0 +1,73 @@
+package com.healthcare.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.healthcare.event.NoLeidasModificadasEvent;
+import com.healthcare.event.UsuarioEliminadoEvent;
+import com.healthcare.repository.NotificacionRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Número de notificaciones no leídas por usuario, servido desde memoria. Se carga con un COUNT
+// la primera vez y luego se ajusta con los cambios confirmados en este nodo; un usuario que no
+// está en la caché no se toca, así que el siguiente COUNT ya ve el cambio. El COUNT se hace en el
+// primario: uno de una réplica retrasada quedaría en memoria hasta caducar. Una carga que cruce
+// con un commit puede desviarse en uno, y los cambios de otros nodos no llegan: ambos se
+// corrigen al caducar la entrada
+@Component
+public class ContadorNoLeidas {
+
+    private final NotificacionRepository notificacionRepository;
+    private final Cache<Long, Long> noLeidas;
+    // De lectura-escritura para que DataSourceEnrutado la envíe al primario
+    private final TransactionTemplate lecturaPrimario;
+
+    public ContadorNoLeidas(NotificacionRepository notificacionRepository,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${healthcare.notificaciones.no-leidas.tamano-maximo:100000}") long tamanoMaximo,
+                            @Value("${healthcare.notificaciones.no-leidas.ttl:10m}") Duration ttl) {
+        this.notificacionRepository = notificacionRepository;
+        this.noLeidas = Caffeine.newBuilder()
+                .maximumSize(tamanoMaximo)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.lecturaPrimario = new TransactionTemplate(transactionManager);
+        this.lecturaPrimario.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public long obtener(Long usuarioId) {
+        return noLeidas.get(usuarioId, id -> lecturaPrimario.execute(
+                status -> notificacionRepository.countByUsuarioIdAndLeidaEnIsNull(id)));
+    }
+
+    // computeIfPresent es atómico por usuario y espera a una carga en curso de la misma entrada
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alModificarNoLeidas(NoLeidasModificadasEvent evento) {
+        if (evento.delta() != 0) {
+            noLeidas.asMap().computeIfPresent(evento.usuarioId(), (id, actual) -> Math.max(0, actual + evento.delta()));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alEliminarUsuario(UsuarioEliminadoEvent evento) {
+        noLeidas.invalidate(evento.usuarioId());
+    }
+
+    public Map<String, Object> obtenerMetricas() {
+        Map<String, Object> metricas = new LinkedHashMap<>();
+        metricas.put("entradas", noLeidas.estimatedSize());
+        metricas.put("aciertos", noLeidas.stats().hitCount());
+        metricas.put("fallos", noLeidas.stats().missCount());
+        metricas.put("desalojos", noLeidas.stats().evictionCount());
+        return metricas;
+    }
+}
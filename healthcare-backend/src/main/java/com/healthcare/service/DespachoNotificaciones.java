@@ -0,0 +1,289 @@
+package com.healthcare.service;
+
+import com.healthcare.event.NotificacionModificadaEvent;
+import com.healthcare.model.Notificacion.EstadoNotificacion;
+import com.healthcare.repository.NotificacionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Pasa a ENVIADA las notificaciones PROGRAMADA cuando llega su enviadaEn. Solo la ventana próxima
+// está en memoria, en una rueda de temporización; se rellena desde la base de datos por cursor
+// (enviadaEn, id) y nunca recorre la tabla entera. Corre en un hilo propio, sin compartir el
+// planificador de Spring, para que un trabajo lento no retrase los envíos: el retraso máximo
+// esperado es un tick más el tiempo de marcar el lote, y se mide contra presupuesto-retraso-ms.
+// Las creadas por este nodo dentro de la ventana ya cargada entran por evento; las que otro nodo
+// cree por debajo del cursor se recogen vencidas en la siguiente recarga y cuentan como rezagadas.
+@Component
+@Slf4j
+public class DespachoNotificaciones {
+
+    // 64 ranuras por nivel y 4 niveles: 2^24 ticks, de sobra para la ventana con ticks de un segundo
+    private static final int BITS_RUEDA = 6;
+    private static final int NIVELES_RUEDA = 4;
+    private static final LocalDateTime FECHA_MINIMA = LocalDateTime.of(1000, 1, 1, 0, 0);
+
+    // conocidaMs: cuándo entró en la rueda; el retraso de una rezagada se mide desde ahí
+    private record Programada(long id, long instanteMs, long conocidaMs) {
+    }
+
+    private final NotificacionRepository notificacionRepository;
+    private final NotificacionService notificacionService;
+    private final boolean habilitado;
+    private final long tickMs;
+    private final long ventanaMs;
+    private final long recargaMs;
+    private final int maximoEnRueda;
+    private final int lote;
+    private final long presupuestoRetrasoMs;
+
+    // Programadas o reprogramadas dentro de la ventana ya cargada, desde otros hilos
+    private final Queue<Programada> entrantes = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger enRueda = new AtomicInteger();
+    // Hasta dónde llega lo cargado; lo programado después llega con la siguiente recarga
+    private volatile long cargadoHastaMs = Long.MIN_VALUE;
+    private final Counter enviadas;
+    private final Counter rezagadas;
+    private final Counter fueraDePresupuesto;
+    private final Counter fallos;
+    private final Timer retraso;
+
+    // Estado del hilo de despacho
+    private RuedaTemporizacion<Programada> rueda;
+    private LocalDateTime cursorFecha;
+    private long cursorId;
+    private long proximaRecargaMs;
+    private boolean recargaIncompleta;
+
+    private volatile ScheduledExecutorService hilo;
+
+    public DespachoNotificaciones(NotificacionRepository notificacionRepository,
+                                  NotificacionService notificacionService,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${healthcare.notificaciones.despacho.habilitado:true}") boolean habilitado,
+                                  @Value("${healthcare.notificaciones.despacho.tick-ms:1000}") long tickMs,
+                                  @Value("${healthcare.notificaciones.despacho.ventana:10m}") Duration ventana,
+                                  @Value("${healthcare.notificaciones.despacho.recarga:1m}") Duration recarga,
+                                  @Value("${healthcare.notificaciones.despacho.maximo-en-rueda:500000}") int maximoEnRueda,
+                                  @Value("${healthcare.notificaciones.despacho.lote:500}") int lote,
+                                  @Value("${healthcare.notificaciones.despacho.presupuesto-retraso-ms:2000}") long presupuestoRetrasoMs) {
+        if (recarga.compareTo(ventana) >= 0) {
+            throw new IllegalArgumentException("healthcare.notificaciones.despacho.recarga debe ser menor que la ventana");
+        }
+        this.notificacionRepository = notificacionRepository;
+        this.notificacionService = notificacionService;
+        this.habilitado = habilitado;
+        this.tickMs = tickMs;
+        this.ventanaMs = ventana.toMillis();
+        this.recargaMs = recarga.toMillis();
+        this.maximoEnRueda = maximoEnRueda;
+        this.lote = lote;
+        this.presupuestoRetrasoMs = presupuestoRetrasoMs;
+
+        meterRegistry.gauge("healthcare.notificaciones.despacho.en-rueda", enRueda);
+        this.enviadas = meterRegistry.counter("healthcare.notificaciones.despacho.enviadas");
+        this.rezagadas = meterRegistry.counter("healthcare.notificaciones.despacho.rezagadas");
+        this.fueraDePresupuesto = meterRegistry.counter("healthcare.notificaciones.despacho.fuera-de-presupuesto");
+        this.fallos = meterRegistry.counter("healthcare.notificaciones.despacho.fallos");
+        this.retraso = Timer.builder("healthcare.notificaciones.despacho.retraso")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void iniciar() {
+        if (!habilitado) {
+            return;
+        }
+        if (ventanaMs / tickMs >= 1L << (BITS_RUEDA * NIVELES_RUEDA)) {
+            throw new IllegalStateException("La ventana de despacho no cabe en la rueda con tick de " + tickMs + " ms");
+        }
+        long ahora = System.currentTimeMillis();
+        rueda = new RuedaTemporizacion<>(BITS_RUEDA, NIVELES_RUEDA, ahora / tickMs);
+        // Lo ya vencido al arrancar entra como rezagado; el cursor empieza en el presente
+        cursorFecha = aFecha(ahora);
+        hilo = Executors.newSingleThreadScheduledExecutor(tarea -> {
+            Thread thread = new Thread(tarea, "despacho-notificaciones");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Cada ciclo corre poco después del límite de un tick: justo antes del límite, el tick que
+        // acaba de vencer esperaría a la vuelta siguiente y el retraso llegaría a dos ticks
+        long fase = tickMs - ahora % tickMs + tickMs / 20;
+        hilo.scheduleAtFixedRate(this::ciclo, fase, tickMs, TimeUnit.MILLISECONDS);
+        log.info("Despacho de notificaciones iniciado: tick {} ms, ventana {} ms", tickMs, ventanaMs);
+    }
+
+    @PreDestroy
+    public void detener() {
+        if (hilo != null) {
+            hilo.shutdownNow();
+        }
+    }
+
+    // Altas y cambios de hora dentro de lo ya cargado. Repetir una que ya está en la rueda no
+    // importa: marcarEnviadas ignora las que ya no están programadas
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alModificarNotificacion(NotificacionModificadaEvent evento) {
+        if (hilo == null || evento.notificacion() == null
+                || evento.notificacion().getEstado() != EstadoNotificacion.PROGRAMADA
+                || evento.notificacion().getEnviadaEn() == null) {
+            return;
+        }
+        long instante = aMilis(evento.notificacion().getEnviadaEn());
+        if (instante <= cargadoHastaMs) {
+            entrantes.add(new Programada(evento.notificacionId(), instante, System.currentTimeMillis()));
+        }
+    }
+
+    void ciclo() {
+        try {
+            long ahora = System.currentTimeMillis();
+            Programada entrante;
+            while ((entrante = entrantes.poll()) != null) {
+                programar(entrante);
+            }
+            if (ahora >= proximaRecargaMs || (recargaIncompleta && rueda.tamano() < maximoEnRueda / 2)) {
+                recargar(ahora);
+            }
+
+            List<Programada> vencidas = new ArrayList<>();
+            rueda.avanzar(ahora / tickMs, vencidas::add);
+            for (int desde = 0; desde < vencidas.size(); desde += lote) {
+                marcar(vencidas.subList(desde, Math.min(desde + lote, vencidas.size())));
+            }
+            enRueda.set(rueda.tamano());
+        } catch (RuntimeException e) {
+            // Un fallo no debe cancelar la tarea periódica
+            fallos.increment();
+            log.error("Error en el ciclo de despacho de notificaciones: {}", e.getMessage());
+        }
+    }
+
+    private void recargar(long ahora) {
+        // Vencidas que siguen programadas sin haber pasado por la rueda; con el índice por estado
+        // la consulta es barata y casi siempre vuelve vacía
+        LocalDateTime disparado = aFecha((rueda.siguienteTick() - 1) * tickMs);
+        boolean completa = cargar(FECHA_MINIMA, 0L, disparado, ahora, false);
+        if (completa) {
+            completa = cargar(cursorFecha, cursorId, aFecha(ahora + ventanaMs), ahora, true);
+        }
+        recargaIncompleta = !completa;
+        cargadoHastaMs = completa ? ahora + ventanaMs : aMilis(cursorFecha);
+        proximaRecargaMs = ahora + recargaMs;
+    }
+
+    // Pagina por (enviadaEn, id) a partir de la posición dada; false si se cortó por maximo-en-rueda
+    private boolean cargar(LocalDateTime fecha, long id, LocalDateTime hasta, long ahora, boolean avanzarCursor) {
+        while (true) {
+            if (rueda.tamano() >= maximoEnRueda) {
+                // El resto se carga cuando la rueda se vacíe
+                return false;
+            }
+            List<Object[]> pagina = notificacionRepository.findProgramadasDespuesDe(fecha, id, hasta,
+                    PageRequest.of(0, lote));
+            for (Object[] fila : pagina) {
+                id = (Long) fila[0];
+                fecha = (LocalDateTime) fila[1];
+                programar(new Programada(id, aMilis(fecha), ahora));
+            }
+            if (avanzarCursor) {
+                cursorFecha = fecha;
+                cursorId = id;
+            }
+            if (pagina.size() < lote) {
+                return true;
+            }
+        }
+    }
+
+    // Redondeo hacia arriba: el tick se procesa cuando ya ha pasado entero, nunca antes de la hora
+    private void programar(Programada programada) {
+        rueda.programar(programada, (programada.instanteMs() + tickMs - 1) / tickMs);
+    }
+
+    private void marcar(List<Programada> vencidas) {
+        Set<Long> marcadas;
+        try {
+            List<Long> ids = vencidas.stream().map(Programada::id).toList();
+            marcadas = new HashSet<>(notificacionService.marcarEnviadas(ids, aFecha(System.currentTimeMillis())));
+        } catch (RuntimeException e) {
+            // Vuelven a la rueda como vencidas y se reintentan en el siguiente tick
+            fallos.increment();
+            log.warn("No se pudieron marcar {} notificaciones como enviadas: {}", vencidas.size(), e.getMessage());
+            vencidas.forEach(this::programar);
+            return;
+        }
+        enviadas.increment(marcadas.size());
+        long ahora = System.currentTimeMillis();
+        long tarde = 0;
+        for (Programada programada : vencidas) {
+            // Duplicadas o ya enviadas por otro nodo no cuentan
+            if (!marcadas.remove(programada.id())) {
+                continue;
+            }
+            if (programada.conocidaMs() > programada.instanteMs()) {
+                rezagadas.increment();
+            }
+            long retrasoMs = Math.max(0, ahora - Math.max(programada.instanteMs(), programada.conocidaMs()));
+            retraso.record(retrasoMs, TimeUnit.MILLISECONDS);
+            if (retrasoMs > presupuestoRetrasoMs) {
+                tarde++;
+            }
+        }
+        if (tarde > 0) {
+            fueraDePresupuesto.increment(tarde);
+            log.warn("{} notificaciones enviadas por encima del presupuesto de {} ms", tarde, presupuestoRetrasoMs);
+        }
+    }
+
+    public Map<String, Object> obtenerMetricas() {
+        Map<String, Object> metricas = new LinkedHashMap<>();
+        metricas.put("habilitado", habilitado);
+        metricas.put("enRueda", enRueda.get());
+        metricas.put("enviadas", (long) enviadas.count());
+        metricas.put("rezagadas", (long) rezagadas.count());
+        metricas.put("presupuestoRetrasoMs", presupuestoRetrasoMs);
+        metricas.put("fueraDePresupuesto", (long) fueraDePresupuesto.count());
+        metricas.put("retrasoMaximoMs", retraso.max(TimeUnit.MILLISECONDS));
+        for (ValueAtPercentile percentil : retraso.takeSnapshot().percentileValues()) {
+            metricas.put("retrasoP" + Math.round(percentil.percentile() * 100) + "Ms", percentil.value(TimeUnit.MILLISECONDS));
+        }
+        metricas.put("fallos", (long) fallos.count());
+        return metricas;
+    }
+
+    private static long aMilis(LocalDateTime fecha) {
+        return fecha.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static LocalDateTime aFecha(long milis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(milis), ZoneId.systemDefault());
+    }
+}
@@ -0,0 +1,84 @@
+package com.healthcare.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.healthcare.event.UsuarioCreadoEvent;
+import com.healthcare.event.UsuarioEliminadoEvent;
+import com.healthcare.repository.UsuarioRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+// Comprobación de existencia de usuarios sin ir a la base de datos en cada petición.
+// El usuario autenticado de la petición (token de sesión validado por SesionInterceptor)
+// ya se comprobó al entrar; el resto pasa por una caché acotada que se mantiene con los
+// eventos de alta y baja. Otras instancias solo ven una baja al caducar la entrada.
+@Component
+public class DirectorioUsuarios {
+
+    private static final ThreadLocal<Long> USUARIO_AUTENTICADO = new ThreadLocal<>();
+
+    private final UsuarioRepository usuarioRepository;
+    private final Cache<Long, Boolean> existentes;
+
+    public DirectorioUsuarios(UsuarioRepository usuarioRepository,
+                              @Value("${healthcare.usuarios.cache.tamano-maximo:100000}") long tamanoMaximo,
+                              @Value("${healthcare.usuarios.cache.ttl:10m}") Duration ttl) {
+        this.usuarioRepository = usuarioRepository;
+        this.existentes = Caffeine.newBuilder()
+                .maximumSize(tamanoMaximo)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    public boolean existe(Long usuarioId) {
+        if (usuarioId == null) {
+            return false;
+        }
+        if (usuarioId.equals(USUARIO_AUTENTICADO.get())) {
+            return true;
+        }
+        return existentes.get(usuarioId, usuarioRepository::existsById);
+    }
+
+    public void fijarUsuarioAutenticado(Long usuarioId) {
+        USUARIO_AUTENTICADO.set(usuarioId);
+    }
+
+    public Long usuarioAutenticado() {
+        return USUARIO_AUTENTICADO.get();
+    }
+
+    public boolean esUsuarioAutenticado(Long usuarioId) {
+        return Objects.equals(usuarioId, USUARIO_AUTENTICADO.get());
+    }
+
+    public void limpiarUsuarioAutenticado() {
+        USUARIO_AUTENTICADO.remove();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alCrearUsuario(UsuarioCreadoEvent evento) {
+        existentes.put(evento.usuarioId(), Boolean.TRUE);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alEliminarUsuario(UsuarioEliminadoEvent evento) {
+        existentes.put(evento.usuarioId(), Boolean.FALSE);
+    }
+
+    public Map<String, Object> obtenerMetricas() {
+        Map<String, Object> metricas = new LinkedHashMap<>();
+        metricas.put("entradas", existentes.estimatedSize());
+        metricas.put("aciertos", existentes.stats().hitCount());
+        metricas.put("fallos", existentes.stats().missCount());
+        metricas.put("desalojos", existentes.stats().evictionCount());
+        return metricas;
+    }
+}
@@ -0,0 +1,171 @@
+package com.healthcare.service;
+
+import com.healthcare.dto.NotificacionDTO;
+import com.healthcare.event.NotificacionEnviadaEvent;
+import com.healthcare.model.ConfiguracionNotificacion;
+import com.healthcare.repository.ConfiguracionNotificacionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Entrega de las notificaciones enviadas a los canales externos. Llegan por la bandeja de salida
+// en lotes: las preferencias de todos sus usuarios se resuelven en una consulta y cada
+// notificación se admite en todos los canales que el usuario tiene activos y con destino, o en
+// ninguno. Solo entonces se confirma al relevo; si falla la consulta o algún canal está lleno, el
+// relevo la reintenta más tarde. Desde la admisión cada CompartimentoCanal envía por lotes desde
+// memoria: lo admitido se pierde si el proceso cae (como mucho una vez a partir de ese punto)
+@Component
+@Slf4j
+public class EntregaNotificaciones implements ConsumidorBandeja<NotificacionEnviadaEvent> {
+
+    private static final String PREFIJO_CANAL = "healthcare.notificaciones.canales.";
+
+    private final ConfiguracionNotificacionRepository configuracionNotificacionRepository;
+    private final List<CompartimentoCanal> compartimentos = new ArrayList<>();
+
+    private final Counter recibidas;
+    private final Counter rechazadas;
+    private final Counter sinCanal;
+
+    public EntregaNotificaciones(ConfiguracionNotificacionRepository configuracionNotificacionRepository,
+                                 List<CanalNotificacion> canales,
+                                 MeterRegistry meterRegistry,
+                                 Environment environment) {
+        this.configuracionNotificacionRepository = configuracionNotificacionRepository;
+
+        this.recibidas = meterRegistry.counter("healthcare.notificaciones.entrega.recibidas");
+        this.rechazadas = meterRegistry.counter("healthcare.notificaciones.entrega.rechazadas");
+        this.sinCanal = meterRegistry.counter("healthcare.notificaciones.entrega.sin-canal");
+
+        for (CanalNotificacion canal : canales) {
+            CompartimentoCanal.Ajustes ajustes = ajustes(environment, canal.nombre());
+            compartimentos.add(new CompartimentoCanal(canal, ajustes, meterRegistry));
+            log.info("Canal de notificaciones {}: {}", canal.nombre(), ajustes);
+        }
+    }
+
+    // Cualquier ajuste puede cambiarse por canal: healthcare.notificaciones.canales.sms.hilos=4
+    private static CompartimentoCanal.Ajustes ajustes(Environment environment, String canal) {
+        String prefijo = PREFIJO_CANAL + canal + ".";
+        return new CompartimentoCanal.Ajustes(
+                environment.getProperty(prefijo + "hilos", Integer.class, 2),
+                environment.getProperty(prefijo + "capacidad", Integer.class, 5000),
+                environment.getProperty(prefijo + "lote", Integer.class, 100),
+                environment.getProperty(prefijo + "intentos", Integer.class, 5),
+                environment.getProperty(prefijo + "backoff-ms", Long.class, 500L),
+                environment.getProperty(prefijo + "backoff-maximo-ms", Long.class, 30000L),
+                environment.getProperty(prefijo + "umbral-circuito", Integer.class, 5),
+                environment.getProperty(prefijo + "circuito-abierto", Duration.class, Duration.ofSeconds(30)).toMillis(),
+                environment.getProperty(prefijo + "lento-ms", Long.class, 5000L));
+    }
+
+    @Override
+    public String nombre() {
+        return "entrega-notificaciones";
+    }
+
+    @Override
+    public Class<NotificacionEnviadaEvent> tipo() {
+        return NotificacionEnviadaEvent.class;
+    }
+
+    @Override
+    public void consumir(NotificacionEnviadaEvent evento) {
+        RuntimeException error = consumirLote(List.of(evento)).get(0);
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    @Override
+    public Map<Integer, RuntimeException> consumirLote(List<NotificacionEnviadaEvent> eventos) {
+        if (compartimentos.isEmpty()) {
+            return Map.of();
+        }
+        // Si la consulta falla se reintenta el lote entero
+        List<Long> usuarioIds = eventos.stream().map(e -> e.notificacion().getUsuario().getId()).distinct().toList();
+        Map<Long, ConfiguracionNotificacion> configuraciones = configuracionNotificacionRepository
+                .findConUsuarioByUsuarioIdIn(usuarioIds).stream()
+                .collect(Collectors.toMap(c -> c.getUsuario().getId(), Function.identity(), (a, b) -> a));
+
+        Map<Integer, RuntimeException> errores = new HashMap<>();
+        for (int i = 0; i < eventos.size(); i++) {
+            NotificacionDTO notificacion = eventos.get(i).notificacion();
+            if (!admitir(notificacion, configuraciones.get(notificacion.getUsuario().getId()))) {
+                rechazadas.increment();
+                errores.put(i, new IllegalStateException("Canal de notificaciones lleno"));
+            }
+        }
+        return errores;
+    }
+
+    // false si algún canal está lleno; entonces no se encola en ninguno
+    private boolean admitir(NotificacionDTO notificacion, ConfiguracionNotificacion configuracion) {
+        if (configuracion == null || !quiere(configuracion, notificacion)) {
+            sinCanal.increment();
+            return true;
+        }
+        Map<CompartimentoCanal, String> destinos = new LinkedHashMap<>();
+        for (CompartimentoCanal compartimento : compartimentos) {
+            compartimento.canal().destino(configuracion).ifPresent(destino -> destinos.put(compartimento, destino));
+        }
+        if (destinos.isEmpty()) {
+            sinCanal.increment();
+            return true;
+        }
+
+        List<CompartimentoCanal> reservados = new ArrayList<>(destinos.size());
+        for (CompartimentoCanal compartimento : destinos.keySet()) {
+            if (!compartimento.reservar()) {
+                reservados.forEach(CompartimentoCanal::liberar);
+                return false;
+            }
+            reservados.add(compartimento);
+        }
+        destinos.forEach((compartimento, destino) -> compartimento.encolar(new EnvioNotificacion(notificacion, destino)));
+        recibidas.increment();
+        return true;
+    }
+
+    // Interruptor general y el de cada tipo de notificación
+    private static boolean quiere(ConfiguracionNotificacion configuracion, NotificacionDTO notificacion) {
+        if (!Boolean.TRUE.equals(configuracion.getNotificacionesHabilitadas())) {
+            return false;
+        }
+        return switch (notificacion.getTipo()) {
+            case RECORDATORIO_HABITO -> Boolean.TRUE.equals(configuracion.getRecordatoriosHabitos());
+            case LOGRO_ALCANZADO -> Boolean.TRUE.equals(configuracion.getNotificacionesLogros());
+            case MOTIVACION_DIARIA -> Boolean.TRUE.equals(configuracion.getMotivacionDiaria());
+        };
+    }
+
+    @PreDestroy
+    public void detener() {
+        compartimentos.forEach(CompartimentoCanal::detener);
+    }
+
+    public Map<String, Object> obtenerMetricas() {
+        Map<String, Object> metricas = new LinkedHashMap<>();
+        metricas.put("recibidas", (long) recibidas.count());
+        metricas.put("rechazadas", (long) rechazadas.count());
+        metricas.put("sinCanal", (long) sinCanal.count());
+        Map<String, Object> canales = new LinkedHashMap<>();
+        for (CompartimentoCanal compartimento : compartimentos) {
+            canales.put(compartimento.nombre(), compartimento.obtenerMetricas());
+        }
+        metricas.put("canales", canales);
+        return metricas;
+    }
+}
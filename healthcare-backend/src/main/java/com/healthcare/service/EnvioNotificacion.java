@@ -0,0 +1,7 @@
+package com.healthcare.service;
+
+import com.healthcare.dto.NotificacionDTO;
+
+// Una notificación dirigida a un destino concreto de un canal (token, dispositivo, email o teléfono)
+public record EnvioNotificacion(NotificacionDTO notificacion, String destino) {
+}
@@ -0,0 +1,119 @@
+package com.healthcare.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.healthcare.event.HabitoModificadoEvent;
+import com.healthcare.event.RegistroHabitoModificadoEvent;
+import com.healthcare.event.RegistrosHabitoLoteEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+@Component
+@Slf4j
+public class EstadisticasCache {
+
+    public enum Tipo {
+        RESUMEN,
+        DASHBOARD,
+        PROGRESO_SEMANAL,
+        PROGRESO_MENSUAL,
+        CATEGORIAS
+    }
+
+    private record Clave(Long usuarioId, Tipo tipo) {
+    }
+
+    private final Cache<Clave, Object> cache;
+    private final boolean habilitada;
+
+    public EstadisticasCache(@Value("${healthcare.estadisticas.cache.tamano-maximo:10000}") long tamanoMaximo,
+                             @Value("${healthcare.estadisticas.cache.ttl:10m}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(tamanoMaximo)
+                .expireAfter(new ExpiraAntesDeMedianoche(ttl))
+                .recordStats()
+                .build();
+        // Con tamaño 0 la caché se omite por completo (Caffeine desaloja de forma asíncrona)
+        this.habilitada = tamanoMaximo > 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T obtener(Long usuarioId, Tipo tipo, Supplier<T> calculo) {
+        if (!habilitada) {
+            return calculo.get();
+        }
+        return (T) cache.get(new Clave(usuarioId, tipo), clave -> calculo.get());
+    }
+
+    public void invalidar(Long usuarioId) {
+        cache.invalidateAll(Arrays.stream(Tipo.values()).map(tipo -> new Clave(usuarioId, tipo)).toList());
+    }
+
+    // Se invalida al confirmar la transacción para no recargar datos aún no visibles
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alModificarRegistro(RegistroHabitoModificadoEvent evento) {
+        log.debug("Invalidando estadísticas en caché del usuario {} por cambio de registro", evento.usuarioId());
+        invalidar(evento.usuarioId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alCrearLote(RegistrosHabitoLoteEvent evento) {
+        log.debug("Invalidando estadísticas en caché del usuario {} por alta de registros en lote", evento.usuarioId());
+        invalidar(evento.usuarioId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alModificarHabito(HabitoModificadoEvent evento) {
+        log.debug("Invalidando estadísticas en caché del usuario {} por cambio de hábito", evento.usuarioId());
+        invalidar(evento.usuarioId());
+    }
+
+    public Map<String, Object> obtenerMetricas() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> metricas = new LinkedHashMap<>();
+        metricas.put("entradas", cache.estimatedSize());
+        metricas.put("aciertos", stats.hitCount());
+        metricas.put("fallos", stats.missCount());
+        metricas.put("tasaAciertos", stats.hitRate());
+        metricas.put("desalojos", stats.evictionCount());
+        return metricas;
+    }
+
+    // Los valores de "hoy" dependen de LocalDate.now(): ninguna entrada sobrevive al cambio de día
+    private static class ExpiraAntesDeMedianoche implements Expiry<Clave, Object> {
+
+        private final long ttlNanos;
+
+        ExpiraAntesDeMedianoche(Duration ttl) {
+            this.ttlNanos = ttl.toNanos();
+        }
+
+        @Override
+        public long expireAfterCreate(Clave clave, Object valor, long tiempoActual) {
+            LocalDateTime ahora = LocalDateTime.now();
+            long hastaMedianoche = Duration.between(ahora, ahora.toLocalDate().plusDays(1).atStartOfDay()).toNanos();
+            return Math.max(0, Math.min(ttlNanos, hastaMedianoche));
+        }
+
+        @Override
+        public long expireAfterUpdate(Clave clave, Object valor, long tiempoActual, long duracionActual) {
+            return expireAfterCreate(clave, valor, tiempoActual);
+        }
+
+        @Override
+        public long expireAfterRead(Clave clave, Object valor, long tiempoActual, long duracionActual) {
+            return duracionActual;
+        }
+    }
+}
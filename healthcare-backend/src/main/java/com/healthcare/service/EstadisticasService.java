@@ -1,23 +1,37 @@
 package com.healthcare.service;
 
+import com.healthcare.dto.DashboardEstadisticas;
 import com.healthcare.dto.DatoCategoria;
 import com.healthcare.dto.DatoProgreso;
+import com.healthcare.dto.DatoProgresoPeriodo;
+import com.healthcare.dto.Granularidad;
 import com.healthcare.model.Estadisticas;
+import com.healthcare.model.EstadisticasPrecalculadas;
 import com.healthcare.model.Habito;
-import com.healthcare.model.RegistroHabito;
+import com.healthcare.model.ResumenDiario;
+import com.healthcare.repository.EstadisticasPrecalculadasRepository;
 import com.healthcare.repository.HabitoRepository;
 import com.healthcare.repository.RegistroHabitoRepository;
-import com.healthcare.repository.UsuarioRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.InvalidDataAccessResourceUsageException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -26,13 +40,48 @@ public class EstadisticasService {
 
     private final HabitoRepository habitoRepository;
     private final RegistroHabitoRepository registroHabitoRepository;
-    private final UsuarioRepository usuarioRepository;
+    private final DirectorioUsuarios directorioUsuarios;
+    private final RachaService rachaService;
+    private final ResumenDiarioService resumenDiarioService;
+    private final EstadisticasCache estadisticasCache;
+    private final BitmapCompletados bitmapCompletados;
+    private final EstadisticasPrecalculadasRepository precalculadasRepository;
+    private final ArchivoRegistrosService archivoRegistrosService;
 
+    private static final long MAX_PERIODOS_PROGRESO = 5000;
+
+    private volatile boolean agregacionCategoriasDisponible = true;
+
+    @Transactional(readOnly = true)
     public Estadisticas obtenerEstadisticasUsuario(Long usuarioId) {
+        return estadisticasCache.obtener(usuarioId, EstadisticasCache.Tipo.RESUMEN, () -> calcularEstadisticasUsuario(usuarioId));
+    }
+
+    @Transactional(readOnly = true)
+    public DashboardEstadisticas obtenerDashboard(Long usuarioId) {
+        return estadisticasCache.obtener(usuarioId, EstadisticasCache.Tipo.DASHBOARD, () -> calcularDashboard(usuarioId));
+    }
+
+    @Transactional(readOnly = true)
+    public List<DatoProgreso> obtenerProgresoSemanal(Long usuarioId) {
+        return estadisticasCache.obtener(usuarioId, EstadisticasCache.Tipo.PROGRESO_SEMANAL, () -> calcularProgresoSemanal(usuarioId));
+    }
+
+    @Transactional(readOnly = true)
+    public List<DatoProgreso> obtenerProgresoMensual(Long usuarioId) {
+        return estadisticasCache.obtener(usuarioId, EstadisticasCache.Tipo.PROGRESO_MENSUAL, () -> calcularProgresoMensual(usuarioId));
+    }
+
+    @Transactional(readOnly = true)
+    public List<DatoCategoria> obtenerPorCategorias(Long usuarioId) {
+        return estadisticasCache.obtener(usuarioId, EstadisticasCache.Tipo.CATEGORIAS, () -> calcularPorCategorias(usuarioId));
+    }
+
+    private Estadisticas calcularEstadisticasUsuario(Long usuarioId) {
         log.info("Calculando estadísticas para usuario: {}", usuarioId);
 
 
-        if (!usuarioRepository.existsById(usuarioId)) {
+        if (!directorioUsuarios.existe(usuarioId)) {
             throw new RuntimeException("Usuario no encontrado con ID: " + usuarioId);
         }
 
@@ -49,20 +98,17 @@ public class EstadisticasService {
                 .count();
 
         // Registros de hoy
-        List<RegistroHabito> registrosHoy = registroHabitoRepository.findByUsuarioIdAndFecha(usuarioId, hoy);
-        long habitosCompletadosHoy = registrosHoy.stream()
-                .filter(RegistroHabito::getCompletado)
-                .count();
+        long habitosCompletadosHoy = registroHabitoRepository.countCompletadosByUsuarioIdAndFecha(usuarioId, hoy);
 
         // Porcentaje completado hoy
         double porcentajeCompletadoHoy = habitosActivos > 0 ?
                 (double) habitosCompletadosHoy / habitosActivos * 100 : 0;
 
         // Racha actual (días consecutivos con al menos un hábito completado)
-        long rachaActual = calcularRachaActual(usuarioId);
+        long rachaActual = calcularRachaActual(usuarioId, hoy);
 
         // Mejor categoría
-        String mejorCategoria = obtenerMejorCategoria(usuarioId);
+        String mejorCategoria = obtenerMejorCategoria(calcularPorCategorias(usuarioId));
 
         // Días activos este mes
         long diasActivosEsteMes = calcularDiasActivosEsteMes(usuarioId, inicioMes, hoy);
@@ -78,24 +124,152 @@ public class EstadisticasService {
         );
     }
 
-    public List<DatoProgreso> obtenerProgresoSemanal(Long usuarioId) {
+    private DashboardEstadisticas calcularDashboard(Long usuarioId) {
+        log.info("Calculando dashboard para usuario: {}", usuarioId);
+
+        if (!directorioUsuarios.existe(usuarioId)) {
+            throw new RuntimeException("Usuario no encontrado con ID: " + usuarioId);
+        }
+
+        LocalDate hoy = LocalDate.now();
+        LocalDate inicioSemana = hoy.minusDays(6);
+        LocalDate inicioSeisMeses = hoy.minusMonths(5).withDayOfMonth(1);
+
+        List<Habito> todosHabitos = habitoRepository.findByUsuarioId(usuarioId);
+        List<Habito> habitosActivos = todosHabitos.stream()
+                .filter(Habito::getActivo)
+                .toList();
+
+        // Si el histórico de ayer ya está precalculado solo se consulta el día de hoy
+        EstadisticasPrecalculadas historico = precalculadasRepository.findById(usuarioId)
+                .filter(p -> p.getFechaCorte().equals(hoy.minusDays(1)))
+                .orElse(null);
+
+        // Una sola consulta de registros completados (habito_id, fecha)
+        List<Object[]> completados = registroHabitoRepository
+                .findCompletadosByUsuarioIdAndFechaBetween(usuarioId, historico != null ? hoy : inicioSeisMeses, hoy);
+
+        Map<LocalDate, Long> completadosPorDia = new HashMap<>();
+        Set<Long> habitosCompletadosHoy = new HashSet<>();
+        for (Object[] fila : completados) {
+            LocalDate fecha = (LocalDate) fila[1];
+            completadosPorDia.merge(fecha, 1L, Long::sum);
+            if (fecha.equals(hoy)) {
+                habitosCompletadosHoy.add((Long) fila[0]);
+            }
+        }
+        long completadosHoy = completadosPorDia.getOrDefault(hoy, 0L);
+
+        long[] completadosSemana = new long[7];
+        long[] diasActivosMeses = new long[6];
+        long rachaActual;
+        if (historico != null) {
+            for (int i = 0; i < 6; i++) {
+                completadosSemana[i] = historico.getCompletadosDias().get(i);
+                diasActivosMeses[i] = historico.getDiasActivosMeses().get(i);
+            }
+            completadosSemana[6] = completadosHoy;
+            diasActivosMeses[5] += completadosHoy > 0 ? 1 : 0;
+            rachaActual = completadosHoy > 0 ? historico.getRachaHastaCorte() + 1 : 0;
+        } else {
+            for (int i = 0; i < 7; i++) {
+                completadosSemana[i] = completadosPorDia.getOrDefault(inicioSemana.plusDays(i), 0L);
+            }
+            Map<YearMonth, Long> diasActivosPorMes = completadosPorDia.keySet().stream()
+                    .collect(Collectors.groupingBy(YearMonth::from, Collectors.counting()));
+            for (int i = 0; i < 6; i++) {
+                diasActivosMeses[i] = diasActivosPorMes.getOrDefault(YearMonth.from(hoy.minusMonths(5 - i)), 0L);
+            }
+            rachaActual = calcularRachaActual(usuarioId, hoy);
+        }
+
+        // Progreso semanal: cada día se mide contra los hábitos activos que tenía según su resumen;
+        // hoy y los días sin resumen usan los actuales, como calcularProgresoSemanal
+        long totalActivos = habitosActivos.size();
+        Map<LocalDate, Long> activosPorDia = resumenDiarioService.obtenerResumenes(usuarioId, inicioSemana, hoy.minusDays(1)).stream()
+                .collect(Collectors.toMap(ResumenDiario::getFecha, ResumenDiario::getHabitosActivos));
+        List<DatoProgreso> progresoSemanal = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            LocalDate fecha = inicioSemana.plusDays(i);
+            long completadosDia = completadosSemana[i];
+            long activosDia = activosPorDia.getOrDefault(fecha, totalActivos);
+            double porcentaje = activosDia > 0 ? (double) completadosDia / activosDia * 100 : 0;
+            progresoSemanal.add(new DatoProgreso(fecha, completadosDia, activosDia, porcentaje));
+        }
+
+        // Progreso mensual
+        List<DatoProgreso> progresoMensual = new ArrayList<>();
+        for (int i = 5; i >= 0; i--) {
+            LocalDate inicio = hoy.minusMonths(i).withDayOfMonth(1);
+            LocalDate fin = i == 0 ? hoy : inicio.plusMonths(1).minusDays(1);
+            long diasConRegistros = diasActivosMeses[5 - i];
+            long diasEnMes = ChronoUnit.DAYS.between(inicio, fin) + 1;
+            double porcentaje = diasEnMes > 0 ? (double) diasConRegistros / diasEnMes * 100 : 0;
+            progresoMensual.add(new DatoProgreso(inicio, diasConRegistros, diasEnMes, porcentaje));
+        }
+
+        List<DatoCategoria> categorias = calcularCategorias(habitosActivos, habitosCompletadosHoy);
+
+        Estadisticas estadisticas = new Estadisticas(
+                (long) todosHabitos.size(),
+                totalActivos,
+                completadosHoy,
+                totalActivos > 0 ? (double) completadosHoy / totalActivos * 100 : 0,
+                rachaActual,
+                obtenerMejorCategoria(categorias),
+                diasActivosMeses[5]
+        );
+
+        return new DashboardEstadisticas(estadisticas, progresoSemanal, progresoMensual, categorias);
+    }
+
+    // Parte histórica del dashboard tal como quedará al cerrar el día anterior a "hoy"
+    public EstadisticasPrecalculadas precalcularHistorico(Long usuarioId, LocalDate hoy) {
+        LocalDate ayer = hoy.minusDays(1);
+        LocalDate inicioSeisMeses = hoy.minusMonths(5).withDayOfMonth(1);
+
+        Map<LocalDate, Long> completadosPorDia = new HashMap<>();
+        for (Object[] fila : registroHabitoRepository.findCompletadosByUsuarioIdAndFechaBetween(usuarioId, inicioSeisMeses, ayer)) {
+            completadosPorDia.merge((LocalDate) fila[1], 1L, Long::sum);
+        }
+
+        List<Long> completadosDias = new ArrayList<>();
+        for (int i = 6; i >= 1; i--) {
+            completadosDias.add(completadosPorDia.getOrDefault(hoy.minusDays(i), 0L));
+        }
+
+        Map<YearMonth, Long> diasActivosPorMes = completadosPorDia.keySet().stream()
+                .collect(Collectors.groupingBy(YearMonth::from, Collectors.counting()));
+        List<Long> diasActivosMeses = new ArrayList<>();
+        for (int i = 5; i >= 0; i--) {
+            diasActivosMeses.add(diasActivosPorMes.getOrDefault(YearMonth.from(hoy.minusMonths(i)), 0L));
+        }
+
+        return new EstadisticasPrecalculadas(usuarioId, ayer, calcularRachaActual(usuarioId, ayer),
+                completadosDias, diasActivosMeses, null);
+    }
+
+    private List<DatoProgreso> calcularProgresoSemanal(Long usuarioId) {
         log.info("Obteniendo progreso semanal para usuario: {}", usuarioId);
 
         LocalDate hoy = LocalDate.now();
         LocalDate inicioSemana = hoy.minusDays(6); // Últimos 7 días
 
-        List<DatoProgreso> progreso = new ArrayList<>();
-        List<Habito> habitosActivos = habitoRepository.findByUsuarioIdAndActivoTrue(usuarioId);
-        long totalHabitos = habitosActivos.size();
+        Map<LocalDate, ResumenDiario> resumenes = resumenDiarioService.obtenerResumenes(usuarioId, inicioSemana, hoy).stream()
+                .collect(Collectors.toMap(ResumenDiario::getFecha, Function.identity()));
 
+        // Los días sin resumen no tienen registros; se usan los hábitos activos actuales
+        long habitosActivos = resumenes.containsKey(hoy)
+                ? resumenes.get(hoy).getHabitosActivos()
+                : habitoRepository.countByUsuarioIdAndActivoTrue(usuarioId);
+
+        List<DatoProgreso> progreso = new ArrayList<>();
         for (int i = 0; i < 7; i++) {
             LocalDate fecha = inicioSemana.plusDays(i);
-            List<RegistroHabito> registrosDia = registroHabitoRepository.findByUsuarioIdAndFecha(usuarioId, fecha);
-
-            long completados = registrosDia.stream()
-                    .filter(RegistroHabito::getCompletado)
-                    .count();
+            ResumenDiario resumen = resumenes.get(fecha);
 
+            long completados = resumen != null ? resumen.getCompletados() : 0;
+            long totalHabitos = resumen != null ? resumen.getHabitosActivos() : habitosActivos;
             double porcentaje = totalHabitos > 0 ? (double) completados / totalHabitos * 100 : 0;
 
             progreso.add(new DatoProgreso(fecha, completados, totalHabitos, porcentaje));
@@ -104,10 +278,16 @@ public class EstadisticasService {
         return progreso;
     }
 
-    public List<DatoProgreso> obtenerProgresoMensual(Long usuarioId) {
+    private List<DatoProgreso> calcularProgresoMensual(Long usuarioId) {
         log.info("Obteniendo progreso mensual para usuario: {}", usuarioId);
 
         LocalDate hoy = LocalDate.now();
+        LocalDate inicio = hoy.minusMonths(5).withDayOfMonth(1);
+
+        Map<YearMonth, Long> diasActivosPorMes = bitmapCompletados.isHabilitado() ? Map.of()
+                : resumenDiarioService.obtenerDiasActivos(usuarioId, inicio, hoy).stream()
+                        .collect(Collectors.groupingBy(r -> YearMonth.from(r.getFecha()), Collectors.counting()));
+
         List<DatoProgreso> progreso = new ArrayList<>();
 
         for (int i = 5; i >= 0; i--) {
@@ -118,14 +298,9 @@ public class EstadisticasService {
                 finMes = hoy;
             }
 
-            List<RegistroHabito> registrosMes = registroHabitoRepository
-                    .findByUsuarioIdAndFechaBetween(usuarioId, inicioMes, finMes);
-
-            long diasConRegistros = registrosMes.stream()
-                    .filter(RegistroHabito::getCompletado)
-                    .map(r -> r.getFecha())
-                    .distinct()
-                    .count();
+            long diasConRegistros = bitmapCompletados.isHabilitado()
+                    ? bitmapCompletados.contarDiasActivos(usuarioId, inicioMes, finMes)
+                    : diasActivosPorMes.getOrDefault(YearMonth.from(inicioMes), 0L);
 
             long diasEnMes = ChronoUnit.DAYS.between(inicioMes, finMes) + 1;
             double porcentaje = diasEnMes > 0 ? (double) diasConRegistros / diasEnMes * 100 : 0;
@@ -136,62 +311,132 @@ public class EstadisticasService {
         return progreso;
     }
 
-    public List<DatoCategoria> obtenerPorCategorias(Long usuarioId) {
-        log.info("Obteniendo estadísticas por categorías para usuario: {}", usuarioId);
-
-        List<Habito> habitos = habitoRepository.findByUsuarioIdAndActivoTrue(usuarioId);
-        LocalDate hoy = LocalDate.now();
-        List<RegistroHabito> registrosHoy = registroHabitoRepository.findByUsuarioIdAndFecha(usuarioId, hoy);
+    // Recorre los totales diarios en orden: solo se mantiene en memoria el periodo en curso,
+    // el bloque de archivo que se está leyendo y la lista de resultados
+    @Transactional(readOnly = true)
+    public List<DatoProgresoPeriodo> obtenerProgreso(Long usuarioId, LocalDate desde, LocalDate hasta, Granularidad granularidad) {
+        log.info("Calculando progreso para usuario: {} entre {} y {} ({})", usuarioId, desde, hasta, granularidad);
 
-        Map<String, List<Habito>> habitosPorCategoria = habitos.stream()
-                .collect(Collectors.groupingBy(Habito::getCategoria));
+        if (!directorioUsuarios.existe(usuarioId)) {
+            throw new RuntimeException("Usuario no encontrado con ID: " + usuarioId);
+        }
+        if (hasta.isBefore(desde)) {
+            throw new IllegalArgumentException("La fecha final es anterior a la inicial");
+        }
+        long periodos = switch (granularidad) {
+            case DAY -> ChronoUnit.DAYS.between(desde, hasta) + 1;
+            case WEEK -> ChronoUnit.WEEKS.between(granularidad.inicioPeriodo(desde), hasta) + 1;
+            case MONTH -> ChronoUnit.MONTHS.between(YearMonth.from(desde), YearMonth.from(hasta)) + 1;
+        };
+        if (periodos > MAX_PERIODOS_PROGRESO) {
+            throw new IllegalArgumentException("El rango solicitado excede " + MAX_PERIODOS_PROGRESO + " periodos");
+        }
 
-        List<DatoCategoria> datosCategorias = new ArrayList<>();
+        AcumuladorProgreso acumulador = new AcumuladorProgreso(desde, hasta, granularidad, (int) periodos);
 
-        for (Map.Entry<String, List<Habito>> entry : habitosPorCategoria.entrySet()) {
-            String categoria = entry.getKey();
-            List<Habito> habitosCategoria = entry.getValue();
-            long total = habitosCategoria.size();
+        // Primero el archivo, un bloque mensual cada vez, y después el nivel caliente con su cursor:
+        // los días archivados preceden a los calientes, así que el orden por fecha se mantiene
+        archivoRegistrosService.recorrerCompletadosPorFecha(usuarioId, desde, hasta, acumulador::agregar);
+        try (Stream<Object[]> filas = registroHabitoRepository
+                .streamCompletadosPorFechaByUsuarioIdAndFechaBetween(usuarioId, desde, hasta)) {
+            filas.forEach(fila -> acumulador.agregar((LocalDate) fila[0], (Long) fila[1]));
+        }
+        return acumulador.terminar();
+    }
 
-            long completados = habitosCategoria.stream()
-                    .filter(habito -> registrosHoy.stream()
-                            .anyMatch(registro -> registro.getHabito().getId().equals(habito.getId())
-                                    && registro.getCompletado()))
-                    .count();
+    // Cierra cada periodo al recibir el primer día del siguiente
+    private static final class AcumuladorProgreso {
+
+        private final LocalDate desde;
+        private final LocalDate hasta;
+        private final Granularidad granularidad;
+        private final List<DatoProgresoPeriodo> resultado;
+        private LocalDate inicioPeriodo;
+        private long completados;
+        private long diasActivos;
+
+        private AcumuladorProgreso(LocalDate desde, LocalDate hasta, Granularidad granularidad, int periodos) {
+            this.desde = desde;
+            this.hasta = hasta;
+            this.granularidad = granularidad;
+            this.resultado = new ArrayList<>(periodos);
+            this.inicioPeriodo = granularidad.inicioPeriodo(desde);
+        }
 
-            double porcentaje = total > 0 ? (double) completados / total * 100 : 0;
+        private void agregar(LocalDate fecha, Long completadosDia) {
+            while (!fecha.isBefore(granularidad.siguientePeriodo(inicioPeriodo))) {
+                cerrarPeriodo();
+            }
+            completados += completadosDia;
+            diasActivos++;
+        }
 
-            datosCategorias.add(new DatoCategoria(categoria, total, completados, porcentaje));
+        // Periodo en curso y periodos finales sin registros
+        private List<DatoProgresoPeriodo> terminar() {
+            while (!inicioPeriodo.isAfter(hasta)) {
+                cerrarPeriodo();
+            }
+            return resultado;
         }
 
-        return datosCategorias;
+        private void cerrarPeriodo() {
+            // Los periodos de los extremos se recortan al rango pedido
+            LocalDate inicio = inicioPeriodo.isBefore(desde) ? desde : inicioPeriodo;
+            LocalDate finPeriodo = granularidad.siguientePeriodo(inicioPeriodo).minusDays(1);
+            LocalDate fin = finPeriodo.isAfter(hasta) ? hasta : finPeriodo;
+            long dias = ChronoUnit.DAYS.between(inicio, fin) + 1;
+            double porcentaje = (double) diasActivos / dias * 100;
+            resultado.add(new DatoProgresoPeriodo(inicio, fin, completados, diasActivos, dias, porcentaje));
+
+            inicioPeriodo = granularidad.siguientePeriodo(inicioPeriodo);
+            completados = 0;
+            diasActivos = 0;
+        }
     }
 
-    private long calcularRachaActual(Long usuarioId) {
-        LocalDate fecha = LocalDate.now();
-        long racha = 0;
+    private List<DatoCategoria> calcularPorCategorias(Long usuarioId) {
+        log.info("Obteniendo estadísticas por categorías para usuario: {}", usuarioId);
 
-        while (true) {
-            List<RegistroHabito> registrosDia = registroHabitoRepository.findByUsuarioIdAndFecha(usuarioId, fecha);
-            boolean tieneCompletados = registrosDia.stream().anyMatch(RegistroHabito::getCompletado);
+        LocalDate hoy = LocalDate.now();
 
-            if (tieneCompletados) {
-                racha++;
-                fecha = fecha.minusDays(1);
-            } else {
-                break;
+        if (agregacionCategoriasDisponible) {
+            try {
+                return habitoRepository.countPorCategoriaByUsuarioIdAndFecha(usuarioId, hoy);
+            } catch (InvalidDataAccessResourceUsageException e) {
+                // Sintaxis o función no soportada por la base de datos: no se vuelve a intentar
+                log.warn("Agregación por categorías no disponible, se usa el cálculo en memoria: {}", e.getMessage());
+                agregacionCategoriasDisponible = false;
+            } catch (DataAccessException e) {
+                // Fallo transitorio (bloqueo, conexión): solo esta petición usa el cálculo en memoria
+                log.warn("Agregación por categorías fallida, se usa el cálculo en memoria: {}", e.getMessage());
             }
-
-            // Evitar bucle infinito
-            if (racha > 365) break;
         }
 
-        return racha;
+        // Hash join en memoria: hábitos activos contra los IDs completados hoy
+        List<Habito> habitos = habitoRepository.findByUsuarioIdAndActivoTrue(usuarioId);
+        Set<Long> habitosCompletadosHoy = registroHabitoRepository.findHabitoIdsCompletadosByUsuarioIdAndFecha(usuarioId, hoy);
+        return calcularCategorias(habitos, habitosCompletadosHoy);
     }
 
-    private String obtenerMejorCategoria(Long usuarioId) {
-        List<DatoCategoria> categorias = obtenerPorCategorias(usuarioId);
+    private List<DatoCategoria> calcularCategorias(List<Habito> habitosActivos, Set<Long> habitosCompletadosHoy) {
+        Map<String, long[]> conteos = new LinkedHashMap<>();
+        for (Habito habito : habitosActivos) {
+            long[] conteo = conteos.computeIfAbsent(habito.getCategoria(), c -> new long[2]);
+            conteo[0]++;
+            if (habitosCompletadosHoy.contains(habito.getId())) {
+                conteo[1]++;
+            }
+        }
+
+        List<DatoCategoria> datosCategorias = new ArrayList<>();
+        conteos.forEach((categoria, conteo) -> {
+            double porcentaje = conteo[0] > 0 ? (double) conteo[1] / conteo[0] * 100 : 0;
+            datosCategorias.add(new DatoCategoria(categoria, conteo[0], conteo[1], porcentaje));
+        });
+        return datosCategorias;
+    }
 
+    private String obtenerMejorCategoria(List<DatoCategoria> categorias) {
         return categorias.stream()
                 .filter(c -> c.getTotal() > 0)
                 .max((c1, c2) -> Double.compare(c1.getPorcentaje(), c2.getPorcentaje()))
@@ -199,14 +444,16 @@ public class EstadisticasService {
                 .orElse("Ninguna");
     }
 
-    private long calcularDiasActivosEsteMes(Long usuarioId, LocalDate inicioMes, LocalDate finMes) {
-        List<RegistroHabito> registrosMes = registroHabitoRepository
-                .findByUsuarioIdAndFechaBetween(usuarioId, inicioMes, finMes);
+    // Con el bitmap habilitado la racha y los días activos se resuelven sin SQL
+    private long calcularRachaActual(Long usuarioId, LocalDate hoy) {
+        return bitmapCompletados.isHabilitado()
+                ? bitmapCompletados.rachaHasta(usuarioId, hoy)
+                : rachaService.obtenerRachaActual(usuarioId, hoy);
+    }
 
-        return registrosMes.stream()
-                .filter(RegistroHabito::getCompletado)
-                .map(RegistroHabito::getFecha)
-                .distinct()
-                .count();
+    private long calcularDiasActivosEsteMes(Long usuarioId, LocalDate inicioMes, LocalDate finMes) {
+        return bitmapCompletados.isHabilitado()
+                ? bitmapCompletados.contarDiasActivos(usuarioId, inicioMes, finMes)
+                : resumenDiarioService.contarDiasActivos(usuarioId, inicioMes, finMes);
     }
 }
@@ -1,17 +1,24 @@
 package com.healthcare.service;
 
+import com.healthcare.dto.HabitoDTO;
+import com.healthcare.event.HabitoModificadoEvent;
 import com.healthcare.model.Habito;
 import com.healthcare.model.Usuario;
 import com.healthcare.repository.HabitoRepository;
 import com.healthcare.repository.UsuarioRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 import java.util.ArrayList;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -21,29 +28,42 @@ public class HabitoService {
 
     private final HabitoRepository habitoRepository;
     private final UsuarioRepository usuarioRepository;
+    private final DirectorioUsuarios directorioUsuarios;
+    private final ResumenDiarioService resumenDiarioService;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public List<Habito> obtenerHabitosPorUsuario(Long usuarioId) {
+    @Transactional(readOnly = true)
+    public List<HabitoDTO> obtenerHabitosPorUsuario(Long usuarioId) {
         log.info("Obteniendo hábitos para usuario ID: {}", usuarioId);
 
         // Verify user exists first
-        if (!usuarioRepository.existsById(usuarioId)) {
+        if (!directorioUsuarios.existe(usuarioId)) {
             log.warn("Usuario no encontrado con ID: {}", usuarioId);
             return new ArrayList<>();
         }
 
-        List<Habito> habitos = habitoRepository.findByUsuarioIdAndActivoTrue(usuarioId);
+        List<HabitoDTO> habitos = habitoRepository.findDtoByUsuarioIdAndActivoTrue(usuarioId);
         log.info("Encontrados {} hábitos activos para usuario {}", habitos.size(), usuarioId);
         return habitos;
     }
 
-    public List<Habito> obtenerHabitosPorCategoria(String categoria) {
-        log.info("Obteniendo hábitos por categoría: {}", categoria);
-        return habitoRepository.findByCategoria(categoria);
+    @Transactional(readOnly = true)
+    public List<HabitoDTO> obtenerHabitosPorCategoria(String categoria, Long despuesDe, int limite) {
+        log.info("Obteniendo hábitos por categoría: {} después del ID {}", categoria, despuesDe);
+        return habitoRepository.findDtoByCategoriaAndIdGreaterThan(categoria, despuesDe, PageRequest.of(0, limite));
     }
 
-    public Optional<Habito> obtenerHabitoPorId(Long id) {
+    @Transactional(readOnly = true)
+    public void recorrerHabitosPorCategoria(String categoria, Consumer<? super HabitoDTO> destino) {
+        try (Stream<HabitoDTO> habitos = habitoRepository.streamDtoByCategoria(categoria)) {
+            habitos.forEach(destino);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<HabitoDTO> obtenerHabitoPorId(Long id) {
         log.info("Obteniendo hábito por ID: {}", id);
-        return habitoRepository.findById(id);
+        return habitoRepository.findDtoById(id);
     }
 
     public Habito crearHabito(Habito habito) {
@@ -54,7 +74,10 @@ public class HabitoService {
                 .orElseThrow(() -> new RuntimeException("Usuario no encontrado con ID: " + habito.getUsuario().getId()));
 
         habito.setUsuario(usuario);
-        return habitoRepository.save(habito);
+        Habito guardado = habitoRepository.save(habito);
+
+        registrarCambio(guardado);
+        return guardado;
     }
 
     public Habito actualizarHabito(Long id, Habito habitoActualizado) {
@@ -70,7 +93,10 @@ public class HabitoService {
         habito.setUnidadMedida(habitoActualizado.getUnidadMedida());
         habito.setActivo(habitoActualizado.getActivo());
 
-        return habitoRepository.save(habito);
+        Habito guardado = habitoRepository.save(habito);
+
+        registrarCambio(guardado);
+        return guardado;
     }
 
     public void eliminarHabito(Long id) {
@@ -81,11 +107,26 @@ public class HabitoService {
 
         habito.setActivo(false);
         habitoRepository.save(habito);
+
+        registrarCambio(habito);
     }
 
-    public List<Habito> obtenerTodosLosHabitos() {
-        log.info("Obteniendo todos los hábitos");
-        return habitoRepository.findAll();
+    @Transactional(readOnly = true)
+    public List<HabitoDTO> obtenerTodosLosHabitos(Long despuesDe, int limite) {
+        log.info("Obteniendo hábitos después del ID {}", despuesDe);
+        return habitoRepository.findDtoByIdGreaterThan(despuesDe, PageRequest.of(0, limite));
     }
 
+    @Transactional(readOnly = true)
+    public void recorrerTodosLosHabitos(Consumer<? super HabitoDTO> destino) {
+        try (Stream<HabitoDTO> habitos = habitoRepository.streamAllDto()) {
+            habitos.forEach(destino);
+        }
+    }
+
+    private void registrarCambio(Habito habito) {
+        Long usuarioId = habito.getUsuario().getId();
+        resumenDiarioService.actualizarHabitosActivos(usuarioId, LocalDate.now());
+        eventPublisher.publishEvent(new HabitoModificadoEvent(usuarioId, habito.getId()));
+    }
 }
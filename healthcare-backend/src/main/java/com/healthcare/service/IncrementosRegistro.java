@@ -0,0 +1,154 @@
+package com.healthcare.service;
+
+import com.healthcare.model.RegistroHabito;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionException;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Incrementos de valor de alta frecuencia (agua, pasos). En modo INMEDIATA cada petición es una
+// sentencia atómica. En modo DIFERIDA los incrementos se suman en memoria por (hábito, día) y se
+// vuelcan como una sola sentencia cada intervalo o al llegar al umbral; una caída del proceso
+// pierde como mucho lo acumulado desde el último volcado (acotado por intervalo, umbral y
+// maximo-pendientes). Las lecturas no ven lo pendiente hasta el volcado.
+@Component
+@Slf4j
+public class IncrementosRegistro {
+
+    public enum Durabilidad {
+        INMEDIATA,
+        DIFERIDA
+    }
+
+    private record Clave(Long habitoId, LocalDate fecha) {
+    }
+
+    private record Acumulado(double suma, int operaciones) {
+
+        Acumulado mas(Acumulado otro) {
+            return new Acumulado(suma + otro.suma, operaciones + otro.operaciones);
+        }
+    }
+
+    private final RegistroHabitoService registroHabitoService;
+    private final Durabilidad durabilidad;
+    private final int umbral;
+    private final int maximoPendientes;
+
+    private final Map<Clave, Acumulado> pendientes = new ConcurrentHashMap<>();
+    private final Counter recibidos;
+    private final Counter escrituras;
+    private final Counter descartados;
+
+    public IncrementosRegistro(RegistroHabitoService registroHabitoService,
+                               MeterRegistry meterRegistry,
+                               @Value("${healthcare.registros.incrementos.durabilidad:INMEDIATA}") Durabilidad durabilidad,
+                               @Value("${healthcare.registros.incrementos.umbral:50}") int umbral,
+                               @Value("${healthcare.registros.incrementos.maximo-pendientes:10000}") int maximoPendientes) {
+        this.registroHabitoService = registroHabitoService;
+        this.durabilidad = durabilidad;
+        this.umbral = umbral;
+        this.maximoPendientes = maximoPendientes;
+
+        meterRegistry.gaugeMapSize("healthcare.registros.incrementos.pendientes", List.of(), pendientes);
+        this.recibidos = meterRegistry.counter("healthcare.registros.incrementos.recibidos");
+        this.escrituras = meterRegistry.counter("healthcare.registros.incrementos.escrituras");
+        this.descartados = meterRegistry.counter("healthcare.registros.incrementos.descartados");
+    }
+
+    // Devuelve el registro ya guardado en modo INMEDIATA y vacío si el incremento quedó pendiente
+    public Optional<RegistroHabito> incrementar(Long habitoId, LocalDate fecha, double incremento) {
+        if (durabilidad == Durabilidad.INMEDIATA) {
+            RegistroHabito guardado = registroHabitoService.incrementarRegistroDelDia(habitoId, fecha, incremento);
+            recibidos.increment();
+            escrituras.increment();
+            return Optional.of(guardado);
+        }
+
+        // Se valida al aceptarlo: un incremento diferido que falle después ya no tiene a quién avisar
+        registroHabitoService.validarIncremento(habitoId, fecha, incremento);
+        recibidos.increment();
+
+        Clave clave = new Clave(habitoId, fecha);
+        Acumulado acumulado = pendientes.merge(clave, new Acumulado(incremento, 1), Acumulado::mas);
+        if (acumulado.operaciones() >= umbral) {
+            volcar(clave);
+        }
+        if (pendientes.size() > maximoPendientes) {
+            // Demasiadas claves abiertas: el hilo que encola vuelca y así frena a los productores
+            volcarTodo();
+        }
+        return Optional.empty();
+    }
+
+    @Scheduled(fixedDelayString = "${healthcare.registros.incrementos.intervalo-ms:1000}")
+    public void volcarProgramado() {
+        if (!pendientes.isEmpty()) {
+            volcarTodo();
+        }
+    }
+
+    @PreDestroy
+    public void volcarAlCerrar() {
+        if (!pendientes.isEmpty()) {
+            log.info("Volcando {} incrementos pendientes antes de cerrar", pendientes.size());
+            volcarTodo();
+        }
+    }
+
+    public void volcarTodo() {
+        for (Clave clave : List.copyOf(pendientes.keySet())) {
+            volcar(clave);
+        }
+    }
+
+    private void volcar(Clave clave) {
+        // remove es atómico: lo que llegue después abre una entrada nueva para el siguiente volcado
+        Acumulado acumulado = pendientes.remove(clave);
+        if (acumulado == null || acumulado.suma() == 0.0) {
+            return;
+        }
+        try {
+            registroHabitoService.incrementarRegistroDelDia(clave.habitoId(), clave.fecha(), acumulado.suma());
+            escrituras.increment();
+        } catch (DataIntegrityViolationException e) {
+            descartar(clave, acumulado, e);
+        } catch (DataAccessException | TransactionException e) {
+            // Fallo transitorio de la base de datos: se devuelve al búfer para el siguiente intento
+            log.warn("No se pudo volcar el incremento de hábito {} del {}: {}", clave.habitoId(), clave.fecha(), e.getMessage());
+            pendientes.merge(clave, acumulado, Acumulado::mas);
+        } catch (RuntimeException e) {
+            descartar(clave, acumulado, e);
+        }
+    }
+
+    // El hábito se eliminó o el día se archivó entre la aceptación y el volcado
+    private void descartar(Clave clave, Acumulado acumulado, RuntimeException e) {
+        log.error("Descartando {} incrementos de hábito {} del {}: {}", acumulado.operaciones(),
+                clave.habitoId(), clave.fecha(), e.getMessage());
+        descartados.increment(acumulado.operaciones());
+    }
+
+    public Map<String, Object> obtenerMetricas() {
+        Map<String, Object> metricas = new LinkedHashMap<>();
+        metricas.put("durabilidad", durabilidad);
+        metricas.put("pendientes", pendientes.size());
+        metricas.put("recibidos", (long) recibidos.count());
+        metricas.put("escrituras", (long) escrituras.count());
+        metricas.put("descartados", (long) descartados.count());
+        return metricas;
+    }
+}
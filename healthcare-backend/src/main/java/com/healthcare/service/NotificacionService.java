@@ -1,18 +1,35 @@
 package com.healthcare.service;
 
+import com.healthcare.dto.NotificacionDTO;
+import com.healthcare.event.NotificacionEnviadaEvent;
+import com.healthcare.event.NoLeidasModificadasEvent;
+import com.healthcare.event.NotificacionModificadaEvent;
+import com.healthcare.event.NotificacionesLeidasEvent;
+import com.healthcare.model.ConfiguracionNotificacion;
 import com.healthcare.model.Notificacion;
+import com.healthcare.model.Notificacion.EstadoNotificacion;
 import com.healthcare.model.Usuario;
 import com.healthcare.model.Habito;
+import com.healthcare.repository.ConfiguracionNotificacionRepository;
 import com.healthcare.repository.NotificacionRepository;
 import com.healthcare.repository.UsuarioRepository;
 import com.healthcare.repository.HabitoRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.DayOfWeek;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -23,46 +40,171 @@ public class NotificacionService {
     private final NotificacionRepository notificacionRepository;
     private final UsuarioRepository usuarioRepository;
     private final HabitoRepository habitoRepository;
+    private final ConfiguracionNotificacionRepository configuracionNotificacionRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     public Notificacion crearNotificacion(Notificacion notificacion) {
-        return notificacionRepository.save(notificacion);
+        asignarHorario(notificacion);
+        Notificacion creada = notificacionRepository.save(notificacion);
+        registrarCambio(creada);
+        if (creada.getLeidaEn() == null) {
+            registrarNoLeidas(creada, 1);
+        }
+        if (creada.getEstado() == EstadoNotificacion.ENVIADA) {
+            registrarEnvio(NotificacionDTO.desde(creada));
+        }
+        return creada;
     }
 
-    public List<Notificacion> obtenerTodas() {
-        return notificacionRepository.findAll();
+    @Transactional(readOnly = true)
+    public List<NotificacionDTO> obtenerTodas(Long despuesDe, int limite) {
+        return notificacionRepository.findDtoByIdGreaterThan(despuesDe, PageRequest.of(0, limite));
+    }
+
+    @Transactional(readOnly = true)
+    public void recorrerTodas(Consumer<? super NotificacionDTO> destino) {
+        try (Stream<NotificacionDTO> notificaciones = notificacionRepository.streamAllDto()) {
+            notificaciones.forEach(destino);
+        }
     }
 
-    public List<Notificacion> obtenerNotificacionesUsuario(Long usuarioId) {
-        return notificacionRepository.findByUsuarioIdOrderByFechaCreacionDesc(usuarioId);
+    @Transactional(readOnly = true)
+    public List<NotificacionDTO> obtenerNotificacionesUsuario(Long usuarioId) {
+        return notificacionRepository.findDtoByUsuarioId(usuarioId);
     }
 
-    public List<Notificacion> obtenerNotificacionesNoLeidas(Long usuarioId) {
-        return notificacionRepository.findByUsuarioIdAndLeidaEnIsNullOrderByFechaCreacionDesc(usuarioId);
+    @Transactional(readOnly = true)
+    public List<NotificacionDTO> obtenerNotificacionesNoLeidas(Long usuarioId) {
+        return notificacionRepository.findDtoNoLeidasByUsuarioId(usuarioId);
     }
 
     public Notificacion actualizarNotificacion(Long id, Notificacion notificacion) {
-        Notificacion existente = notificacionRepository.findById(id)
+        Notificacion existente = notificacionRepository.findConHabitoById(id)
                 .orElseThrow(() -> new RuntimeException("Notificación no encontrada"));
 
+        EstadoNotificacion estadoAnterior = existente.getEstado();
+        boolean noLeidaAntes = existente.getLeidaEn() == null;
         existente.setTitulo(notificacion.getTitulo());
         existente.setMensaje(notificacion.getMensaje());
         existente.setEstado(notificacion.getEstado());
         existente.setPrioridad(notificacion.getPrioridad());
         existente.setEnviadaEn(notificacion.getEnviadaEn());
         existente.setLeidaEn(notificacion.getLeidaEn());
+        asignarHorario(existente);
         // Si quieres actualizar habito o usuario, agrégalo aquí
 
-        return notificacionRepository.save(existente);
+        Notificacion guardada = notificacionRepository.save(existente);
+        registrarCambio(guardada);
+        if (noLeidaAntes != (guardada.getLeidaEn() == null)) {
+            registrarNoLeidas(guardada, noLeidaAntes ? -1 : 1);
+        }
+        if (estadoAnterior == EstadoNotificacion.PROGRAMADA && guardada.getEstado() == EstadoNotificacion.ENVIADA) {
+            registrarEnvio(NotificacionDTO.desde(guardada));
+        }
+        return guardada;
     }
 
     public void eliminarNotificacion(Long id) {
-        if (!notificacionRepository.existsById(id)) {
-            throw new RuntimeException("Notificación no encontrada");
+        Notificacion notificacion = notificacionRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Notificación no encontrada"));
+        notificacionRepository.delete(notificacion);
+        if (notificacion.getUsuario() != null) {
+            eventPublisher.publishEvent(new NotificacionModificadaEvent(notificacion.getUsuario().getId(), id, null));
+        }
+        if (notificacion.getLeidaEn() == null) {
+            registrarNoLeidas(notificacion, -1);
         }
-        notificacionRepository.deleteById(id);
     }
 
-    public List<Notificacion> obtenerNotificacionesActivasPorUsuario(Long usuarioId) {
-        return notificacionRepository.findByUsuarioIdAndEnviadaEnAfter(usuarioId, LocalDateTime.now());
+    // Un solo UPDATE: ids null marca todas las no leídas del usuario y una lista vacía ninguna;
+    // las ya leídas conservan su fecha
+    public int marcarLeidas(Long usuarioId, List<Long> ids) {
+        if (ids != null && ids.isEmpty()) {
+            return 0;
+        }
+        LocalDateTime ahora = LocalDateTime.now();
+        boolean todas = ids == null;
+        int marcadas = todas
+                ? notificacionRepository.marcarLeidas(usuarioId, ahora)
+                : notificacionRepository.marcarLeidas(usuarioId, ids, ahora);
+        if (marcadas > 0) {
+            eventPublisher.publishEvent(new NoLeidasModificadasEvent(usuarioId, -marcadas));
+            eventPublisher.publishEvent(new NotificacionesLeidasEvent(usuarioId, todas ? null : List.copyOf(ids), ahora));
+        }
+        return marcadas;
+    }
+
+    @Transactional(readOnly = true)
+    public List<NotificacionDTO> obtenerNotificacionesActivasPorUsuario(Long usuarioId) {
+        return notificacionRepository.findDtoByUsuarioIdAndEnviadaEnAfter(usuarioId, LocalDateTime.now());
+    }
+
+    // Pasa a ENVIADA las que sigan programadas y vencidas; devuelve las que cambió este nodo
+    public List<Long> marcarEnviadas(Collection<Long> ids, LocalDateTime limite) {
+        List<Long> bloqueadas = notificacionRepository.bloquearProgramadasVencidas(ids, limite);
+        if (bloqueadas.isEmpty()) {
+            return bloqueadas;
+        }
+        notificacionRepository.marcarEnviadas(bloqueadas);
+        for (NotificacionDTO enviada : notificacionRepository.findDtoByIdIn(bloqueadas)) {
+            eventPublisher.publishEvent(new NotificacionModificadaEvent(enviada.getUsuario().getId(), enviada.getId(), enviada));
+            registrarEnvio(enviada);
+        }
+        return bloqueadas;
+    }
+
+    // Una programada sin hora se envía en el siguiente horario preferido del usuario
+    private void asignarHorario(Notificacion notificacion) {
+        if (notificacion.getEstado() != EstadoNotificacion.PROGRAMADA || notificacion.getEnviadaEn() != null
+                || notificacion.getUsuario() == null) {
+            return;
+        }
+        ConfiguracionNotificacion configuracion = configuracionNotificacionRepository
+                .findByUsuarioId(notificacion.getUsuario().getId())
+                .orElseGet(ConfiguracionNotificacion::new);
+        notificacion.setEnviadaEn(siguienteHorario(configuracion, LocalDateTime.now()));
+    }
+
+    static LocalDateTime siguienteHorario(ConfiguracionNotificacion configuracion, LocalDateTime ahora) {
+        List<LocalTime> horarios = Stream.of(configuracion.getHorarioMatutino(), configuracion.getHorarioVespertino(),
+                        configuracion.getHorarioNocturno())
+                .filter(Objects::nonNull)
+                .sorted()
+                .toList();
+        if (horarios.isEmpty()) {
+            return ahora;
+        }
+        boolean finesDeSemana = Boolean.TRUE.equals(configuracion.getIncluirFinesSemana());
+        for (LocalDate dia = ahora.toLocalDate(); ; dia = dia.plusDays(1)) {
+            if (!finesDeSemana && (dia.getDayOfWeek() == DayOfWeek.SATURDAY || dia.getDayOfWeek() == DayOfWeek.SUNDAY)) {
+                continue;
+            }
+            for (LocalTime horario : horarios) {
+                LocalDateTime candidato = dia.atTime(horario);
+                if (candidato.isAfter(ahora)) {
+                    return candidato;
+                }
+            }
+        }
+    }
+
+    // Solo al pasar a ENVIADA: editar una ya enviada o marcarla leída no la entrega otra vez
+    private void registrarEnvio(NotificacionDTO enviada) {
+        if (enviada.getUsuario() != null) {
+            eventPublisher.publishEvent(new NotificacionEnviadaEvent(enviada.getUsuario().getId(), enviada));
+        }
+    }
+
+    private void registrarNoLeidas(Notificacion notificacion, long delta) {
+        if (notificacion.getUsuario() != null) {
+            eventPublisher.publishEvent(new NoLeidasModificadasEvent(notificacion.getUsuario().getId(), delta));
+        }
+    }
+
+    private void registrarCambio(Notificacion notificacion) {
+        if (notificacion.getUsuario() != null) {
+            eventPublisher.publishEvent(new NotificacionModificadaEvent(notificacion.getUsuario().getId(), notificacion.getId(),
+                    NotificacionDTO.desde(notificacion)));
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,240 @@
+package com.healthcare.service;
+
+import com.healthcare.event.NotificacionModificadaEvent;
+import com.healthcare.event.NotificacionesLeidasEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Reparto en memoria de los cambios de notificaciones a los streams SSE abiertos en este nodo.
+// Cada usuario conserva sus últimos eventos durante una ventana para reenviarlos al reconectar
+// con Last-Event-ID; si el id no es de este arranque o ya salió del búfer se envía
+// "resincronizar" y el cliente vuelve a pedir el listado. Los cambios hechos en otro nodo no
+// llegan a los streams de este.
+@Component
+@Slf4j
+public class NotificacionesEnVivo {
+
+    public static final String EVENTO_NOTIFICACION = "notificacion";
+    public static final String EVENTO_ELIMINADA = "notificacion-eliminada";
+    public static final String EVENTO_LEIDAS = "notificaciones-leidas";
+    public static final String EVENTO_RESINCRONIZAR = "resincronizar";
+
+    private record Emitido(long secuencia, String nombre, Object datos) {
+    }
+
+    // Conexiones abiertas y eventos recientes de un usuario; se accede sincronizando sobre él
+    private static final class Canal {
+        private final List<SseEmitter> emisores = new CopyOnWriteArrayList<>();
+        private final Deque<Emitido> recientes = new ArrayDeque<>();
+        // Secuencia a partir de la cual el búfer está completo para este usuario
+        private long desde;
+        private volatile long ultimaActividad = System.currentTimeMillis();
+
+        private Canal(long desde) {
+            this.desde = desde;
+        }
+    }
+
+    // Los ids llevan el arranque: un Last-Event-ID de antes de un reinicio no se confunde con uno nuevo
+    private final String arranque = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong secuencia = new AtomicLong();
+    private final Map<Long, Canal> canales = new ConcurrentHashMap<>();
+    private final AtomicInteger conexiones = new AtomicInteger();
+
+    private final int maximoConexiones;
+    private final int maximoPorUsuario;
+    private final long timeoutMs;
+    private final int reenvioMaximo;
+    private final long ventanaReenvioMs;
+    private final Counter enviados;
+    private final Counter rechazadas;
+
+    public NotificacionesEnVivo(MeterRegistry meterRegistry,
+                                @Value("${healthcare.notificaciones.stream.maximo-conexiones:20000}") int maximoConexiones,
+                                @Value("${healthcare.notificaciones.stream.maximo-por-usuario:5}") int maximoPorUsuario,
+                                @Value("${healthcare.notificaciones.stream.timeout:30m}") Duration timeout,
+                                @Value("${healthcare.notificaciones.stream.reenvio-maximo:100}") int reenvioMaximo,
+                                @Value("${healthcare.notificaciones.stream.ventana-reenvio:5m}") Duration ventanaReenvio) {
+        this.maximoConexiones = maximoConexiones;
+        this.maximoPorUsuario = maximoPorUsuario;
+        this.timeoutMs = timeout.toMillis();
+        this.reenvioMaximo = reenvioMaximo;
+        this.ventanaReenvioMs = ventanaReenvio.toMillis();
+
+        meterRegistry.gauge("healthcare.notificaciones.stream.conexiones", conexiones);
+        this.enviados = meterRegistry.counter("healthcare.notificaciones.stream.eventos");
+        this.rechazadas = meterRegistry.counter("healthcare.notificaciones.stream.rechazadas");
+    }
+
+    // IllegalStateException si el nodo ya tiene el máximo de conexiones abiertas
+    public SseEmitter suscribir(Long usuarioId, String ultimoEventoId) {
+        if (conexiones.incrementAndGet() > maximoConexiones) {
+            conexiones.decrementAndGet();
+            rechazadas.increment();
+            throw new IllegalStateException("Límite de " + maximoConexiones + " streams alcanzado");
+        }
+
+        SseEmitter emisor = new SseEmitter(timeoutMs);
+        Canal canal = canales.compute(usuarioId, (id, existente) -> {
+            Canal c = existente != null ? existente : new Canal(secuencia.get());
+            c.ultimaActividad = System.currentTimeMillis();
+            return c;
+        });
+        emisor.onCompletion(() -> quitar(canal, emisor));
+        emisor.onTimeout(emisor::complete);
+        emisor.onError(e -> quitar(canal, emisor));
+
+        synchronized (canal) {
+            // Una pestaña que se recarga en bucle no debe acaparar conexiones: se cierra la más antigua
+            while (canal.emisores.size() >= maximoPorUsuario) {
+                SseEmitter antiguo = canal.emisores.get(0);
+                quitar(canal, antiguo);
+                antiguo.complete();
+            }
+            reenviar(canal, emisor, ultimoEventoId);
+            canal.emisores.add(emisor);
+        }
+        return emisor;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alModificarNotificacion(NotificacionModificadaEvent evento) {
+        if (evento.notificacion() != null) {
+            publicar(evento.usuarioId(), EVENTO_NOTIFICACION, evento.notificacion());
+        } else {
+            publicar(evento.usuarioId(), EVENTO_ELIMINADA, Map.of("id", evento.notificacionId()));
+        }
+    }
+
+    // Un solo evento por marcado en bloque; sin ids, el cliente da por leídas todas las que tiene
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alMarcarLeidas(NotificacionesLeidasEvent evento) {
+        Map<String, Object> datos = new LinkedHashMap<>();
+        if (evento.notificacionIds() != null) {
+            datos.put("ids", evento.notificacionIds());
+        }
+        datos.put("leidaEn", evento.leidaEn());
+        publicar(evento.usuarioId(), EVENTO_LEIDAS, datos);
+    }
+
+    public void publicar(Long usuarioId, String nombre, Object datos) {
+        Canal canal = canales.get(usuarioId);
+        if (canal == null) {
+            // Nadie conectado ni reconectando: no hay nada que guardar para reenviar
+            return;
+        }
+        synchronized (canal) {
+            Emitido emitido = new Emitido(secuencia.incrementAndGet(), nombre, datos);
+            canal.recientes.addLast(emitido);
+            while (canal.recientes.size() > reenvioMaximo) {
+                canal.desde = canal.recientes.removeFirst().secuencia();
+            }
+            for (SseEmitter emisor : canal.emisores) {
+                enviar(canal, emisor, emitido);
+            }
+        }
+    }
+
+    // Comentario SSE periódico: mantiene vivos proxies y balanceadores y detecta clientes caídos
+    @Scheduled(fixedDelayString = "${healthcare.notificaciones.stream.latido-ms:25000}")
+    public void latido() {
+        long limite = System.currentTimeMillis() - ventanaReenvioMs;
+        for (Map.Entry<Long, Canal> entrada : canales.entrySet()) {
+            Canal canal = entrada.getValue();
+            for (SseEmitter emisor : canal.emisores) {
+                try {
+                    emisor.send(SseEmitter.event().comment("latido"));
+                } catch (IOException | IllegalStateException e) {
+                    quitar(canal, emisor);
+                }
+            }
+            // Sin conexiones desde hace más que la ventana de reenvío ya no se espera reconexión
+            canales.computeIfPresent(entrada.getKey(), (id, c) ->
+                    c.emisores.isEmpty() && c.ultimaActividad < limite ? null : c);
+        }
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        canales.values().forEach(canal -> canal.emisores.forEach(SseEmitter::complete));
+    }
+
+    public Map<String, Object> obtenerMetricas() {
+        Map<String, Object> metricas = new LinkedHashMap<>();
+        metricas.put("conexiones", conexiones.get());
+        metricas.put("maximoConexiones", maximoConexiones);
+        metricas.put("usuarios", canales.size());
+        metricas.put("eventosEnviados", (long) enviados.count());
+        metricas.put("rechazadas", (long) rechazadas.count());
+        return metricas;
+    }
+
+    private void reenviar(Canal canal, SseEmitter emisor, String ultimoEventoId) {
+        if (ultimoEventoId == null || ultimoEventoId.isBlank()) {
+            return;
+        }
+        long ultimaSecuencia = secuenciaDe(ultimoEventoId);
+        // Hueco: id de otro arranque, o eventos posteriores que ya salieron del búfer
+        if (ultimaSecuencia < canal.desde || ultimaSecuencia > secuencia.get()) {
+            enviar(canal, emisor, new Emitido(secuencia.get(), EVENTO_RESINCRONIZAR, Map.of()));
+            return;
+        }
+        for (Emitido emitido : canal.recientes) {
+            if (emitido.secuencia() > ultimaSecuencia) {
+                enviar(canal, emisor, emitido);
+            }
+        }
+    }
+
+    // -1 si el id no es de este arranque
+    private long secuenciaDe(String eventoId) {
+        int separador = eventoId.lastIndexOf('-');
+        if (separador <= 0 || !eventoId.substring(0, separador).equals(arranque)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(eventoId.substring(separador + 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private void enviar(Canal canal, SseEmitter emisor, Emitido emitido) {
+        try {
+            emisor.send(SseEmitter.event()
+                    .id(arranque + "-" + emitido.secuencia())
+                    .name(emitido.nombre())
+                    .data(emitido.datos()));
+            enviados.increment();
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Stream de notificaciones cerrado por el cliente: {}", e.getMessage());
+            quitar(canal, emisor);
+        }
+    }
+
+    private void quitar(Canal canal, SseEmitter emisor) {
+        if (canal.emisores.remove(emisor)) {
+            conexiones.decrementAndGet();
+            canal.ultimaActividad = System.currentTimeMillis();
+        }
+    }
+}
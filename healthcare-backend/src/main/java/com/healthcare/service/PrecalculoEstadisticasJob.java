@@ -0,0 +1,231 @@
+package com.healthcare.service;
+
+import com.healthcare.event.RegistroHabitoModificadoEvent;
+import com.healthcare.event.RegistrosHabitoLoteEvent;
+import com.healthcare.model.CheckpointTrabajo;
+import com.healthcare.model.CheckpointTrabajo.EstadoTrabajo;
+import com.healthcare.repository.CheckpointTrabajoRepository;
+import com.healthcare.repository.EstadisticasPrecalculadasRepository;
+import com.healthcare.repository.UsuarioRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Service
+@Slf4j
+public class PrecalculoEstadisticasJob {
+
+    static final String NOMBRE = "precalculo-estadisticas";
+
+    private final UsuarioRepository usuarioRepository;
+    private final EstadisticasService estadisticasService;
+    private final EstadisticasPrecalculadasRepository precalculadasRepository;
+    private final CheckpointTrabajoRepository checkpointRepository;
+    private final ThreadPoolTaskExecutor executor;
+    private final ThreadPoolTaskExecutor lanzador;
+    private final boolean habilitado;
+    private final int usuariosPorLote;
+    private final long pausaEntreLotesMs;
+
+    private final AtomicBoolean enEjecucion = new AtomicBoolean(false);
+    private final AtomicLong usuariosProcesados = new AtomicLong();
+    private final AtomicLong usuariosTotales = new AtomicLong();
+    private final Counter fallos;
+    private final Timer duracion;
+
+    public PrecalculoEstadisticasJob(UsuarioRepository usuarioRepository,
+                                     EstadisticasService estadisticasService,
+                                     EstadisticasPrecalculadasRepository precalculadasRepository,
+                                     CheckpointTrabajoRepository checkpointRepository,
+                                     @Qualifier("precalculoExecutor") ThreadPoolTaskExecutor executor,
+                                     @Qualifier("precalculoLanzador") ThreadPoolTaskExecutor lanzador,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${healthcare.precalculo.habilitado:true}") boolean habilitado,
+                                     @Value("${healthcare.precalculo.usuarios-por-lote:500}") int usuariosPorLote,
+                                     @Value("${healthcare.precalculo.pausa-entre-lotes-ms:200}") long pausaEntreLotesMs) {
+        this.usuarioRepository = usuarioRepository;
+        this.estadisticasService = estadisticasService;
+        this.precalculadasRepository = precalculadasRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.executor = executor;
+        this.lanzador = lanzador;
+        this.habilitado = habilitado;
+        this.usuariosPorLote = usuariosPorLote;
+        this.pausaEntreLotesMs = pausaEntreLotesMs;
+
+        meterRegistry.gauge("healthcare.precalculo.usuarios.procesados", usuariosProcesados);
+        meterRegistry.gauge("healthcare.precalculo.usuarios.total", usuariosTotales);
+        this.fallos = meterRegistry.counter("healthcare.precalculo.fallos");
+        this.duracion = meterRegistry.timer("healthcare.precalculo.duracion");
+    }
+
+    @Scheduled(cron = "${healthcare.precalculo.cron:0 15 0 * * *}")
+    public void ejecutarProgramado() {
+        if (habilitado) {
+            ejecutar(LocalDate.now().minusDays(1));
+        }
+    }
+
+    // Si la aplicación se cayó a mitad de la ejecución de hoy, se reanuda desde el checkpoint
+    @EventListener(ApplicationReadyEvent.class)
+    public void reanudarSiInterrumpido() {
+        LocalDate ayer = LocalDate.now().minusDays(1);
+        boolean interrumpido = habilitado && checkpointRepository.findById(NOMBRE)
+                .filter(c -> c.getEstado() == EstadoTrabajo.EN_CURSO && c.getFechaCorte().equals(ayer))
+                .isPresent();
+        if (interrumpido) {
+            log.info("Reanudando precálculo de estadísticas interrumpido");
+            ejecutarEnSegundoPlano();
+        }
+    }
+
+    // La reserva de enEjecucion se hace antes de encolar: dos lanzamientos a la vez no pueden pasar ambos
+    public boolean ejecutarEnSegundoPlano() {
+        if (!enEjecucion.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            lanzador.execute(() -> ejecutarReservado(LocalDate.now().minusDays(1)));
+        } catch (TaskRejectedException e) {
+            enEjecucion.set(false);
+            return false;
+        }
+        return true;
+    }
+
+    public Map<String, Object> obtenerEstado() {
+        Map<String, Object> estado = new LinkedHashMap<>();
+        estado.put("enEjecucion", enEjecucion.get());
+        estado.put("procesados", usuariosProcesados.get());
+        estado.put("total", usuariosTotales.get());
+        checkpointRepository.findById(NOMBRE).ifPresent(c -> {
+            estado.put("fechaCorte", c.getFechaCorte());
+            estado.put("estado", c.getEstado());
+            estado.put("ultimoUsuarioId", c.getUltimoUsuarioId());
+            estado.put("fallidos", c.getFallidos());
+            estado.put("fechaInicio", c.getFechaInicio());
+            estado.put("fechaActualizacion", c.getFechaActualizacion());
+        });
+        return estado;
+    }
+
+    void ejecutar(LocalDate fechaCorte) {
+        if (!enEjecucion.compareAndSet(false, true)) {
+            log.warn("El precálculo de estadísticas ya está en ejecución");
+            return;
+        }
+        ejecutarReservado(fechaCorte);
+    }
+
+    // Quien llama ya ha puesto enEjecucion a true
+    private void ejecutarReservado(LocalDate fechaCorte) {
+        try {
+            duracion.record(() -> procesar(fechaCorte));
+        } catch (RuntimeException e) {
+            log.error("Error en el precálculo de estadísticas: {}", e.getMessage(), e);
+        } finally {
+            enEjecucion.set(false);
+        }
+    }
+
+    private void procesar(LocalDate fechaCorte) {
+        CheckpointTrabajo checkpoint = checkpointRepository.findById(NOMBRE).orElse(null);
+        if (checkpoint != null && checkpoint.getFechaCorte().equals(fechaCorte)
+                && checkpoint.getEstado() == EstadoTrabajo.COMPLETADO) {
+            log.info("Precálculo de estadísticas ya completado para {}", fechaCorte);
+            return;
+        }
+        if (checkpoint == null || !checkpoint.getFechaCorte().equals(fechaCorte)) {
+            checkpoint = new CheckpointTrabajo(NOMBRE, fechaCorte, 0L, EstadoTrabajo.EN_CURSO,
+                    0L, 0L, LocalDateTime.now(), null);
+            checkpoint = checkpointRepository.save(checkpoint);
+        }
+
+        LocalDate hoy = fechaCorte.plusDays(1);
+        usuariosTotales.set(usuarioRepository.count());
+        usuariosProcesados.set(checkpoint.getProcesados() + checkpoint.getFallidos());
+        log.info("Precálculo de estadísticas para {} desde el usuario {}", fechaCorte, checkpoint.getUltimoUsuarioId());
+
+        List<Long> lote = usuarioRepository.findIdsDespuesDe(checkpoint.getUltimoUsuarioId(), PageRequest.of(0, usuariosPorLote));
+        while (!lote.isEmpty()) {
+            List<CompletableFuture<Boolean>> tareas = lote.stream()
+                    .map(usuarioId -> CompletableFuture.supplyAsync(() -> precalcularUsuario(usuarioId, hoy), executor))
+                    .toList();
+            long correctos = tareas.stream().filter(CompletableFuture::join).count();
+
+            checkpoint.setUltimoUsuarioId(lote.get(lote.size() - 1));
+            checkpoint.setProcesados(checkpoint.getProcesados() + correctos);
+            checkpoint.setFallidos(checkpoint.getFallidos() + lote.size() - correctos);
+            checkpoint = checkpointRepository.save(checkpoint);
+
+            pausar();
+            lote = usuarioRepository.findIdsDespuesDe(checkpoint.getUltimoUsuarioId(), PageRequest.of(0, usuariosPorLote));
+        }
+
+        checkpoint.setEstado(EstadoTrabajo.COMPLETADO);
+        checkpointRepository.save(checkpoint);
+        log.info("Precálculo de estadísticas completado: {} usuarios, {} fallidos",
+                checkpoint.getProcesados(), checkpoint.getFallidos());
+    }
+
+    private boolean precalcularUsuario(Long usuarioId, LocalDate hoy) {
+        try {
+            precalculadasRepository.save(estadisticasService.precalcularHistorico(usuarioId, hoy));
+            return true;
+        } catch (RuntimeException e) {
+            fallos.increment();
+            log.warn("No se pudo precalcular las estadísticas del usuario {}: {}", usuarioId, e.getMessage());
+            return false;
+        } finally {
+            usuariosProcesados.incrementAndGet();
+        }
+    }
+
+    // Pausa entre lotes para no saturar la base de datos
+    private void pausar() {
+        if (pausaEntreLotesMs <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(pausaEntreLotesMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Precálculo interrumpido", e);
+        }
+    }
+
+    // Un cambio en un día ya cerrado deja obsoleto el histórico precalculado
+    @EventListener
+    public void alModificarRegistro(RegistroHabitoModificadoEvent evento) {
+        if (evento.fecha().isBefore(LocalDate.now())) {
+            precalculadasRepository.deleteById(evento.usuarioId());
+        }
+    }
+
+    @EventListener
+    public void alCrearLote(RegistrosHabitoLoteEvent evento) {
+        LocalDate hoy = LocalDate.now();
+        if (evento.fechas().stream().anyMatch(fecha -> fecha.isBefore(hoy))) {
+            precalculadasRepository.deleteById(evento.usuarioId());
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.healthcare.service;
+
+import com.healthcare.model.RachaUsuario;
+import com.healthcare.repository.RachaUsuarioRepository;
+import com.healthcare.repository.RegistroHabitoRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional
+public class RachaService {
+
+    private final RachaUsuarioRepository rachaUsuarioRepository;
+    private final RegistroHabitoRepository registroHabitoRepository;
+    private final ArchivoRegistrosService archivoRegistrosService;
+
+    // Las lecturas pueden ir a una réplica: si falta el índice se calcula sin guardarlo,
+    // la próxima escritura del usuario lo persiste
+    @Transactional(readOnly = true)
+    public long obtenerRachaActual(Long usuarioId, LocalDate hoy) {
+        RachaUsuario racha = rachaUsuarioRepository.findById(usuarioId)
+                .orElseGet(() -> calcular(usuarioId));
+
+        LocalDate ultima = racha.getUltimaFechaCompletada();
+        if (ultima == null || ultima.isBefore(hoy)) {
+            return 0;
+        }
+
+        // La racha cuenta desde hoy hacia atrás, igual que antes del índice
+        LocalDate inicio = ultima.minusDays(racha.getRachaActual() - 1);
+        return hoy.isBefore(inicio) ? 0 : ChronoUnit.DAYS.between(inicio, hoy) + 1;
+    }
+
+    @Transactional(readOnly = true)
+    public long obtenerRachaMaxima(Long usuarioId) {
+        return rachaUsuarioRepository.findById(usuarioId)
+                .orElseGet(() -> calcular(usuarioId))
+                .getRachaMaxima();
+    }
+
+    // Se llama después de cada escritura de registros que afecte al día indicado
+    public void actualizarDia(Long usuarioId, LocalDate fecha) {
+        RachaUsuario racha = rachaUsuarioRepository.findById(usuarioId).orElse(null);
+        if (racha == null) {
+            reconstruir(usuarioId);
+            return;
+        }
+
+        boolean completado = registroHabitoRepository.existsCompletadoByUsuarioIdAndFecha(usuarioId, fecha);
+        LocalDate ultima = racha.getUltimaFechaCompletada();
+
+        if (completado) {
+            if (ultima == null || fecha.isAfter(ultima.plusDays(1))) {
+                racha.setRachaActual(1L);
+                racha.setUltimaFechaCompletada(fecha);
+            } else if (fecha.equals(ultima.plusDays(1))) {
+                racha.setRachaActual(racha.getRachaActual() + 1);
+                racha.setUltimaFechaCompletada(fecha);
+            } else if (fecha.isBefore(ultima.minusDays(racha.getRachaActual() - 1))) {
+                // Día anterior a la racha actual: puede unir rachas antiguas
+                reconstruir(usuarioId);
+                return;
+            } else {
+                // El día ya formaba parte de la racha actual
+                return;
+            }
+            racha.setRachaMaxima(Math.max(racha.getRachaMaxima(), racha.getRachaActual()));
+            rachaUsuarioRepository.save(racha);
+        } else if (ultima != null && !fecha.isAfter(ultima)) {
+            // Se perdió un día completado dentro del historial
+            reconstruir(usuarioId);
+        }
+    }
+
+    // Con varios días afectados una reconstrucción (una consulta) sale más barata que actualizarlos uno a uno
+    public void actualizarDias(Long usuarioId, Collection<LocalDate> fechas) {
+        if (fechas.size() == 1) {
+            actualizarDia(usuarioId, fechas.iterator().next());
+        } else {
+            reconstruir(usuarioId);
+        }
+    }
+
+    public RachaUsuario reconstruir(Long usuarioId) {
+        log.info("Reconstruyendo índice de rachas para usuario: {}", usuarioId);
+        return rachaUsuarioRepository.save(calcular(usuarioId));
+    }
+
+    private RachaUsuario calcular(Long usuarioId) {
+        // Lo archivado es siempre anterior a lo que queda en caliente
+        List<LocalDate> fechas = new ArrayList<>(archivoRegistrosService.fechasCompletadas(archivoRegistrosService.leerTodos(usuarioId)));
+        fechas.addAll(registroHabitoRepository.findFechasCompletadasByUsuarioId(usuarioId));
+
+        long rachaActual = 0;
+        long rachaMaxima = 0;
+        LocalDate anterior = null;
+        for (LocalDate fecha : fechas) {
+            rachaActual = anterior != null && fecha.equals(anterior.plusDays(1)) ? rachaActual + 1 : 1;
+            rachaMaxima = Math.max(rachaMaxima, rachaActual);
+            anterior = fecha;
+        }
+
+        RachaUsuario racha = rachaUsuarioRepository.findById(usuarioId).orElseGet(RachaUsuario::new);
+        racha.setUsuarioId(usuarioId);
+        racha.setRachaActual(rachaActual);
+        racha.setRachaMaxima(rachaMaxima);
+        racha.setUltimaFechaCompletada(anterior);
+        return racha;
+    }
+}
@@ -1,20 +1,39 @@
 package com.healthcare.service;
 
+import com.healthcare.dto.HabitoResumen;
+import com.healthcare.dto.RegistroArchivado;
+import com.healthcare.dto.RegistroHabitoDTO;
+import com.healthcare.dto.ResultadoRegistroLote;
+import com.healthcare.event.RegistroHabitoModificadoEvent;
+import com.healthcare.event.RegistrosHabitoLoteEvent;
 import com.healthcare.model.Habito;
 import com.healthcare.model.RegistroHabito;
+import com.healthcare.repository.GeneradorIds;
 import com.healthcare.repository.HabitoRepository;
 import com.healthcare.repository.RegistroHabitoRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.ArrayList;
-
-import com.healthcare.repository.UsuarioRepository;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -24,30 +43,73 @@ public class RegistroHabitoService {
 
     private final RegistroHabitoRepository registroHabitoRepository;
     private final HabitoRepository habitoRepository;
-    private final UsuarioRepository usuarioRepository;
+    private final DirectorioUsuarios directorioUsuarios;
+    private final RachaService rachaService;
+    private final ResumenDiarioService resumenDiarioService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final GeneradorIds generadorIds;
+    private final ArchivoRegistrosService archivoRegistrosService;
+
+    private static final Pattern NUMERO_INICIAL = Pattern.compile("\\d+([.,]\\d+)?");
+
+    // Primera página del listado por fecha: el menor DATE que admite MySQL
+    private static final LocalDate FECHA_MINIMA = LocalDate.of(1000, 1, 1);
+
+    @Value("${healthcare.registros.lote.maximo:1000}")
+    private int maximoPorLote;
+
+    @Transactional(readOnly = true)
+    public List<RegistroHabitoDTO> obtenerRegistrosPorHabito(Long habitoId, LocalDate despuesDe, int limite) {
+        log.info("Obteniendo registros para hábito ID: {} posteriores a {}", habitoId, despuesDe);
+        return registroHabitoRepository.findDtoByHabitoIdAndFechaGreaterThan(habitoId,
+                despuesDe != null ? despuesDe : FECHA_MINIMA, PageRequest.of(0, limite));
+    }
 
-    public List<RegistroHabito> obtenerRegistrosPorHabito(Long habitoId) {
-        log.info("Obteniendo registros para hábito ID: {}", habitoId);
-        return registroHabitoRepository.findByHabitoId(habitoId);
+    @Transactional(readOnly = true)
+    public void recorrerRegistrosPorHabito(Long habitoId, Consumer<? super RegistroHabitoDTO> destino) {
+        try (Stream<RegistroHabitoDTO> registros = registroHabitoRepository.streamDtoByHabitoId(habitoId)) {
+            registros.forEach(destino);
+        }
     }
 
-    public List<RegistroHabito> obtenerRegistrosPorUsuarioYFecha(Long usuarioId, LocalDate fecha) {
+    @Transactional(readOnly = true)
+    public List<RegistroHabitoDTO> obtenerRegistrosPorUsuarioYFecha(Long usuarioId, LocalDate fecha) {
         log.info("Obteniendo registros para usuario ID: {} en fecha: {}", usuarioId, fecha);
 
         // Verify user exists
-        if (!usuarioRepository.existsById(usuarioId)) {
+        if (!directorioUsuarios.existe(usuarioId)) {
             log.warn("Usuario no encontrado con ID: {}", usuarioId);
             return new ArrayList<>();
         }
 
-        List<RegistroHabito> registros = registroHabitoRepository.findByUsuarioIdAndFecha(usuarioId, fecha);
+        List<RegistroHabitoDTO> registros = registroHabitoRepository.findDtoByUsuarioIdAndFecha(usuarioId, fecha);
         log.info("Encontrados {} registros para usuario {} en fecha {}", registros.size(), usuarioId, fecha);
         return registros;
     }
 
-    public List<RegistroHabito> obtenerRegistrosPorUsuarioYRangoFechas(Long usuarioId, LocalDate fechaInicio, LocalDate fechaFin) {
+    @Transactional(readOnly = true)
+    public List<RegistroHabitoDTO> obtenerRegistrosPorUsuarioYRangoFechas(Long usuarioId, LocalDate fechaInicio, LocalDate fechaFin) {
         log.info("Obteniendo registros para usuario ID: {} entre {} y {}", usuarioId, fechaInicio, fechaFin);
-        return registroHabitoRepository.findByUsuarioIdAndFechaBetween(usuarioId, fechaInicio, fechaFin);
+        List<RegistroArchivado> archivados = archivoRegistrosService.leer(usuarioId, fechaInicio, fechaFin);
+        if (archivados.isEmpty()) {
+            return registroHabitoRepository.findDtoByUsuarioIdAndFechaBetween(usuarioId, fechaInicio, fechaFin);
+        }
+
+        // El rango llega al archivo: primero los días archivados y después los del nivel caliente
+        Map<Long, HabitoResumen> habitos = habitoRepository.findAllById(archivados.stream()
+                        .map(RegistroArchivado::habitoId)
+                        .collect(Collectors.toSet())).stream()
+                .collect(Collectors.toMap(Habito::getId, HabitoResumen::desde));
+        List<RegistroHabitoDTO> registros = new ArrayList<>();
+        for (RegistroArchivado archivado : archivados) {
+            HabitoResumen habito = habitos.get(archivado.habitoId());
+            if (habito != null) {
+                registros.add(new RegistroHabitoDTO(archivado.id(), habito, archivado.fecha(), archivado.valor(),
+                        archivado.notas(), archivado.completado(), archivado.fechaRegistro()));
+            }
+        }
+        registros.addAll(registroHabitoRepository.findDtoByUsuarioIdAndFechaBetween(usuarioId, fechaInicio, fechaFin));
+        return registros;
     }
 
     public RegistroHabito crearRegistro(RegistroHabito registro) {
@@ -56,32 +118,190 @@ public class RegistroHabitoService {
         // Verificar que el hábito existe
         Habito habito = habitoRepository.findById(registro.getHabito().getId())
                 .orElseThrow(() -> new RuntimeException("Hábito no encontrado con ID: " + registro.getHabito().getId()));
+        archivoRegistrosService.comprobarEscritura(registro.getFecha());
 
         registro.setHabito(habito);
-        return registroHabitoRepository.save(registro);
+        registro.setUsuarioId(habito.getUsuario().getId());
+        RegistroHabito guardado = registroHabitoRepository.save(registro);
+
+        registrarCambio(guardado, guardado.getFecha());
+        return guardado;
+    }
+
+    // Idempotente: repetir la petición deja una sola fila por hábito y día
+    public RegistroHabito guardarRegistroDelDia(Long habitoId, LocalDate fecha, RegistroHabito datos) {
+        log.info("Guardando registro del día {} para hábito ID: {}", fecha, habitoId);
+
+        Habito habito = habitoRepository.findById(habitoId)
+                .orElseThrow(() -> new RuntimeException("Hábito no encontrado con ID: " + habitoId));
+        if (datos.getValor() == null) {
+            throw new IllegalArgumentException("El valor es obligatorio");
+        }
+        archivoRegistrosService.comprobarEscritura(fecha);
+
+        // El id solo se usa si la fila no existía; en caso de conflicto se descarta
+        registroHabitoRepository.upsert(generadorIds.siguienteId(RegistroHabito.class), habitoId, habito.getUsuario().getId(),
+                fecha, datos.getValor(), datos.getNotas(), Boolean.TRUE.equals(datos.getCompletado()));
+
+        RegistroHabito guardado = registroHabitoRepository.findByHabitoIdAndFecha(habitoId, fecha)
+                .orElseThrow(() -> new IllegalStateException("Registro no encontrado tras el upsert"));
+        registrarCambio(guardado, fecha);
+        return guardado;
+    }
+
+    // Comprobaciones de un incremento antes de aceptarlo, también cuando se aplica más tarde
+    @Transactional(readOnly = true)
+    public Habito validarIncremento(Long habitoId, LocalDate fecha, double incremento) {
+        if (!Double.isFinite(incremento)) {
+            throw new IllegalArgumentException("El incremento debe ser un número finito");
+        }
+        archivoRegistrosService.comprobarEscritura(fecha);
+        return habitoRepository.findById(habitoId)
+                .orElseThrow(() -> new RuntimeException("Hábito no encontrado con ID: " + habitoId));
+    }
+
+    // Suma el incremento al valor del día en una sola sentencia y reevalúa completado con la meta diaria
+    public RegistroHabito incrementarRegistroDelDia(Long habitoId, LocalDate fecha, double incremento) {
+        Habito habito = validarIncremento(habitoId, fecha, incremento);
+        Double meta = metaNumerica(habito.getMetaDiaria());
+
+        registroHabitoRepository.incrementar(generadorIds.siguienteId(RegistroHabito.class), habitoId, habito.getUsuario().getId(),
+                fecha, incremento, meta != null && incremento >= meta, meta != null, meta != null ? meta : 0.0);
+
+        RegistroHabito guardado = registroHabitoRepository.findByHabitoIdAndFecha(habitoId, fecha)
+                .orElseThrow(() -> new IllegalStateException("Registro no encontrado tras el incremento"));
+        registrarCambio(guardado, fecha);
+        return guardado;
+    }
+
+    public List<ResultadoRegistroLote> crearRegistros(List<RegistroHabito> registros) {
+        log.info("Creando lote de {} registros", registros.size());
+
+        if (registros.size() > maximoPorLote) {
+            throw new IllegalArgumentException("El lote excede el máximo de " + maximoPorLote + " registros");
+        }
+
+        // Todos los hábitos referenciados en una sola consulta
+        Set<Long> habitoIds = registros.stream()
+                .filter(r -> r.getHabito() != null && r.getHabito().getId() != null)
+                .map(r -> r.getHabito().getId())
+                .collect(Collectors.toSet());
+        Map<Long, Habito> habitos = habitoRepository.findAllById(habitoIds).stream()
+                .collect(Collectors.toMap(Habito::getId, Function.identity()));
+
+        // Pares (hábito, fecha) ya guardados, en una sola consulta acotada por el rango del lote
+        Set<String> existentes = new HashSet<>();
+        List<LocalDate> fechasLote = registros.stream()
+                .map(RegistroHabito::getFecha)
+                .filter(Objects::nonNull)
+                .sorted()
+                .toList();
+        if (!habitos.isEmpty() && !fechasLote.isEmpty()) {
+            for (Object[] clave : registroHabitoRepository.findClavesByHabitoIdInAndFechaBetween(
+                    habitos.keySet(), fechasLote.get(0), fechasLote.get(fechasLote.size() - 1))) {
+                existentes.add(clave[0] + "|" + clave[1]);
+            }
+        }
+
+        List<ResultadoRegistroLote> resultados = new ArrayList<>(registros.size());
+        List<RegistroHabito> validos = new ArrayList<>();
+        List<Integer> indicesValidos = new ArrayList<>();
+        for (int i = 0; i < registros.size(); i++) {
+            RegistroHabito registro = registros.get(i);
+            Habito habito = registro.getHabito() != null ? habitos.get(registro.getHabito().getId()) : null;
+            if (habito == null) {
+                resultados.add(ResultadoRegistroLote.error(i, "Hábito no encontrado"));
+            } else if (registro.getFecha() == null || registro.getValor() == null) {
+                resultados.add(ResultadoRegistroLote.error(i, "Fecha y valor son obligatorios"));
+            } else if (archivoRegistrosService.estaArchivada(registro.getFecha())) {
+                resultados.add(ResultadoRegistroLote.error(i, "La fecha está archivada y es de solo lectura"));
+            } else if (!existentes.add(habito.getId() + "|" + registro.getFecha())) {
+                // Ya en la base de datos o repetido dentro del propio lote
+                resultados.add(ResultadoRegistroLote.error(i, "Ya existe un registro para ese hábito y fecha"));
+            } else {
+                registro.setId(null);
+                registro.setHabito(habito);
+                registro.setUsuarioId(habito.getUsuario().getId());
+                if (registro.getCompletado() == null) {
+                    registro.setCompletado(false);
+                }
+                validos.add(registro);
+                indicesValidos.add(i);
+                resultados.add(null);
+            }
+        }
+
+        // Los INSERT se agrupan según hibernate.jdbc.batch_size
+        List<RegistroHabito> guardados = registroHabitoRepository.saveAllAndFlush(validos);
+        for (int i = 0; i < guardados.size(); i++) {
+            resultados.set(indicesValidos.get(i), ResultadoRegistroLote.creado(indicesValidos.get(i), guardados.get(i).getId()));
+        }
+
+        // Índices derivados y eventos una vez por usuario, no por registro
+        Map<Long, Set<LocalDate>> diasPorUsuario = new HashMap<>();
+        for (RegistroHabito guardado : guardados) {
+            diasPorUsuario.computeIfAbsent(guardado.getUsuarioId(), u -> new HashSet<>()).add(guardado.getFecha());
+        }
+        diasPorUsuario.forEach((usuarioId, fechas) -> {
+            rachaService.actualizarDias(usuarioId, fechas);
+            resumenDiarioService.actualizarDias(usuarioId, fechas);
+            eventPublisher.publishEvent(new RegistrosHabitoLoteEvent(usuarioId, fechas));
+        });
+
+        log.info("Lote procesado: {} creados, {} con error", guardados.size(), registros.size() - guardados.size());
+        return resultados;
     }
 
     public RegistroHabito actualizarRegistro(Long id, RegistroHabito registroActualizado) {
         log.info("Actualizando registro con ID: {}", id);
 
-        RegistroHabito registro = registroHabitoRepository.findById(id)
+        RegistroHabito registro = registroHabitoRepository.findConHabitoById(id)
                 .orElseThrow(() -> new RuntimeException("Registro no encontrado con ID: " + id));
+        LocalDate fechaAnterior = registro.getFecha();
+        // Ni se escribe en un día archivado ni se saca un registro de uno
+        archivoRegistrosService.comprobarEscritura(fechaAnterior);
+        archivoRegistrosService.comprobarEscritura(registroActualizado.getFecha());
 
         registro.setFecha(registroActualizado.getFecha());
         registro.setValor(registroActualizado.getValor());
         registro.setNotas(registroActualizado.getNotas());
         registro.setCompletado(registroActualizado.getCompletado());
 
-        return registroHabitoRepository.save(registro);
+        RegistroHabito guardado = registroHabitoRepository.save(registro);
+
+        registrarCambio(guardado, guardado.getFecha());
+        if (!fechaAnterior.equals(guardado.getFecha())) {
+            registrarCambio(guardado, fechaAnterior);
+        }
+        return guardado;
     }
 
     public void eliminarRegistro(Long id) {
         log.info("Eliminando registro con ID: {}", id);
 
-        if (!registroHabitoRepository.existsById(id)) {
-            throw new RuntimeException("Registro no encontrado con ID: " + id);
+        RegistroHabito registro = registroHabitoRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Registro no encontrado con ID: " + id));
+        archivoRegistrosService.comprobarEscritura(registro.getFecha());
+
+        registroHabitoRepository.delete(registro);
+        registrarCambio(registro, registro.getFecha());
+    }
+
+    // La meta es texto libre ("8", "2.5 litros", "10000 pasos"): se toma el número inicial si lo hay
+    static Double metaNumerica(String metaDiaria) {
+        if (metaDiaria == null) {
+            return null;
         }
+        Matcher numero = NUMERO_INICIAL.matcher(metaDiaria.trim());
+        return numero.lookingAt() ? Double.valueOf(numero.group().replace(',', '.')) : null;
+    }
 
-        registroHabitoRepository.deleteById(id);
+    // Mantiene los índices derivados dentro de la misma transacción que la escritura
+    private void registrarCambio(RegistroHabito registro, LocalDate fecha) {
+        // Por si la fila es anterior a la columna usuario_id y aún no se ha rellenado
+        Long usuarioId = registro.getUsuarioId() != null ? registro.getUsuarioId() : registro.getHabito().getUsuario().getId();
+        rachaService.actualizarDia(usuarioId, fecha);
+        resumenDiarioService.actualizarDia(usuarioId, fecha);
+        eventPublisher.publishEvent(new RegistroHabitoModificadoEvent(usuarioId, registro.getHabito().getId(), fecha));
     }
 }
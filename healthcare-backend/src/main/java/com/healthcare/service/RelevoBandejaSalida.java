@@ -0,0 +1,303 @@
+package com.healthcare.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.healthcare.event.EventoBandejaSalida;
+import com.healthcare.model.MensajeSaliente;
+import com.healthcare.repository.EventoProcesadoRepository;
+import com.healthcare.repository.MensajeSalienteRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Entrega los mensajes de la bandeja de salida a los consumidores en proceso, al menos una vez.
+// Reclama un lote con SKIP LOCKED y le pone una concesión: otros nodos se saltan esas filas y, si
+// este cae, vuelven a estar disponibles al vencer. Cada mensaje se entrega a cada consumidor de su
+// tipo que no lo tenga ya en eventos_procesados; los completos se borran y los fallidos se
+// reprograman con backoff hasta agotar los intentos. El orden entre mensajes no está garantizado
+@Component
+@Slf4j
+public class RelevoBandejaSalida {
+
+    private final MensajeSalienteRepository mensajeSalienteRepository;
+    private final EventoProcesadoRepository eventoProcesadoRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transaccion;
+    private final Map<String, List<ConsumidorBandeja<?>>> consumidoresPorTipo = new HashMap<>();
+    private final boolean habilitado;
+    private final long intervaloMs;
+    private final long agrupacionMs;
+    private final int lote;
+    private final Duration concesion;
+    private final int intentos;
+    private final long backoffMs;
+    private final Duration retencionProcesados;
+
+    private final Semaphore avisos = new Semaphore(0);
+    private final Counter entregados;
+    private final Counter duplicados;
+    private final Counter reintentos;
+    private final Counter agotados;
+    private final Timer latencia;
+    private volatile Thread hilo;
+
+    public RelevoBandejaSalida(MensajeSalienteRepository mensajeSalienteRepository,
+                               EventoProcesadoRepository eventoProcesadoRepository,
+                               ObjectMapper objectMapper,
+                               PlatformTransactionManager transactionManager,
+                               List<ConsumidorBandeja<?>> consumidores,
+                               MeterRegistry meterRegistry,
+                               @Value("${healthcare.bandeja-salida.habilitada:true}") boolean habilitado,
+                               @Value("${healthcare.bandeja-salida.intervalo-ms:1000}") long intervaloMs,
+                               @Value("${healthcare.bandeja-salida.agrupacion-ms:50}") long agrupacionMs,
+                               @Value("${healthcare.bandeja-salida.lote:200}") int lote,
+                               @Value("${healthcare.bandeja-salida.concesion:1m}") Duration concesion,
+                               @Value("${healthcare.bandeja-salida.intentos:10}") int intentos,
+                               @Value("${healthcare.bandeja-salida.backoff-ms:1000}") long backoffMs,
+                               @Value("${healthcare.bandeja-salida.retencion-procesados:7d}") Duration retencionProcesados) {
+        this.mensajeSalienteRepository = mensajeSalienteRepository;
+        this.eventoProcesadoRepository = eventoProcesadoRepository;
+        this.objectMapper = objectMapper;
+        this.transaccion = new TransactionTemplate(transactionManager);
+        this.habilitado = habilitado;
+        this.intervaloMs = intervaloMs;
+        this.agrupacionMs = agrupacionMs;
+        this.lote = lote;
+        this.concesion = concesion;
+        this.intentos = intentos;
+        this.backoffMs = backoffMs;
+        this.retencionProcesados = retencionProcesados;
+        for (ConsumidorBandeja<?> consumidor : consumidores) {
+            consumidoresPorTipo.computeIfAbsent(consumidor.tipo().getName(), t -> new ArrayList<>()).add(consumidor);
+        }
+
+        this.entregados = meterRegistry.counter("healthcare.bandeja-salida.entregados");
+        this.duplicados = meterRegistry.counter("healthcare.bandeja-salida.duplicados");
+        this.reintentos = meterRegistry.counter("healthcare.bandeja-salida.reintentos");
+        this.agotados = meterRegistry.counter("healthcare.bandeja-salida.agotados");
+        this.latencia = Timer.builder("healthcare.bandeja-salida.latencia")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void iniciar() {
+        if (!habilitado || consumidoresPorTipo.isEmpty()) {
+            return;
+        }
+        Thread thread = new Thread(this::ejecutar, "relevo-bandeja-salida");
+        thread.setDaemon(true);
+        hilo = thread;
+        thread.start();
+        log.info("Relevo de la bandeja de salida iniciado para {}", consumidoresPorTipo.keySet());
+    }
+
+    @PreDestroy
+    public void detener() {
+        Thread thread = hilo;
+        hilo = null;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    public void despertar() {
+        avisos.release();
+    }
+
+    private void ejecutar() {
+        while (hilo != null) {
+            try {
+                // Con el lote lleno probablemente queda más: se sigue sin esperar
+                if (procesarLote() < lote) {
+                    // Tras un aviso se espera un poco para que el lote recoja los commits de la misma
+                    // ráfaga: despertar con cada uno deja lotes de un mensaje y tres transacciones por fila
+                    if (avisos.tryAcquire(intervaloMs, TimeUnit.MILLISECONDS) && agrupacionMs > 0) {
+                        Thread.sleep(agrupacionMs);
+                    }
+                    avisos.drainPermits();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                // Base de datos caída: se espera un intervalo y se vuelve a intentar
+                log.error("Error en el relevo de la bandeja de salida: {}", e.getMessage());
+                try {
+                    Thread.sleep(intervaloMs);
+                } catch (InterruptedException interrumpido) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    int procesarLote() {
+        LocalDateTime ahora = LocalDateTime.now();
+        List<MensajeSaliente> mensajes = transaccion.execute(estado -> {
+            List<MensajeSaliente> reclamados = mensajeSalienteRepository.reclamarDisponibles(ahora, PageRequest.of(0, lote));
+            if (!reclamados.isEmpty()) {
+                mensajeSalienteRepository.conceder(reclamados.stream().map(MensajeSaliente::getId).toList(),
+                        ahora.plus(concesion));
+            }
+            return reclamados;
+        });
+        if (mensajes == null || mensajes.isEmpty()) {
+            return 0;
+        }
+
+        // Error del primer consumidor que falló con cada mensaje
+        Map<Long, String> errores = new HashMap<>();
+        for (Map.Entry<String, List<ConsumidorBandeja<?>>> entrada : consumidoresPorTipo.entrySet()) {
+            List<MensajeSaliente> delTipo = mensajes.stream().filter(m -> m.getTipo().equals(entrada.getKey())).toList();
+            if (delTipo.isEmpty()) {
+                continue;
+            }
+            List<Long> ids = delTipo.stream().map(MensajeSaliente::getId).toList();
+            for (ConsumidorBandeja<?> consumidor : entrada.getValue()) {
+                Set<Long> procesados = eventoProcesadoRepository.findMensajeIdsProcesados(consumidor.nombre(), ids);
+                List<MensajeSaliente> pendientes = delTipo.stream().filter(m -> !procesados.contains(m.getId())).toList();
+                duplicados.increment(delTipo.size() - pendientes.size());
+                entregar(consumidor, pendientes, errores);
+            }
+        }
+
+        // Los de tipos sin consumidor también se borran
+        List<Long> completos = new ArrayList<>();
+        for (MensajeSaliente mensaje : mensajes) {
+            String error = errores.get(mensaje.getId());
+            if (error == null) {
+                completos.add(mensaje.getId());
+                latencia.record(Duration.between(mensaje.getFechaCreacion(), LocalDateTime.now()));
+            } else {
+                reprogramar(mensaje, error);
+            }
+        }
+        if (!completos.isEmpty()) {
+            mensajeSalienteRepository.deleteAllByIdInBatch(completos);
+            entregados.increment(completos.size());
+        }
+        return mensajes.size();
+    }
+
+    // Una transacción por consumidor y lote, con los registros de deduplicación de los que
+    // salieron bien. Si la transacción entera falla, ninguno queda registrado y se reintentan todos
+    private void entregar(ConsumidorBandeja<?> consumidor, List<MensajeSaliente> pendientes, Map<Long, String> errores) {
+        if (pendientes.isEmpty()) {
+            return;
+        }
+        try {
+            transaccion.executeWithoutResult(estado -> {
+                List<Long> hechos = consumir(consumidor, pendientes, errores);
+                if (!hechos.isEmpty()) {
+                    eventoProcesadoRepository.registrarProcesados(consumidor.nombre(), hechos, LocalDateTime.now());
+                }
+            });
+        } catch (RuntimeException e) {
+            log.warn("Lote del consumidor {} anulado: {}", consumidor.nombre(), e.getMessage());
+            for (MensajeSaliente mensaje : pendientes) {
+                errores.putIfAbsent(mensaje.getId(), consumidor.nombre() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    // Ids de los mensajes que el consumidor procesó; los que fallan quedan en errores
+    private <T extends EventoBandejaSalida> List<Long> consumir(ConsumidorBandeja<T> consumidor, List<MensajeSaliente> pendientes,
+                                                                Map<Long, String> errores) {
+        List<MensajeSaliente> legibles = new ArrayList<>(pendientes.size());
+        List<T> eventos = new ArrayList<>(pendientes.size());
+        for (MensajeSaliente mensaje : pendientes) {
+            try {
+                eventos.add(objectMapper.readValue(mensaje.getCarga(), consumidor.tipo()));
+                legibles.add(mensaje);
+            } catch (Exception e) {
+                fallar(consumidor, mensaje, "Carga ilegible para " + consumidor.tipo().getSimpleName(), errores);
+            }
+        }
+        if (eventos.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Integer, RuntimeException> fallidos = consumidor.consumirLote(eventos);
+        List<Long> hechos = new ArrayList<>(legibles.size());
+        for (int i = 0; i < legibles.size(); i++) {
+            RuntimeException error = fallidos.get(i);
+            if (error == null) {
+                hechos.add(legibles.get(i).getId());
+            } else {
+                fallar(consumidor, legibles.get(i), error.getMessage(), errores);
+            }
+        }
+        return hechos;
+    }
+
+    private void fallar(ConsumidorBandeja<?> consumidor, MensajeSaliente mensaje, String error, Map<Long, String> errores) {
+        log.warn("El consumidor {} falló con el mensaje {}: {}", consumidor.nombre(), mensaje.getId(), error);
+        errores.putIfAbsent(mensaje.getId(), consumidor.nombre() + ": " + error);
+    }
+
+    private void reprogramar(MensajeSaliente mensaje, String error) {
+        int intento = mensaje.getIntentos() + 1;
+        LocalDateTime disponibleEn = null;
+        if (intento < intentos) {
+            reintentos.increment();
+            // Exponencial con jitter, con tope en la concesión
+            long maximo = Math.min(concesion.toMillis(), backoffMs << Math.min(intento - 1, 20));
+            long espera = maximo / 2 + ThreadLocalRandom.current().nextLong(maximo / 2 + 1);
+            disponibleEn = LocalDateTime.now().plus(espera, ChronoUnit.MILLIS);
+        } else {
+            agotados.increment();
+            log.error("Mensaje {} de la bandeja de salida retenido tras {} intentos: {}", mensaje.getId(), intento, error);
+        }
+        String recortado = error.length() > 500 ? error.substring(0, 500) : error;
+        LocalDateTime siguiente = disponibleEn;
+        transaccion.executeWithoutResult(estado -> mensajeSalienteRepository.reprogramar(mensaje.getId(), siguiente, recortado));
+    }
+
+    // Los registros de deduplicación solo hacen falta mientras un mensaje pueda repetirse
+    @Scheduled(cron = "${healthcare.bandeja-salida.cron-compactacion:0 15 4 * * *}")
+    public void compactarProcesados() {
+        int borrados = transaccion.execute(estado ->
+                eventoProcesadoRepository.deleteProcesadosAntesDe(LocalDateTime.now().minus(retencionProcesados)));
+        log.info("Bandeja de salida: {} registros de deduplicación anteriores a {} borrados", borrados, retencionProcesados);
+    }
+
+    public Map<String, Object> obtenerMetricas() {
+        Map<String, Object> metricas = new LinkedHashMap<>();
+        metricas.put("habilitado", habilitado);
+        metricas.put("pendientes", mensajeSalienteRepository.count());
+        metricas.put("retenidos", mensajeSalienteRepository.countByDisponibleEnIsNull());
+        metricas.put("entregados", (long) entregados.count());
+        metricas.put("duplicadosOmitidos", (long) duplicados.count());
+        metricas.put("reintentos", (long) reintentos.count());
+        metricas.put("agotados", (long) agotados.count());
+        for (ValueAtPercentile percentil : latencia.takeSnapshot().percentileValues()) {
+            metricas.put("latenciaP" + Math.round(percentil.percentile() * 100) + "Ms", percentil.value(TimeUnit.MILLISECONDS));
+        }
+        return metricas;
+    }
+}
@@ -0,0 +1,90 @@
+package com.healthcare.service;
+
+import com.healthcare.model.ResumenDiario;
+import com.healthcare.repository.GeneradorIds;
+import com.healthcare.repository.HabitoRepository;
+import com.healthcare.repository.RegistroHabitoRepository;
+import com.healthcare.repository.ResumenDiarioRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional
+public class ResumenDiarioService {
+
+    private final ResumenDiarioRepository resumenDiarioRepository;
+    private final RegistroHabitoRepository registroHabitoRepository;
+    private final HabitoRepository habitoRepository;
+    private final ArchivoRegistrosService archivoRegistrosService;
+    private final GeneradorIds generadorIds;
+
+    @Transactional(readOnly = true)
+    public List<ResumenDiario> obtenerResumenes(Long usuarioId, LocalDate fechaInicio, LocalDate fechaFin) {
+        return resumenDiarioRepository.findByUsuarioIdAndFechaBetweenOrderByFecha(usuarioId, fechaInicio, fechaFin);
+    }
+
+    @Transactional(readOnly = true)
+    public List<ResumenDiario> obtenerDiasActivos(Long usuarioId, LocalDate fechaInicio, LocalDate fechaFin) {
+        return resumenDiarioRepository.findByUsuarioIdAndFechaBetweenAndCompletadosGreaterThan(usuarioId, fechaInicio, fechaFin, 0L);
+    }
+
+    @Transactional(readOnly = true)
+    public long contarDiasActivos(Long usuarioId, LocalDate fechaInicio, LocalDate fechaFin) {
+        return resumenDiarioRepository.countByUsuarioIdAndFechaBetweenAndCompletadosGreaterThan(usuarioId, fechaInicio, fechaFin, 0L);
+    }
+
+    // Recalcula los completados del día tras una escritura de registros
+    public void actualizarDia(Long usuarioId, LocalDate fecha) {
+        resumenDiarioRepository.upsertCompletados(generadorIds.siguienteId(ResumenDiario.class), usuarioId, fecha,
+                registroHabitoRepository.countCompletadosByUsuarioIdAndFecha(usuarioId, fecha));
+    }
+
+    // Recalcula los hábitos activos del día tras una escritura de hábitos
+    public void actualizarHabitosActivos(Long usuarioId, LocalDate fecha) {
+        resumenDiarioRepository.upsertHabitosActivos(generadorIds.siguienteId(ResumenDiario.class), usuarioId, fecha);
+    }
+
+    // Variante por lotes de actualizarDia: una consulta para todo el rango en lugar de una por día
+    public void actualizarDias(Long usuarioId, Collection<LocalDate> fechas) {
+        LocalDate desde = Collections.min(fechas);
+        LocalDate hasta = Collections.max(fechas);
+
+        Map<LocalDate, Long> completadosPorDia = new HashMap<>();
+        for (Object[] fila : registroHabitoRepository.findCompletadosByUsuarioIdAndFechaBetween(usuarioId, desde, hasta)) {
+            completadosPorDia.merge((LocalDate) fila[1], 1L, Long::sum);
+        }
+        for (LocalDate fecha : fechas) {
+            resumenDiarioRepository.upsertCompletados(generadorIds.siguienteId(ResumenDiario.class), usuarioId, fecha,
+                    completadosPorDia.getOrDefault(fecha, 0L));
+        }
+    }
+
+    public void reconstruir(Long usuarioId) {
+        log.info("Reconstruyendo resúmenes diarios para usuario: {}", usuarioId);
+
+        resumenDiarioRepository.deleteByUsuarioId(usuarioId);
+        resumenDiarioRepository.flush();
+
+        // El histórico de hábitos activos no se conserva; se usa el valor actual
+        long habitosActivos = habitoRepository.countByUsuarioIdAndActivoTrue(usuarioId);
+        List<ResumenDiario> resumenes = new ArrayList<>();
+        archivoRegistrosService.completadosPorFecha(archivoRegistrosService.leerTodos(usuarioId))
+                .forEach((fecha, completados) -> resumenes.add(new ResumenDiario(null, usuarioId, fecha, completados, habitosActivos)));
+        registroHabitoRepository.countCompletadosPorFechaByUsuarioId(usuarioId)
+                .forEach(fila -> resumenes.add(new ResumenDiario(null, usuarioId, (LocalDate) fila[0], (Long) fila[1], habitosActivos)));
+
+        resumenDiarioRepository.saveAll(resumenes);
+    }
+}
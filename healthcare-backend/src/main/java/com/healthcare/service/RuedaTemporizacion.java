@@ -0,0 +1,121 @@
+package com.healthcare.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+// Rueda de temporización jerárquica, con el mismo esquema que los temporizadores clásicos del
+// kernel de Linux. Cada nivel tiene 2^bits ranuras y cubre 2^bits veces el alcance del anterior.
+// Programar es O(1). Al avanzar un tick se dispara la ranura actual del nivel 0; al cruzar el
+// límite de un nivel, su ranura se redistribuye hacia los inferiores, así que cada elemento se
+// mueve como mucho niveles-1 veces. No es segura entre hilos: la usa solo el hilo de despacho.
+public class RuedaTemporizacion<T> {
+
+    private record Entrada<T>(long tick, T valor) {
+    }
+
+    private final int bits;
+    private final int mascara;
+    private final int niveles;
+    private final List<Entrada<T>>[][] ranuras;
+    private final List<Entrada<T>> vencidas = new ArrayList<>();
+
+    // Próximo tick por procesar
+    private long siguiente;
+    private int tamano;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public RuedaTemporizacion(int bits, int niveles, long tickInicial) {
+        if (bits * niveles >= 63) {
+            throw new IllegalArgumentException("La rueda no puede cubrir más de 2^62 ticks");
+        }
+        this.bits = bits;
+        this.mascara = (1 << bits) - 1;
+        this.niveles = niveles;
+        this.ranuras = new List[niveles][1 << bits];
+        this.siguiente = tickInicial;
+    }
+
+    // Ticks por delante del actual que admite la rueda
+    public long alcance() {
+        return 1L << (bits * niveles);
+    }
+
+    // Todo lo programado para un tick anterior ya se ha disparado
+    public long siguienteTick() {
+        return siguiente;
+    }
+
+    public int tamano() {
+        return tamano;
+    }
+
+    // false si el tick queda fuera del alcance; los ya pasados se disparan en el próximo avance
+    public boolean programar(T valor, long tick) {
+        long distancia = tick - siguiente;
+        if (distancia < 0) {
+            vencidas.add(new Entrada<>(tick, valor));
+            tamano++;
+            return true;
+        }
+        if (distancia >= alcance()) {
+            return false;
+        }
+        // Nivel más bajo cuyo alcance contiene la distancia
+        int nivel = distancia == 0 ? 0 : (63 - Long.numberOfLeadingZeros(distancia)) / bits;
+        int indice = (int) ((tick >>> (bits * nivel)) & mascara);
+        List<Entrada<T>> ranura = ranuras[nivel][indice];
+        if (ranura == null) {
+            ranura = new ArrayList<>();
+            ranuras[nivel][indice] = ranura;
+        }
+        ranura.add(new Entrada<>(tick, valor));
+        tamano++;
+        return true;
+    }
+
+    // Procesa todos los ticks hasta el indicado, incluido
+    public void avanzar(long hasta, Consumer<? super T> disparar) {
+        if (!vencidas.isEmpty()) {
+            for (Entrada<T> entrada : vencidas) {
+                disparar.accept(entrada.valor());
+            }
+            tamano -= vencidas.size();
+            vencidas.clear();
+        }
+        while (siguiente <= hasta) {
+            int indice = (int) (siguiente & mascara);
+            if (indice == 0) {
+                // Inicio de un bloque del nivel 1: se reparte su ranura, y así sucesivamente hacia arriba
+                for (int nivel = 1; nivel < niveles; nivel++) {
+                    int indiceNivel = (int) ((siguiente >>> (bits * nivel)) & mascara);
+                    redistribuir(nivel, indiceNivel);
+                    if (indiceNivel != 0) {
+                        break;
+                    }
+                }
+            }
+            List<Entrada<T>> ranura = ranuras[0][indice];
+            if (ranura != null) {
+                ranuras[0][indice] = null;
+                tamano -= ranura.size();
+                for (Entrada<T> entrada : ranura) {
+                    disparar.accept(entrada.valor());
+                }
+            }
+            siguiente++;
+        }
+    }
+
+    private void redistribuir(int nivel, int indice) {
+        List<Entrada<T>> ranura = ranuras[nivel][indice];
+        if (ranura == null) {
+            return;
+        }
+        ranuras[nivel][indice] = null;
+        tamano -= ranura.size();
+        for (Entrada<T> entrada : ranura) {
+            programar(entrada.valor(), entrada.tick());
+        }
+    }
+}
@@ -1,14 +1,21 @@
 package com.healthcare.service;
 
+import com.healthcare.event.UsuarioCreadoEvent;
+import com.healthcare.event.UsuarioEliminadoEvent;
 import com.healthcare.model.Usuario;
 import com.healthcare.repository.UsuarioRepository;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -17,17 +24,34 @@ import java.util.Optional;
 public class UsuarioService {
     
     private final UsuarioRepository usuarioRepository;
+    private final EntityManager entityManager;
+    private final ArchivoRegistrosService archivoRegistrosService;
+    private final ApplicationEventPublisher eventPublisher;
     
-    public List<Usuario> obtenerTodosLosUsuarios() {
-        log.info("Obteniendo todos los usuarios");
-        return usuarioRepository.findAll();
+    @Transactional(readOnly = true)
+    public List<Usuario> obtenerTodosLosUsuarios(Long despuesDe, int limite) {
+        log.info("Obteniendo usuarios después del ID {}", despuesDe);
+        return usuarioRepository.findByIdGreaterThan(despuesDe, PageRequest.of(0, limite));
+    }
+
+    @Transactional(readOnly = true)
+    public void recorrerTodosLosUsuarios(Consumer<? super Usuario> destino) {
+        try (Stream<Usuario> usuarios = usuarioRepository.streamAll()) {
+            usuarios.forEach(usuario -> {
+                destino.accept(usuario);
+                // Sin esto el contexto de persistencia retendría la tabla entera
+                entityManager.detach(usuario);
+            });
+        }
     }
     
+    @Transactional(readOnly = true)
     public Optional<Usuario> obtenerUsuarioPorId(Long id) {
         log.info("Obteniendo usuario por ID: {}", id);
         return usuarioRepository.findById(id);
     }
     
+    @Transactional(readOnly = true)
     public Optional<Usuario> obtenerUsuarioPorEmail(String email) {
         log.info("Obteniendo usuario por email: {}", email);
         return usuarioRepository.findByEmail(email);
@@ -40,7 +64,9 @@ public class UsuarioService {
             throw new RuntimeException("Ya existe un usuario con el email: " + usuario.getEmail());
         }
         
-        return usuarioRepository.save(usuario);
+        Usuario guardado = usuarioRepository.save(usuario);
+        eventPublisher.publishEvent(new UsuarioCreadoEvent(guardado.getId()));
+        return guardado;
     }
     
     public Usuario actualizarUsuario(Long id, Usuario usuarioActualizado) {
@@ -75,9 +101,13 @@ public class UsuarioService {
             throw new RuntimeException("Usuario no encontrado con ID: " + id);
         }
         
+        // El archivo no tiene clave foránea hacia usuarios
+        archivoRegistrosService.eliminarUsuario(id);
         usuarioRepository.deleteById(id);
+        eventPublisher.publishEvent(new UsuarioEliminadoEvent(id));
     }
 
+    @Transactional(readOnly = true)
     public Optional<Usuario> login(String email, String password) {
         log.info("Intentando login para email: {}", email);
         return usuarioRepository.findByEmailAndPassword(email, password);
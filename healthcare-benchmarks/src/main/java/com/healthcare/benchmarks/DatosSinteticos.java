@@ -0,0 +1,75 @@
+package com.healthcare.benchmarks;
+
+import com.healthcare.model.Habito;
+import com.healthcare.model.RegistroHabito;
+import com.healthcare.model.Usuario;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Random;
+import java.util.TreeMap;
+
+// Historial sintético y reproducible de un usuario: cada hábito tiene registro el 80% de los días
+public class DatosSinteticos {
+
+    private static final String[] CATEGORIAS = {"Hidratación", "Sueño", "Ejercicio", "Nutrición", "Salud mental"};
+
+    public final Usuario usuario;
+    public final List<Habito> habitos = new ArrayList<>();
+    public final NavigableMap<LocalDate, List<RegistroHabito>> registrosPorFecha = new TreeMap<>();
+    public final LocalDate hoy;
+    public long totalRegistros;
+
+    public DatosSinteticos(int numeroHabitos, int anios, long semilla) {
+        Random random = new Random(semilla);
+        this.hoy = LocalDate.now();
+
+        usuario = new Usuario();
+        usuario.setId(1L);
+        usuario.setEmail("benchmark@healthcare.com");
+        usuario.setNombre("Benchmark");
+        usuario.setApellido("Sintético");
+        usuario.setEdad(30);
+        usuario.setPassword("bench");
+
+        for (int i = 0; i < numeroHabitos; i++) {
+            Habito habito = new Habito();
+            habito.setId((long) i + 1);
+            habito.setUsuario(usuario);
+            habito.setNombre("Hábito " + (i + 1));
+            habito.setCategoria(CATEGORIAS[i % CATEGORIAS.length]);
+            habito.setMetaDiaria("8");
+            habito.setUnidadMedida("unidades");
+            habito.setActivo(random.nextDouble() < 0.9);
+            habitos.add(habito);
+        }
+
+        long id = 1;
+        LocalDate inicio = hoy.minusYears(anios).plusDays(1);
+        for (LocalDate fecha = inicio; !fecha.isAfter(hoy); fecha = fecha.plusDays(1)) {
+            List<RegistroHabito> delDia = new ArrayList<>();
+            for (Habito habito : habitos) {
+                if (random.nextDouble() < 0.8) {
+                    RegistroHabito registro = new RegistroHabito();
+                    registro.setId(id++);
+                    registro.setHabito(habito);
+                    registro.setUsuarioId(usuario.getId());
+                    registro.setFecha(fecha);
+                    registro.setValor(random.nextDouble() * 10);
+                    registro.setCompletado(random.nextDouble() < 0.7);
+                    delDia.add(registro);
+                }
+            }
+            registrosPorFecha.put(fecha, delDia);
+            totalRegistros += delDia.size();
+        }
+    }
+
+    public List<RegistroHabito> registros(LocalDate desde, LocalDate hasta) {
+        List<RegistroHabito> registros = new ArrayList<>();
+        registrosPorFecha.subMap(desde, true, hasta, true).values().forEach(registros::addAll);
+        return registros;
+    }
+}
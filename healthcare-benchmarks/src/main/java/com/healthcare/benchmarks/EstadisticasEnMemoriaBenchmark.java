@@ -0,0 +1,98 @@
+package com.healthcare.benchmarks;
+
+import com.healthcare.dto.DashboardEstadisticas;
+import com.healthcare.dto.DatoCategoria;
+import com.healthcare.dto.DatoProgreso;
+import com.healthcare.model.Estadisticas;
+import com.healthcare.repository.EstadisticasPrecalculadasRepository;
+import com.healthcare.repository.GeneradorIds;
+import com.healthcare.service.ArchivoRegistrosService;
+import com.healthcare.service.BitmapCompletados;
+import com.healthcare.service.DirectorioUsuarios;
+import com.healthcare.service.EstadisticasCache;
+import com.healthcare.service.EstadisticasService;
+import com.healthcare.service.RachaService;
+import com.healthcare.service.ResumenDiarioService;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Coste de agregación de EstadisticasService sin base de datos, con la caché de resultados desactivada
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EstadisticasEnMemoriaBenchmark {
+
+    @Param({"10", "50", "200"})
+    private int habitos;
+
+    @Param({"1", "5", "10"})
+    private int anios;
+
+    @Param({"true", "false"})
+    private boolean bitmap;
+
+    // Con el histórico precalculado el dashboard solo agrega el día de hoy
+    @Param({"false", "true"})
+    private boolean precalculado;
+
+    private EstadisticasService estadisticasService;
+    private Long usuarioId;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        DatosSinteticos datos = new DatosSinteticos(habitos, anios, 42L);
+        RepositoriosEnMemoria repositorios = new RepositoriosEnMemoria(datos);
+        usuarioId = datos.usuario.getId();
+
+        ArchivoRegistrosService archivo = new ArchivoRegistrosService(
+                repositorios.archivo(), repositorios.registros(), repositorios.checkpoints());
+        RachaService rachaService = new RachaService(repositorios.rachas(), repositorios.registros(), archivo);
+        ResumenDiarioService resumenDiarioService = new ResumenDiarioService(
+                repositorios.resumenes(), repositorios.registros(), repositorios.habitos(), archivo, new GeneradorIds());
+        EstadisticasCache sinCache = new EstadisticasCache(0, Duration.ofMinutes(1));
+        BitmapCompletados bitmapCompletados = new BitmapCompletados(repositorios.registros(), archivo,
+                repositorios.transacciones(), bitmap, false, 64);
+
+        EstadisticasPrecalculadasRepository precalculadas = repositorios.precalculadas();
+
+        DirectorioUsuarios directorioUsuarios = new DirectorioUsuarios(repositorios.usuarios(), 1000, Duration.ofMinutes(10));
+
+        estadisticasService = new EstadisticasService(repositorios.habitos(), repositorios.registros(),
+                directorioUsuarios, rachaService, resumenDiarioService, sinCache, bitmapCompletados, precalculadas, archivo);
+        if (precalculado) {
+            precalculadas.save(estadisticasService.precalcularHistorico(usuarioId, LocalDate.now()));
+        }
+    }
+
+    @Benchmark
+    public Estadisticas estadisticasUsuario() {
+        return estadisticasService.obtenerEstadisticasUsuario(usuarioId);
+    }
+
+    @Benchmark
+    public DashboardEstadisticas dashboard() {
+        return estadisticasService.obtenerDashboard(usuarioId);
+    }
+
+    @Benchmark
+    public List<DatoProgreso> progresoSemanal() {
+        return estadisticasService.obtenerProgresoSemanal(usuarioId);
+    }
+
+    @Benchmark
+    public List<DatoProgreso> progresoMensual() {
+        return estadisticasService.obtenerProgresoMensual(usuarioId);
+    }
+
+    @Benchmark
+    public List<DatoCategoria> porCategorias() {
+        return estadisticasService.obtenerPorCategorias(usuarioId);
+    }
+}
@@ -0,0 +1,118 @@
+package com.healthcare.benchmarks;
+
+import com.healthcare.HealthcareBackendApplication;
+import com.healthcare.dto.DashboardEstadisticas;
+import com.healthcare.dto.DatoCategoria;
+import com.healthcare.dto.DatoProgreso;
+import com.healthcare.model.Estadisticas;
+import com.healthcare.model.Habito;
+import com.healthcare.model.RegistroHabito;
+import com.healthcare.repository.HabitoRepository;
+import com.healthcare.repository.RegistroHabitoRepository;
+import com.healthcare.repository.UsuarioRepository;
+import com.healthcare.service.EstadisticasService;
+import com.healthcare.service.RachaService;
+import com.healthcare.service.ResumenDiarioService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Extremo a extremo: servicios reales de Spring contra H2 embebida en modo MySQL
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EstadisticasH2Benchmark {
+
+    @Param({"10", "50"})
+    private int habitos;
+
+    @Param({"1", "3"})
+    private int anios;
+
+    // Con réplica, las lecturas pasan por el DataSource enrutado hacia un segundo pool sobre la misma base
+    @Param({"false", "true"})
+    private boolean replica;
+
+    private ConfigurableApplicationContext contexto;
+    private EstadisticasService estadisticasService;
+    private Long usuarioId;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        String url = "jdbc:h2:mem:benchmark;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+        contexto = new SpringApplicationBuilder(HealthcareBackendApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(replica ? Map.of("healthcare.datasource.replicas", url) : Map.of())
+                .run("--spring.datasource.url=" + url,
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.com.healthcare=WARN",
+                        "--logging.level.org.springframework.web=WARN",
+                        "--healthcare.estadisticas.cache.tamano-maximo=0",
+                        "--healthcare.precalculo.habilitado=false");
+
+        DatosSinteticos datos = new DatosSinteticos(habitos, anios, 42L);
+        datos.usuario.setId(null);
+        usuarioId = contexto.getBean(UsuarioRepository.class).save(datos.usuario).getId();
+
+        datos.habitos.forEach(habito -> habito.setId(null));
+        contexto.getBean(HabitoRepository.class).saveAll(datos.habitos);
+
+        RegistroHabitoRepository registroHabitoRepository = contexto.getBean(RegistroHabitoRepository.class);
+        for (List<RegistroHabito> delDia : datos.registrosPorFecha.values()) {
+            delDia.forEach(registro -> {
+                registro.setId(null);
+                registro.setUsuarioId(usuarioId);
+            });
+            registroHabitoRepository.saveAll(delDia);
+        }
+
+        // La carga masiva no pasa por RegistroHabitoService: se reconstruyen los índices derivados
+        contexto.getBean(RachaService.class).reconstruir(usuarioId);
+        contexto.getBean(ResumenDiarioService.class).reconstruir(usuarioId);
+
+        estadisticasService = contexto.getBean(EstadisticasService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() {
+        contexto.close();
+    }
+
+    @Benchmark
+    public Estadisticas estadisticasUsuario() {
+        return estadisticasService.obtenerEstadisticasUsuario(usuarioId);
+    }
+
+    @Benchmark
+    public DashboardEstadisticas dashboard() {
+        return estadisticasService.obtenerDashboard(usuarioId);
+    }
+
+    @Benchmark
+    public List<DatoProgreso> progresoSemanal() {
+        return estadisticasService.obtenerProgresoSemanal(usuarioId);
+    }
+
+    @Benchmark
+    public List<DatoProgreso> progresoMensual() {
+        return estadisticasService.obtenerProgresoMensual(usuarioId);
+    }
+
+    @Benchmark
+    public List<DatoCategoria> porCategorias() {
+        return estadisticasService.obtenerPorCategorias(usuarioId);
+    }
+}
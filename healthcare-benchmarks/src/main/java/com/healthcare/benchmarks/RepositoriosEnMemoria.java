@@ -0,0 +1,214 @@
+package com.healthcare.benchmarks;
+
+import com.healthcare.dto.DatoCategoria;
+import com.healthcare.model.EstadisticasPrecalculadas;
+import com.healthcare.model.Habito;
+import com.healthcare.model.RachaUsuario;
+import com.healthcare.model.RegistroHabito;
+import com.healthcare.model.ResumenDiario;
+import com.healthcare.repository.ArchivoRegistrosMesRepository;
+import com.healthcare.repository.CheckpointTrabajoRepository;
+import com.healthcare.repository.EstadisticasPrecalculadasRepository;
+import com.healthcare.repository.HabitoRepository;
+import com.healthcare.repository.RachaUsuarioRepository;
+import com.healthcare.repository.RegistroHabitoRepository;
+import com.healthcare.repository.ResumenDiarioRepository;
+import com.healthcare.repository.UsuarioRepository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+// Implementaciones en memoria de las consultas que usan los servicios de estadísticas.
+// Aíslan el coste de agregación del de la base de datos; cualquier consulta nueva falla de forma explícita.
+public class RepositoriosEnMemoria {
+
+    private final DatosSinteticos datos;
+    private final Map<Long, RachaUsuario> rachas = new HashMap<>();
+    private final TreeMap<LocalDate, ResumenDiario> resumenes = new TreeMap<>();
+    private final Map<Long, EstadisticasPrecalculadas> precalculadas = new HashMap<>();
+
+    public RepositoriosEnMemoria(DatosSinteticos datos) {
+        this.datos = datos;
+        long activos = datos.habitos.stream().filter(Habito::getActivo).count();
+        datos.registrosPorFecha.forEach((fecha, registros) -> resumenes.put(fecha, new ResumenDiario(null,
+                datos.usuario.getId(), fecha, registros.stream().filter(RegistroHabito::getCompletado).count(), activos)));
+    }
+
+    public UsuarioRepository usuarios() {
+        return proxy(UsuarioRepository.class, (p, metodo, args) -> switch (metodo.getName()) {
+            case "existsById" -> datos.usuario.getId().equals(args[0]);
+            case "findById" -> Optional.of(datos.usuario);
+            default -> noSoportado(metodo.getName());
+        });
+    }
+
+    public HabitoRepository habitos() {
+        return proxy(HabitoRepository.class, (p, metodo, args) -> switch (metodo.getName()) {
+            case "findByUsuarioId" -> new ArrayList<>(datos.habitos);
+            case "findByUsuarioIdAndActivoTrue" -> activos();
+            case "countByUsuarioIdAndActivoTrue" -> (long) activos().size();
+            case "countPorCategoriaByUsuarioIdAndFecha" -> porCategoria((LocalDate) args[1]);
+            default -> noSoportado(metodo.getName());
+        });
+    }
+
+    public RegistroHabitoRepository registros() {
+        return proxy(RegistroHabitoRepository.class, (p, metodo, args) -> switch (metodo.getName()) {
+            case "countCompletadosByUsuarioIdAndFecha" -> datos.registros((LocalDate) args[1], (LocalDate) args[1]).stream()
+                    .filter(RegistroHabito::getCompletado)
+                    .count();
+            case "findCompletadosByUsuarioIdAndFechaBetween" -> completados((LocalDate) args[1], (LocalDate) args[2]);
+            case "findCompletadosByUsuarioId" -> completados(datos.registrosPorFecha.firstKey(), datos.hoy);
+            case "findHabitoIdsCompletadosByUsuarioIdAndFecha" -> datos.registros((LocalDate) args[1], (LocalDate) args[1]).stream()
+                    .filter(RegistroHabito::getCompletado)
+                    .map(r -> r.getHabito().getId())
+                    .collect(Collectors.toSet());
+            case "findFechasCompletadasByUsuarioId" -> datos.registrosPorFecha.entrySet().stream()
+                    .filter(e -> e.getValue().stream().anyMatch(RegistroHabito::getCompletado))
+                    .map(Map.Entry::getKey)
+                    .toList();
+            case "existsCompletadoByUsuarioIdAndFecha" -> datos.registros((LocalDate) args[1], (LocalDate) args[1]).stream()
+                    .anyMatch(RegistroHabito::getCompletado);
+            default -> noSoportado(metodo.getName());
+        });
+    }
+
+    public RachaUsuarioRepository rachas() {
+        return proxy(RachaUsuarioRepository.class, (p, metodo, args) -> switch (metodo.getName()) {
+            case "findById" -> Optional.ofNullable(rachas.get((Long) args[0]));
+            case "save" -> {
+                RachaUsuario racha = (RachaUsuario) args[0];
+                rachas.put(racha.getUsuarioId(), racha);
+                yield racha;
+            }
+            default -> noSoportado(metodo.getName());
+        });
+    }
+
+    public ResumenDiarioRepository resumenes() {
+        return proxy(ResumenDiarioRepository.class, (p, metodo, args) -> switch (metodo.getName()) {
+            case "findByUsuarioIdAndFechaBetweenOrderByFecha" ->
+                    new ArrayList<>(resumenes.subMap((LocalDate) args[1], true, (LocalDate) args[2], true).values());
+            case "findByUsuarioIdAndFechaBetweenAndCompletadosGreaterThan" ->
+                    resumenes.subMap((LocalDate) args[1], true, (LocalDate) args[2], true).values().stream()
+                            .filter(r -> r.getCompletados() > (Long) args[3])
+                            .toList();
+            case "countByUsuarioIdAndFechaBetweenAndCompletadosGreaterThan" ->
+                    resumenes.subMap((LocalDate) args[1], true, (LocalDate) args[2], true).values().stream()
+                            .filter(r -> r.getCompletados() > (Long) args[3])
+                            .count();
+            default -> noSoportado(metodo.getName());
+        });
+    }
+
+    public EstadisticasPrecalculadasRepository precalculadas() {
+        return proxy(EstadisticasPrecalculadasRepository.class, (p, metodo, args) -> switch (metodo.getName()) {
+            case "findById" -> Optional.ofNullable(precalculadas.get((Long) args[0]));
+            case "save" -> {
+                EstadisticasPrecalculadas estadisticas = (EstadisticasPrecalculadas) args[0];
+                precalculadas.put(estadisticas.getUsuarioId(), estadisticas);
+                yield estadisticas;
+            }
+            default -> noSoportado(metodo.getName());
+        });
+    }
+
+    // Sin archivado: todo el histórico sintético está en el nivel caliente
+    public ArchivoRegistrosMesRepository archivo() {
+        return proxy(ArchivoRegistrosMesRepository.class, (p, metodo, args) -> switch (metodo.getName()) {
+            case "findByUsuarioIdOrderByMes", "findByUsuarioIdAndMesBetweenOrderByMes" -> List.of();
+            default -> noSoportado(metodo.getName());
+        });
+    }
+
+    public CheckpointTrabajoRepository checkpoints() {
+        return proxy(CheckpointTrabajoRepository.class, (p, metodo, args) -> switch (metodo.getName()) {
+            case "findById" -> Optional.empty();
+            default -> noSoportado(metodo.getName());
+        });
+    }
+
+    // Sin base de datos no hay nada que abrir ni confirmar
+    public PlatformTransactionManager transacciones() {
+        return new AbstractPlatformTransactionManager() {
+            @Override
+            protected Object doGetTransaction() {
+                return new Object();
+            }
+
+            @Override
+            protected void doBegin(Object transaccion, TransactionDefinition definicion) {
+            }
+
+            @Override
+            protected void doCommit(DefaultTransactionStatus estado) {
+            }
+
+            @Override
+            protected void doRollback(DefaultTransactionStatus estado) {
+            }
+        };
+    }
+
+    private List<Habito> activos() {
+        return datos.habitos.stream().filter(Habito::getActivo).toList();
+    }
+
+    private List<Object[]> completados(LocalDate desde, LocalDate hasta) {
+        return datos.registros(desde, hasta).stream()
+                .filter(RegistroHabito::getCompletado)
+                .map(r -> new Object[]{r.getHabito().getId(), r.getFecha()})
+                .toList();
+    }
+
+    // Equivalente en memoria del GROUP BY de HabitoRepository
+    private List<DatoCategoria> porCategoria(LocalDate fecha) {
+        Set<Long> completadosHoy = datos.registros(fecha, fecha).stream()
+                .filter(RegistroHabito::getCompletado)
+                .map(r -> r.getHabito().getId())
+                .collect(Collectors.toSet());
+        Map<String, long[]> conteos = new LinkedHashMap<>();
+        for (Habito habito : activos()) {
+            long[] conteo = conteos.computeIfAbsent(habito.getCategoria(), c -> new long[2]);
+            conteo[0]++;
+            if (completadosHoy.contains(habito.getId())) {
+                conteo[1]++;
+            }
+        }
+        List<DatoCategoria> resultado = new ArrayList<>();
+        conteos.forEach((categoria, conteo) -> resultado.add(new DatoCategoria(categoria, conteo[0], conteo[1])));
+        return resultado;
+    }
+
+    private static Object noSoportado(String metodo) {
+        throw new UnsupportedOperationException("Consulta no implementada en memoria: " + metodo);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> tipo, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(tipo.getClassLoader(), new Class<?>[]{tipo}, (p, metodo, args) -> {
+            if (metodo.getDeclaringClass() == Object.class) {
+                return switch (metodo.getName()) {
+                    case "hashCode" -> System.identityHashCode(p);
+                    case "equals" -> p == args[0];
+                    default -> tipo.getSimpleName() + "EnMemoria";
+                };
+            }
+            return handler.invoke(p, metodo, args);
+        });
+    }
+}
@@ -0,0 +1,45 @@
+package com.healthcare.benchmarks;
+
+import com.healthcare.service.RuedaTemporizacion;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Coste de programar y disparar en la rueda del despacho de notificaciones, con la
+// misma geometría (6 bits, 4 niveles) y una ventana de 10 minutos en ticks de un segundo. Cada
+// invocación carga la ventana entera y la vacía: si es O(1) el tiempo total crece lineal con los pendientes
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class RuedaTemporizacionBenchmark {
+
+    private static final int VENTANA_TICKS = 600;
+
+    @Param({"100000", "1000000", "4000000"})
+    private int pendientes;
+
+    private long[] ticks;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        SplittableRandom random = new SplittableRandom(42L);
+        ticks = new long[pendientes];
+        for (int i = 0; i < pendientes; i++) {
+            ticks[i] = random.nextInt(VENTANA_TICKS);
+        }
+    }
+
+    @Benchmark
+    public void programarYDisparar(Blackhole blackhole) {
+        RuedaTemporizacion<Integer> rueda = new RuedaTemporizacion<>(6, 4, 0);
+        for (int i = 0; i < pendientes; i++) {
+            rueda.programar(i, ticks[i]);
+        }
+        rueda.avanzar(VENTANA_TICKS, blackhole::consume);
+    }
+}